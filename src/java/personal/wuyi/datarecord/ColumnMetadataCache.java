@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Cache for the column metadata of the tables in one database connection.
+ *
+ * <p>Reading the metadata of a table needs a round trip to the database, so
+ * this cache keeps the column names and column types of each table after the
+ * first lookup. An entry will be reloaded after it lives longer than the
+ * time-to-live, or after it is invalidated explicitly (for example, the
+ * schema of the table has been altered).
+ *
+ * <p>The metadata of each table is cached as a {@code RecordSchema}, which is
+ * shared by all the {@code DataRecord}s loaded from the table.
+ *
+ * <p>The cache is bound to a single connection, so it should be invalidated
+ * whenever the connection is rebuilt.
+ *
+ * @author  Wuyi Chen
+ * @date    12/03/2018
+ * @version 1.2
+ * @since   1.2
+ */
+class ColumnMetadataCache {
+	/** The default time-to-live of a cached entry: 5 minutes. */
+	static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	/**
+	 * The loader to read the column metadata of a table from the database
+	 * when the table is not cached or the cached entry is expired.
+	 */
+	interface Loader {
+		Map<String, Class<?>> load(String tableName) throws SQLException;
+	}
+
+	private final Map<String, Entry> entryMap = new ConcurrentHashMap<>();
+	private volatile long            ttlNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TTL_MILLIS);
+
+	/**
+	 * Get the column metadata of a table.
+	 *
+	 * <p>If the table is not cached or the cached entry is expired, the
+	 * loader will be called to read the metadata from the database and the
+	 * result will be cached.
+	 *
+	 * @param  tableName
+	 *         The name of the table.
+	 *
+	 * @param  loader
+	 *         The loader to read the metadata from the database.
+	 *
+	 * @return  The unmodifiable map of the column name and the type of the
+	 *          column.
+	 *
+	 * @throws  SQLException
+	 *          If the loader failed to read the metadata from the database.
+	 *
+	 * @since   1.2
+	 */
+	Map<String, Class<?>> get(final String tableName, final Loader loader) throws SQLException {
+		return getSchema(tableName, loader).getTypeMap();
+	}
+
+	/**
+	 * Get the schema of a table.
+	 *
+	 * <p>If the table is not cached or the cached entry is expired, the
+	 * loader will be called to read the metadata from the database and the
+	 * schema built from the result will be cached.
+	 *
+	 * @param  tableName
+	 *         The name of the table.
+	 *
+	 * @param  loader
+	 *         The loader to read the metadata from the database.
+	 *
+	 * @return  The schema of the table.
+	 *
+	 * @throws  SQLException
+	 *          If the loader failed to read the metadata from the database.
+	 *
+	 * @since   1.2
+	 */
+	RecordSchema getSchema(final String tableName, final Loader loader) throws SQLException {
+		Preconditions.checkNotNull(tableName);
+		Preconditions.checkNotNull(loader);
+
+		final long  now   = System.nanoTime();
+		final Entry entry = entryMap.get(tableName);
+		if (entry != null && now - entry.loadedTime < ttlNanos) {
+			return entry.schema;
+		}
+
+		final Entry newEntry = new Entry(RecordSchema.of(loader.load(tableName)), now);
+		entryMap.put(tableName, newEntry);
+		return newEntry.schema;
+	}
+
+	/**
+	 * Remove the cached metadata of a table.
+	 *
+	 * @param  tableName
+	 *         The name of the table.
+	 *
+	 * @since   1.2
+	 */
+	void invalidate(final String tableName) {
+		Preconditions.checkNotNull(tableName);
+		entryMap.remove(tableName);
+	}
+
+	/**
+	 * Remove the cached metadata of all the tables.
+	 *
+	 * @since   1.2
+	 */
+	void invalidateAll() {
+		entryMap.clear();
+	}
+
+	/**
+	 * Set the time-to-live of the cached entries.
+	 *
+	 * <p>The time-to-live with 0 will disable this cache, every lookup will
+	 * read the metadata from the database.
+	 *
+	 * @param  ttl
+	 *         The time-to-live, can not be negative.
+	 *
+	 * @param  unit
+	 *         The time unit of the time-to-live.
+	 *
+	 * @since   1.2
+	 */
+	void setTtl(final long ttl, final TimeUnit unit) {
+		Preconditions.checkArgument(ttl >= 0, "ttl is negative");
+		Preconditions.checkNotNull(unit);
+		ttlNanos = unit.toNanos(ttl);
+	}
+
+	/**
+	 * The cached metadata of one table with the time it was loaded.
+	 */
+	private static final class Entry {
+		private final RecordSchema schema;
+		private final long         loadedTime;
+
+		private Entry(final RecordSchema schema, final long loadedTime) {
+			this.schema     = schema;
+			this.loadedTime = loadedTime;
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Striped pool of the {@code DataRecord}s waiting to be synchronized with
+ * the database.
+ *
+ * <p>The pool is split into stripes, each stripe is an append buffer guarded
+ * by its own lock. A thread always appends to the stripe chosen by its
+ * thread id, so the threads adding records concurrently rarely contend on
+ * the same lock, and the records added by one thread keep their order.
+ *
+ * <p>The operations on the whole pool, like {@code snapshot()} and
+ * {@code removeIf()}, lock all the stripes in order, so they see a
+ * consistent state of the pool.
+ *
+ * @author  Wuyi Chen
+ * @date    12/27/2018
+ * @version 1.2
+ * @since   1.2
+ */
+final class CommitPool {
+	private final Stripe[] stripes;
+	private final int      mask;
+
+	/**
+	 * Construct a {@code CommitPool} with a stripe per available processor.
+	 *
+	 * @since   1.2
+	 */
+	CommitPool() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construct a {@code CommitPool}.
+	 *
+	 * @param  stripeCount
+	 *         The minimum number of the stripes, must be positive. It is
+	 *         rounded up to a power of two.
+	 *
+	 * @since   1.2
+	 */
+	CommitPool(final int stripeCount) {
+		Preconditions.checkArgument(stripeCount > 0, "stripeCount is not positive");
+
+		final int size = Integer.highestOneBit(stripeCount) == stripeCount ? stripeCount : Integer.highestOneBit(stripeCount) << 1;
+		this.stripes = new Stripe[size];
+		this.mask    = size - 1;
+		for (int i = 0; i < size; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * Add a {@code DataRecord} to the stripe of the current thread.
+	 *
+	 * @param  dataRecord
+	 *         The {@code DataRecord} to be added.
+	 *
+	 * @since   1.2
+	 */
+	void add(final DataRecord dataRecord) {
+		final Stripe stripe = currentStripe();
+		stripe.lock.lock();
+		try {
+			stripe.list.add(dataRecord);
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * Add the {@code DataRecord}s to the stripe of the current thread.
+	 *
+	 * @param  dataRecords
+	 *         The {@code DataRecord}s to be added.
+	 *
+	 * @since   1.2
+	 */
+	void addAll(final Collection<DataRecord> dataRecords) {
+		final Stripe stripe = currentStripe();
+		stripe.lock.lock();
+		try {
+			stripe.list.addAll(dataRecords);
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * Copy all the {@code DataRecord}s in this pool.
+	 *
+	 * @return  The new list of the {@code DataRecord}s, the records of each
+	 *          stripe are in the order they were added.
+	 *
+	 * @since   1.2
+	 */
+	List<DataRecord> snapshot() {
+		lockAll();
+		try {
+			final List<DataRecord> dataRecordList = new ArrayList<>(sizeLocked());
+			for (Stripe stripe : stripes) {
+				dataRecordList.addAll(stripe.list);
+			}
+			return dataRecordList;
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Remove the {@code DataRecord}s matching a condition.
+	 *
+	 * @param  filter
+	 *         The condition of the records to be removed.
+	 *
+	 * @since   1.2
+	 */
+	void removeIf(final Predicate<DataRecord> filter) {
+		lockAll();
+		try {
+			for (Stripe stripe : stripes) {
+				stripe.list.removeIf(filter);
+			}
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Remove all the {@code DataRecord}s.
+	 *
+	 * @since   1.2
+	 */
+	void clear() {
+		lockAll();
+		try {
+			for (Stripe stripe : stripes) {
+				stripe.list = new ArrayList<>();
+			}
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Get the number of the {@code DataRecord}s in this pool.
+	 *
+	 * @return  The number of the records.
+	 *
+	 * @since   1.2
+	 */
+	int size() {
+		lockAll();
+		try {
+			return sizeLocked();
+		} finally {
+			unlockAll();
+		}
+	}
+
+	int getStripeCount() {
+		return stripes.length;
+	}
+
+	private int sizeLocked() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			size += stripe.list.size();
+		}
+		return size;
+	}
+
+	private Stripe currentStripe() {
+		final long id = Thread.currentThread().getId();
+		return stripes[(int) (id ^ (id >>> 16)) & mask];
+	}
+
+	private void lockAll() {
+		for (Stripe stripe : stripes) {
+			stripe.lock.lock();
+		}
+	}
+
+	private void unlockAll() {
+		for (int i = stripes.length - 1; i >= 0; i--) {
+			stripes[i].lock.unlock();
+		}
+	}
+
+	/**
+	 * An append buffer with its own lock.
+	 */
+	private static final class Stripe {
+		private final ReentrantLock   lock = new ReentrantLock();
+		private ArrayList<DataRecord> list = new ArrayList<>();
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+/**
+ * The result of synchronizing the commit pool with the database.
+ * 
+ * <p>This result tells how many {@code DataRecord}s in the commit pool were 
+ * inserted, updated, or skipped because they had not been modified since 
+ * they were loaded from or synchronized with the database.
+ * 
+ * @author  Wuyi Chen
+ * @date    12/13/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public final class CommitResult {
+	private final int insertedCount;
+	private final int updatedCount;
+	private final int skippedCount;
+	
+	/**
+	 * Construct a {@code CommitResult}.
+	 * 
+	 * @param  insertedCount
+	 *         The number of the inserted records.
+	 *         
+	 * @param  updatedCount
+	 *         The number of the updated records.
+	 *         
+	 * @param  skippedCount
+	 *         The number of the skipped records.
+	 *         
+	 * @since   1.2
+	 */
+	CommitResult(final int insertedCount, final int updatedCount, final int skippedCount) {
+		this.insertedCount = insertedCount;
+		this.updatedCount  = updatedCount;
+		this.skippedCount  = skippedCount;
+	}
+	
+	public int getInsertedCount() { return insertedCount;                }
+	public int getUpdatedCount()  { return updatedCount;                 }
+	public int getSkippedCount()  { return skippedCount;                 }
+	public int getWrittenCount()  { return insertedCount + updatedCount; }
+	
+	@Override
+	public String toString() {
+		return "CommitResult [inserted=" + insertedCount + ", updated=" + updatedCount + ", skipped=" + skippedCount + "]";
+	}
+}
@@ -0,0 +1,595 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import personal.wuyi.client.database.DbType;
+import personal.wuyi.client.database.GenericDbConfig;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Bounded pool of the connections to one database.
+ *
+ * <p>Opening a connection needs a TCP handshake and an authentication round
+ * trip, so the connections are kept open and reused by the sessions. A
+ * session opened by {@code openSession()} borrows a connection from this
+ * pool, and returns the connection when the session is closed.
+ *
+ * <p>The pool manages the connections by these rules:
+ * <ul>
+ * 	<li>There are at most {@code maxSize} connections, a borrower waits up
+ *      to the borrow timeout when all of them are in use.
+ * 	<li>An idle connection is validated by {@code Connection.isValid()}
+ *      before it is borrowed, an invalid connection is closed and replaced.
+ * 	<li>A connection is closed after it lives longer than the maximum
+ *      lifetime, which should be shorter than the timeouts of the server
+ *      (like the {@code wait_timeout} of MySQL).
+ * 	<li>An idle connection is closed after it is idle longer than the idle
+ *      timeout, but the pool keeps at least {@code minSize} connections.
+ * </ul>
+ *
+ * <p>The expired and idle connections are evicted by a background daemon
+ * thread, which runs every {@code HOUSEKEEPING_PERIOD_MILLIS}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/21/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public final class ConnectionPool implements AutoCloseable {
+	/** The default time to wait for a connection: 30 seconds. */
+	static final long DEFAULT_BORROW_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+	/** The default time a connection can be idle: 10 minutes. */
+	static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+	/** The default maximum lifetime of a connection: 30 minutes. */
+	static final long DEFAULT_MAX_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+	/** The time to wait for the validation of a connection in seconds. */
+	static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	/** The period of evicting the expired and idle connections: 30 seconds. */
+	static final long HOUSEKEEPING_PERIOD_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+	/**
+	 * The factory to open a new connection to the database.
+	 */
+	interface Factory {
+		Connection connect() throws SQLException;
+	}
+
+	private final DbType                            type;
+	private final Factory                           factory;
+	private final int                               minSize;
+	private final int                               maxSize;
+	private final ColumnMetadataCache               metadataCache;
+	private final Deque<PooledConnection>           idleQueue   = new ArrayDeque<>();
+	private final Map<Connection, PooledConnection> borrowedMap = new IdentityHashMap<>();
+	private final ScheduledExecutorService          housekeeper;
+	private int                                     pendingCount;
+	private boolean                                 closed;
+	private long                                    borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BORROW_TIMEOUT_MILLIS);
+	private long                                    idleTimeoutNanos   = TimeUnit.MILLISECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_MILLIS);
+	private long                                    maxLifetimeNanos   = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_LIFETIME_MILLIS);
+
+	/**
+	 * Construct a {@code ConnectionPool}.
+	 *
+	 * <p>The driver of the database is loaded and {@code minSize}
+	 * connections are opened immediately.
+	 *
+	 * @param  type
+	 *         The database type.
+	 *
+	 * @param  config
+	 *         The generic database configuration.
+	 *
+	 * @param  minSize
+	 *         The minimum number of the connections, can not be negative.
+	 *
+	 * @param  maxSize
+	 *         The maximum number of the connections, can not be less than
+	 *         {@code minSize} and must be positive.
+	 *
+	 * @throws  SQLException
+	 *          If there is any error when connecting to database.
+	 *
+	 * @throws  ClassNotFoundException
+	 *          If the driver class is not found in the class path.
+	 *
+	 * @since   1.2
+	 */
+	public ConnectionPool(final DbType type, final GenericDbConfig config, final int minSize, final int maxSize) throws SQLException, ClassNotFoundException {
+		this(type, config, new ColumnMetadataCache(), minSize, maxSize);
+	}
+
+	/**
+	 * Construct a {@code ConnectionPool} sharing the column metadata cache
+	 * with other pools on the same database.
+	 *
+	 * @param  type
+	 *         The database type.
+	 *
+	 * @param  config
+	 *         The generic database configuration.
+	 *
+	 * @param  metadataCache
+	 *         The cache of the column metadata of the tables in the database.
+	 *
+	 * @param  minSize
+	 *         The minimum number of the connections, can not be negative.
+	 *
+	 * @param  maxSize
+	 *         The maximum number of the connections, can not be less than
+	 *         {@code minSize} and must be positive.
+	 *
+	 * @throws  SQLException
+	 *          If there is any error when connecting to database.
+	 *
+	 * @throws  ClassNotFoundException
+	 *          If the driver class is not found in the class path.
+	 *
+	 * @since   1.2
+	 */
+	ConnectionPool(final DbType type, final GenericDbConfig config, final ColumnMetadataCache metadataCache, final int minSize, final int maxSize) throws SQLException, ClassNotFoundException {
+		this(type, createFactory(type, config), metadataCache, minSize, maxSize, true);
+	}
+
+	/**
+	 * Construct a {@code ConnectionPool} with a connection factory.
+	 *
+	 * @param  type
+	 *         The database type.
+	 *
+	 * @param  factory
+	 *         The factory to open a new connection.
+	 *
+	 * @param  metadataCache
+	 *         The cache of the column metadata of the tables in the database.
+	 *
+	 * @param  minSize
+	 *         The minimum number of the connections, can not be negative.
+	 *
+	 * @param  maxSize
+	 *         The maximum number of the connections, can not be less than
+	 *         {@code minSize} and must be positive.
+	 *
+	 * @param  housekeeping
+	 *         {@code true} if the idle and expired connections should be
+	 *         evicted by a background thread;
+	 *         {@code false} if they are only evicted by
+	 *         {@code evictIdleConnections()}.
+	 *
+	 * @throws  SQLException
+	 *          If there is any error when opening the initial connections.
+	 *
+	 * @since   1.2
+	 */
+	ConnectionPool(final DbType type, final Factory factory, final ColumnMetadataCache metadataCache, final int minSize, final int maxSize, final boolean housekeeping) throws SQLException {
+		Preconditions.checkArgument(minSize >= 0, "minSize is negative");
+		Preconditions.checkArgument(maxSize > 0, "maxSize is not positive");
+		Preconditions.checkArgument(minSize <= maxSize, "minSize is greater than maxSize");
+
+		this.type          = Preconditions.checkNotNull(type);
+		this.factory       = Preconditions.checkNotNull(factory);
+		this.metadataCache = Preconditions.checkNotNull(metadataCache);
+		this.minSize       = minSize;
+		this.maxSize       = maxSize;
+
+		try {
+			fillToMinSize();
+		} catch (SQLException e) {
+			close();
+			throw e;
+		}
+
+		if (housekeeping) {
+			this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "datarecord-connection-pool");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.housekeeper.scheduleWithFixedDelay(() -> {
+				try {
+					evictIdleConnections();
+				} catch (SQLException e) {
+					// the pool will try to open the connections again in the next round
+				}
+			}, HOUSEKEEPING_PERIOD_MILLIS, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+		} else {
+			this.housekeeper = null;
+		}
+	}
+
+	private static Factory createFactory(final DbType type, final GenericDbConfig config) throws ClassNotFoundException {
+		Preconditions.checkNotNull(type);
+		Preconditions.checkNotNull(config);
+
+		Class.forName(type.getDriverClass());
+		final String url = type.buildUrl(config);
+		return () -> DriverManager.getConnection(url, config.getUsername(), config.getPassword());
+	}
+
+	public DbType getDbType()  { return type;    }
+	public int    getMinSize() { return minSize; }
+	public int    getMaxSize() { return maxSize; }
+
+	/**
+	 * Open a new session on a connection borrowed from this pool.
+	 *
+	 * <p>The connection will be returned to this pool when the session is
+	 * closed. All the sessions of this pool share one cache of the column
+	 * metadata.
+	 *
+	 * @return  The new session.
+	 *
+	 * @throws  SQLException
+	 *          If there is no connection available before the borrow
+	 *          timeout, or there is any error when connecting to database.
+	 *
+	 * @since   1.2
+	 */
+	public DataRecordSession openSession() throws SQLException {
+		return new DataRecordSession(type, borrow(), metadataCache, this);
+	}
+
+	/**
+	 * Open a new session only if a connection is available without waiting.
+	 *
+	 * @return  The new session, or {@code null} if all the connections are
+	 *          in use.
+	 *
+	 * @throws  SQLException
+	 *          If there is any error when connecting to database.
+	 *
+	 * @since   1.2
+	 */
+	DataRecordSession tryOpenSession() throws SQLException {
+		final Connection connect = borrow(0);
+		return connect == null ? null : new DataRecordSession(type, connect, metadataCache, this);
+	}
+
+	/**
+	 * Borrow a connection from this pool.
+	 *
+	 * <p>An idle connection is validated before it is returned, and a new
+	 * connection is opened if there is no valid idle connection and the
+	 * pool is not full. Otherwise the caller waits until a connection is
+	 * returned or the borrow timeout elapses.
+	 *
+	 * @return  The connection, which must be returned by {@code release()}.
+	 *
+	 * @throws  SQLException
+	 *          If there is no connection available before the borrow
+	 *          timeout, or there is any error when connecting to database.
+	 *
+	 * @since   1.2
+	 */
+	Connection borrow() throws SQLException {
+		final Connection connect = borrow(borrowTimeoutNanos);
+		if (connect == null) {
+			throw new SQLException("timed out waiting for a connection, all the " + maxSize + " connections are in use");
+		}
+		return connect;
+	}
+
+	private Connection borrow(final long timeoutNanos) throws SQLException {
+		final long deadline = System.nanoTime() + timeoutNanos;
+		while (true) {
+			PooledConnection pooled = null;
+			synchronized (this) {
+				Preconditions.checkState(!closed, "the connection pool is closed");
+
+				if (!idleQueue.isEmpty()) {
+					pooled = idleQueue.pollFirst();
+					pendingCount++;
+				} else if (getTotalCount() < maxSize) {
+					pendingCount++;
+				} else {
+					final long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						return null;
+					}
+					try {
+						TimeUnit.NANOSECONDS.timedWait(this, remaining);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new SQLException("interrupted while waiting for a connection", e);
+					}
+					continue;
+				}
+			}
+
+			if (pooled != null && (isExpired(pooled, System.nanoTime()) || !isValid(pooled.connection))) {
+				closeQuietly(pooled.connection);
+				pooled = null;
+				synchronized (this) {
+					pendingCount--;
+					notifyAll();
+				}
+				continue;
+			}
+
+			try {
+				if (pooled == null) {
+					pooled = new PooledConnection(factory.connect(), System.nanoTime());
+				}
+			} finally {
+				synchronized (this) {
+					pendingCount--;
+					if (pooled != null) {
+						borrowedMap.put(pooled.connection, pooled);
+					}
+					notifyAll();
+				}
+			}
+			return pooled.connection;
+		}
+	}
+
+	/**
+	 * Return a borrowed connection to this pool.
+	 *
+	 * <p>The connection will be closed if it is closed by the borrower, it
+	 * is expired or this pool is closed. A connection which is not in
+	 * auto-commit mode is rolled back and reset to auto-commit mode, so the
+	 * next borrower always gets a clean connection.
+	 *
+	 * @param  connect
+	 *         The connection borrowed from this pool.
+	 *
+	 * @since   1.2
+	 */
+	void release(final Connection connect) {
+		final PooledConnection pooled;
+		synchronized (this) {
+			pooled = borrowedMap.remove(connect);
+			Preconditions.checkArgument(pooled != null, "the connection is not borrowed from this pool");
+		}
+
+		boolean reusable = !isExpired(pooled, System.nanoTime());
+		if (reusable) {
+			try {
+				if (connect.isClosed()) {
+					reusable = false;
+				} else if (!connect.getAutoCommit()) {
+					connect.rollback();
+					connect.setAutoCommit(true);
+				}
+			} catch (SQLException e) {
+				reusable = false;
+			}
+		}
+
+		synchronized (this) {
+			if (reusable && !closed) {
+				pooled.lastUsedTime = System.nanoTime();
+				idleQueue.addFirst(pooled);
+			} else {
+				reusable = false;
+			}
+			notifyAll();
+		}
+		if (!reusable) {
+			closeQuietly(connect);
+		}
+	}
+
+	/**
+	 * Close the idle connections which are expired or idle longer than the
+	 * idle timeout, and open new connections up to the minimum size.
+	 *
+	 * @throws  SQLException
+	 *          If there is any error when opening the new connections.
+	 *
+	 * @since   1.2
+	 */
+	void evictIdleConnections() throws SQLException {
+		final List<Connection> evictedList = new ArrayList<>();
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+
+			final long now       = System.nanoTime();
+			int        keepCount = getTotalCount();
+			for (Iterator<PooledConnection> iter = idleQueue.descendingIterator(); iter.hasNext();) {
+				final PooledConnection pooled = iter.next();
+				if (isExpired(pooled, now) || (keepCount > minSize && now - pooled.lastUsedTime >= idleTimeoutNanos)) {
+					iter.remove();
+					evictedList.add(pooled.connection);
+					keepCount--;
+				}
+			}
+		}
+
+		for (Connection connect : evictedList) {
+			closeQuietly(connect);
+		}
+		fillToMinSize();
+	}
+
+	private void fillToMinSize() throws SQLException {
+		while (true) {
+			synchronized (this) {
+				if (closed || getTotalCount() >= minSize) {
+					return;
+				}
+				pendingCount++;
+			}
+
+			PooledConnection pooled = null;
+			try {
+				pooled = new PooledConnection(factory.connect(), System.nanoTime());
+			} finally {
+				synchronized (this) {
+					pendingCount--;
+					if (pooled != null) {
+						idleQueue.addLast(pooled);
+					}
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Close this pool and all the idle connections.
+	 *
+	 * <p>The borrowed connections will be closed when they are returned.
+	 *
+	 * @since   1.2
+	 */
+	@Override
+	public void close() {
+		final List<PooledConnection> idleList;
+		synchronized (this) {
+			closed   = true;
+			idleList = new ArrayList<>(idleQueue);
+			idleQueue.clear();
+			notifyAll();
+		}
+
+		if (housekeeper != null) {
+			housekeeper.shutdownNow();
+		}
+		for (PooledConnection pooled : idleList) {
+			closeQuietly(pooled.connection);
+		}
+	}
+
+	/**
+	 * Set the time to wait for a connection when all the connections are in
+	 * use.
+	 *
+	 * @param  timeout
+	 *         The borrow timeout, can not be negative.
+	 *
+	 * @param  unit
+	 *         The time unit of the timeout.
+	 *
+	 * @since   1.2
+	 */
+	public synchronized void setBorrowTimeout(final long timeout, final TimeUnit unit) {
+		Preconditions.checkArgument(timeout >= 0, "timeout is negative");
+		borrowTimeoutNanos = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Set the time a connection can be idle before it is closed.
+	 *
+	 * @param  timeout
+	 *         The idle timeout, can not be negative.
+	 *
+	 * @param  unit
+	 *         The time unit of the timeout.
+	 *
+	 * @since   1.2
+	 */
+	public synchronized void setIdleTimeout(final long timeout, final TimeUnit unit) {
+		Preconditions.checkArgument(timeout >= 0, "timeout is negative");
+		idleTimeoutNanos = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Set the maximum lifetime of a connection.
+	 *
+	 * <p>The maximum lifetime should be shorter than the timeouts of the
+	 * server, so a connection is always closed by the pool before it is
+	 * disconnected by the server.
+	 *
+	 * @param  lifetime
+	 *         The maximum lifetime, must be positive.
+	 *
+	 * @param  unit
+	 *         The time unit of the lifetime.
+	 *
+	 * @since   1.2
+	 */
+	public synchronized void setMaxLifetime(final long lifetime, final TimeUnit unit) {
+		Preconditions.checkArgument(lifetime > 0, "lifetime is not positive");
+		maxLifetimeNanos = unit.toNanos(lifetime);
+	}
+
+	/**
+	 * Get the number of the connections opened by this pool, including the
+	 * idle connections, the borrowed connections and the connections being
+	 * opened.
+	 *
+	 * @return  The number of the connections.
+	 *
+	 * @since   1.2
+	 */
+	public synchronized int getTotalCount() {
+		return idleQueue.size() + borrowedMap.size() + pendingCount;
+	}
+
+	public synchronized int     getIdleCount()     { return idleQueue.size();   }
+	public synchronized int     getBorrowedCount() { return borrowedMap.size(); }
+	public synchronized boolean isClosed()         { return closed;             }
+
+	private synchronized boolean isExpired(final PooledConnection pooled, final long now) {
+		return now - pooled.createdTime >= maxLifetimeNanos;
+	}
+
+	private static boolean isValid(final Connection connect) {
+		try {
+			return connect.isValid(VALIDATION_TIMEOUT_SECONDS);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private static void closeQuietly(final Connection connect) {
+		try {
+			connect.close();
+		} catch (SQLException e) {
+			// the connection is discarded anyway
+		}
+	}
+
+	/**
+	 * A connection in the pool with the time it was opened and the time it
+	 * was returned last time.
+	 */
+	private static final class PooledConnection {
+		private final Connection connection;
+		private final long       createdTime;
+		private long             lastUsedTime;
+
+		private PooledConnection(final Connection connection, final long createdTime) {
+			this.connection   = connection;
+			this.createdTime  = createdTime;
+			this.lastUsedTime = createdTime;
+		}
+	}
+}
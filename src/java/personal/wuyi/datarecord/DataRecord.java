@@ -18,10 +18,20 @@ package personal.wuyi.datarecord;
 
 import com.google.common.base.Preconditions;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.LinkedHashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Generic data type for dynamic number of fields and different type of fields.
@@ -31,6 +41,23 @@ import java.util.NoSuchElementException;
  * {@code DataRecordManager} also provides convenient and transaction-based 
  * APIs for synchronizing between the {@code DataRecord} and the database. 
  * 
+ * <p>The fields of a {@code DataRecord} are described by a shared, immutable 
+ * schema (the field names, the field types and the ordinal index of each 
+ * field), and the values are stored by the ordinal index. The 
+ * {@code DataRecord}s loaded from the same table share one schema, so a large 
+ * result set doesn't repeat the field names and types per record.
+ * 
+ * <p>The values of the {@code Integer}, {@code Long} and {@code Double} 
+ * fields are stored unboxed, and can be read without allocation by the 
+ * primitive accessors, like {@code getLong()} and {@code getLongAt()}. The 
+ * field index used by the {@code ...At()} accessors can be resolved once by 
+ * {@code getFieldIndex()} and reused for all the {@code DataRecord}s loaded 
+ * from the same table.
+ * 
+ * <p>The values of a {@code DataRecord} created by a {@code RecordArena} are 
+ * stored off-heap in the arena, and its fields are fixed by the schema of 
+ * the table.
+ * 
  * <p>Object serialization is the process of saving an object's state to a 
  * sequence of bytes. Normal objects exist only as long as the Java virtual 
  * machine remains running. With object serialization, the objects we create 
@@ -52,21 +79,62 @@ public class DataRecord implements Serializable {
 	 */
 	private String dataType;
 	
+	/** The initial number of value slots when the first field is set. */
+	private static final int INITIAL_CAPACITY = 8;
+	
+	/** The slots for a {@code DataRecord} without any field of a kind. */
+	private static final long[]   EMPTY_PRIMITIVES = new long[0];
+	private static final Object[] EMPTY_REFERENCES = new Object[0];
+	
+	/**
+	 * The schema describes the name and the type of each field.
+	 * 
+	 * <p>The schema is immutable and may be shared by other 
+	 * {@code DataRecord}s, setting a new field will move this 
+	 * {@code DataRecord} to a wider schema.
+	 */
+	private transient RecordSchema schema;
+	
 	/**
-	 * The hash map to store the value of each field.
+	 * The array to store the values of the {@code Integer}, {@code Long} and 
+	 * {@code Double} fields by the slot in the schema.
 	 * 
-	 * <p>All the values will be converted to Object to store into this 
-	 * collection.
+	 * <p>The integer values are stored as {@code long}, the double values are 
+	 * stored as the raw bits of the {@code double}. A {@code null} value is 
+	 * stored as 0 and marked in {@code nonNullBits}. The length of the array 
+	 * may be larger than the number of the slots.
+	 */
+	private transient long[] primitiveSlots;
+	
+	/**
+	 * The array to store the values of the other fields by the slot in the 
+	 * schema.
 	 * 
-	 * <p>The key of the pairs in this value hash map should be totally 
-	 * matched with the type hash map.
+	 * <p>The length of the array may be larger than the number of the slots.
 	 */
-	private transient Map<String, Object> valueMap;
+	private transient Object[] referenceSlots;
 	
 	/**
-	 * The hash map to store the type of each field.
+	 * The bitmap of the primitive fields by the ordinal index, a bit is set 
+	 * if the field has a non-null value.
 	 */
-	private transient Map<String, Class<?>> typeMap;
+	private transient long[] nonNullBits;
+	
+	/**
+	 * The off-heap arena stores the values instead of the slots, 
+	 * {@code null} if the values are stored in the slots.
+	 */
+	private transient RecordArena arena;
+	
+	/** The index of this {@code DataRecord} in the arena. */
+	private transient int arenaIndex;
+	
+	/**
+	 * The ordinal indexes of the fields which have been set since this 
+	 * {@code DataRecord} was loaded from the database or synchronized with 
+	 * the database, {@code null} if there is no such field.
+	 */
+	private transient BitSet dirtyFields;
 	
 	/**
 	 * The flag indicates this {@code DataRecord} has been modified in memory 
@@ -80,6 +148,13 @@ public class DataRecord implements Serializable {
 	 */
 	private boolean isNewRecordForDatabase;
 	
+	/**
+	 * The flag indicates this {@code DataRecord} has been inserted into the 
+	 * database, but its {@code RecordId} was not reported back, so it can't 
+	 * be written to the database again.
+	 */
+	private boolean isInsertedWithoutRecordId;
+	
 	/**
 	 * The identifier to specify two different {@code DataRecord}.
 	 */
@@ -98,15 +173,18 @@ public class DataRecord implements Serializable {
 		Preconditions.checkNotNull(dataType);
 		
 		this.dataType          = dataType;
-		valueMap               = new LinkedHashMap<>();
-		typeMap                = new LinkedHashMap<>();
+		schema                 = RecordSchema.EMPTY;
 		isModified             = true;
 		isNewRecordForDatabase = true;
+		allocateSlots();
 	}
 	
 	/**
 	 * Construct a {@code DataRecord}.
 	 * 
+	 * <p>A {@code DataRecord} which is not new to the database is loaded from 
+	 * the database, so it is not modified until one of its fields is set.
+	 * 
 	 * @param  dataType
 	 *         The table name in the database matches to this 
 	 *         {@code DataRecord}.
@@ -121,18 +199,83 @@ public class DataRecord implements Serializable {
 		Preconditions.checkNotNull(dataType);
 		
 		this.dataType               = dataType;
-		valueMap                    = new LinkedHashMap<>();
-		typeMap                     = new LinkedHashMap<>();
-		isModified                  = true;
+		schema                      = RecordSchema.EMPTY;
+		isModified                  = isNewRecordForDatabase;
 		this.isNewRecordForDatabase = isNewRecordForDatabase;
+		allocateSlots();
 	}
 	
-	protected boolean isModified()                                                  { return isModified;                                    }
-	protected void    setModified(final boolean isModified)                         { this.isModified = isModified;                         }
-	protected boolean isNewRecordForDatabase()                                      { return isNewRecordForDatabase;                        }
-	protected void    setNewRecordForDatabase(final boolean isNewRecordForDatabase) { this.isNewRecordForDatabase = isNewRecordForDatabase; }
-	protected long    getRecordId()                                                 { return recordId;                                      }
-	protected void    setRecordId(final long recordId)                              { this.recordId = recordId;                             }
+	/**
+	 * Construct a {@code DataRecord} with all the fields of a schema.
+	 * 
+	 * <p>The values of all the fields are {@code null} initially, and none of 
+	 * the fields is dirty.
+	 * 
+	 * @param  dataType
+	 *         The table name in the database matches to this 
+	 *         {@code DataRecord}.
+	 *         
+	 * @param  schema
+	 *         The schema shared by this {@code DataRecord}.
+	 *         
+	 * @param  isNewRecordForDatabase
+	 *         The flag to indicate this {@code DataRecord} is new to the 
+	 *         database.
+	 *         
+	 * @since   1.2
+	 */
+	DataRecord(final String dataType, final RecordSchema schema, final boolean isNewRecordForDatabase) {
+		Preconditions.checkNotNull(dataType);
+		Preconditions.checkNotNull(schema);
+		
+		this.dataType               = dataType;
+		this.schema                 = schema;
+		isModified                  = isNewRecordForDatabase;
+		this.isNewRecordForDatabase = isNewRecordForDatabase;
+		allocateSlots();
+	}
+	
+	/**
+	 * Construct a {@code DataRecord} whose values are stored in an off-heap 
+	 * arena.
+	 * 
+	 * <p>The fields are fixed by the schema of the arena, and the values of 
+	 * all the fields are {@code null} initially.
+	 * 
+	 * @param  arena
+	 *         The arena stores the values.
+	 *         
+	 * @param  arenaIndex
+	 *         The index of this {@code DataRecord} in the arena.
+	 *         
+	 * @param  isNewRecordForDatabase
+	 *         The flag to indicate this {@code DataRecord} is new to the 
+	 *         database.
+	 *         
+	 * @since   1.2
+	 */
+	DataRecord(final RecordArena arena, final int arenaIndex, final boolean isNewRecordForDatabase) {
+		Preconditions.checkNotNull(arena);
+		
+		this.dataType               = arena.getDataTypeName();
+		this.schema                 = arena.getSchema();
+		this.arena                  = arena;
+		this.arenaIndex             = arenaIndex;
+		primitiveSlots              = EMPTY_PRIMITIVES;
+		referenceSlots              = EMPTY_REFERENCES;
+		nonNullBits                 = EMPTY_PRIMITIVES;
+		isModified                  = isNewRecordForDatabase;
+		this.isNewRecordForDatabase = isNewRecordForDatabase;
+	}
+	
+	protected boolean isModified()                                                        { return isModified;                                          }
+	protected void    setModified(final boolean isModified)                               { this.isModified = isModified;                               }
+	protected boolean isNewRecordForDatabase()                                            { return isNewRecordForDatabase;                              }
+	protected void    setNewRecordForDatabase(final boolean isNewRecordForDatabase)       { this.isNewRecordForDatabase = isNewRecordForDatabase;       }
+	protected boolean isInsertedWithoutRecordId()                                         { return isInsertedWithoutRecordId;                           }
+	protected void    setInsertedWithoutRecordId(final boolean isInsertedWithoutRecordId) { this.isInsertedWithoutRecordId = isInsertedWithoutRecordId; }
+	protected long    getRecordId()                                                       { return recordId;                                            }
+	protected void    setRecordId(final long recordId)                                    { this.recordId = recordId;                                   }
 
 	/**
 	 * Set a new field as {@code String} value.
@@ -150,12 +293,8 @@ public class DataRecord implements Serializable {
 	 */
 	public void setDataField(final String fieldName, final String value) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
-		Preconditions.checkNotNull(typeMap);
 		
-		valueMap.put(fieldName, value);
-		typeMap.put(fieldName, String.class);
-		setModified(true);
+		setDirtyField(putField(fieldName, String.class, value));
 	}
 	
 	/**
@@ -174,12 +313,8 @@ public class DataRecord implements Serializable {
 	 */
 	public void setDataField(final String fieldName, final Integer value) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
-		Preconditions.checkNotNull(typeMap);
 		
-		valueMap.put(fieldName, value);
-		typeMap.put(fieldName, Integer.class);
-		setModified(true);
+		setDirtyField(putField(fieldName, Integer.class, value));
 	}
 	
 	/**
@@ -198,12 +333,8 @@ public class DataRecord implements Serializable {
 	 */
 	public void setDataField(final String fieldName, final Long value) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
-		Preconditions.checkNotNull(typeMap);
 		
-		valueMap.put(fieldName, value);
-		typeMap.put(fieldName, Long.class);
-		setModified(true);
+		setDirtyField(putField(fieldName, Long.class, value));
 	}
 	
 	/**
@@ -222,12 +353,8 @@ public class DataRecord implements Serializable {
 	 */
 	public void setDataField(final String fieldName, final Double value) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
-		Preconditions.checkNotNull(typeMap);
 		
-		valueMap.put(fieldName, value);
-		typeMap.put(fieldName, Double.class);
-		setModified(true);
+		setDirtyField(putField(fieldName, Double.class, value));
 	}
 	
 	/**
@@ -245,10 +372,8 @@ public class DataRecord implements Serializable {
 	 */
 	public String getStringVal(final String fieldName) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
 		
-		checkField(fieldName, String.class);
-		return (String) valueMap.get(fieldName);
+		return (String) referenceAt(indexOfField(fieldName, String.class));
 	}
 	
 	/**
@@ -266,10 +391,8 @@ public class DataRecord implements Serializable {
 	 */
 	public Integer getIntegerVal(final String fieldName) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
 		
-		checkField(fieldName, Integer.class);
-		return (Integer) valueMap.get(fieldName);
+		return (Integer) valueAt(indexOfField(fieldName, Integer.class));
 	}
 	
 	/**
@@ -287,10 +410,8 @@ public class DataRecord implements Serializable {
 	 */
 	public Long getLongVal(final String fieldName) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
 		
-		checkField(fieldName, Long.class);
-		return (Long) valueMap.get(fieldName);
+		return (Long) valueAt(indexOfField(fieldName, Long.class));
 	}
 	
 	/**
@@ -308,32 +429,569 @@ public class DataRecord implements Serializable {
 	 */
 	public Double getDoubleVal(final String fieldName) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
 		
-		checkField(fieldName, Double.class);
-		return (Double) valueMap.get(fieldName);
+		return (Double) valueAt(indexOfField(fieldName, Double.class));
+	}
+	
+	/**
+	 * Get the ordinal index of a field.
+	 * 
+	 * <p>The index can be used by the {@code ...At()} accessors, and it is the 
+	 * same for all the {@code DataRecord}s loaded from the same table.
+	 * 
+	 * @param  fieldName
+	 *         The name of the field.
+	 *         
+	 * @return  The ordinal index of the field.
+	 * 
+	 * @throws  NoSuchElementException
+	 *          If the field doesn't exist.
+	 *          
+	 * @since   1.2
+	 */
+	public int getFieldIndex(final String fieldName) {
+		Preconditions.checkNotNull(fieldName);
+		
+		return indexOfField(fieldName);
+	}
+	
+	/**
+	 * Check the value of a field is {@code null}.
+	 * 
+	 * @param  fieldName
+	 *         The name of the field.
+	 *         
+	 * @return  {@code true} if the value is {@code null};
+	 *          {@code false} otherwise.
+	 *          
+	 * @since   1.2
+	 */
+	public boolean isNull(final String fieldName) {
+		Preconditions.checkNotNull(fieldName);
+		
+		return isNullAt(indexOfField(fieldName));
+	}
+	
+	/**
+	 * Check the value of a field is {@code null} by the ordinal index.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field.
+	 *         
+	 * @return  {@code true} if the value is {@code null};
+	 *          {@code false} otherwise.
+	 *          
+	 * @since   1.2
+	 */
+	public boolean isNullAt(final int index) {
+		Preconditions.checkElementIndex(index, schema.size());
+		
+		if (arena != null || schema.isPrimitive(index)) {
+			return !isNonNullAt(index);
+		}
+		return referenceSlots[schema.getSlot(index)] == null;
+	}
+	
+	/**
+	 * Get the value of an {@code Integer} or {@code Long} field as 
+	 * {@code long} without boxing.
+	 * 
+	 * <p>A {@code null} value is returned as 0, use {@code isNull()} to tell 
+	 * the difference.
+	 * 
+	 * @param  fieldName
+	 *         The name of the field.
+	 *         
+	 * @return  The long value of the field, or 0 if the value is {@code null}.
+	 * 
+	 * @since   1.2
+	 */
+	public long getLong(final String fieldName) {
+		Preconditions.checkNotNull(fieldName);
+		
+		return getLongAt(indexOfField(fieldName));
+	}
+	
+	/**
+	 * Get the value of an {@code Integer} or {@code Long} field as 
+	 * {@code long} by the ordinal index without boxing.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field.
+	 *         
+	 * @return  The long value of the field, or 0 if the value is {@code null}.
+	 * 
+	 * @throws  IllegalArgumentException
+	 *          If the field is not {@code Integer} or {@code Long}.
+	 *          
+	 * @since   1.2
+	 */
+	public long getLongAt(final int index) {
+		Preconditions.checkElementIndex(index, schema.size());
+		
+		final Class<?> fieldType = schema.getType(index);
+		if (fieldType != Long.class && fieldType != Integer.class) {
+			throw new IllegalArgumentException(schema.getName(index) + " is not " + Long.class);
+		}
+		return primitiveAt(index);
 	}
 	
 	/**
-	 * Get the {@code Map} which stores the value of each field.
+	 * Get the value of an {@code Integer} field as {@code int} without 
+	 * boxing.
+	 * 
+	 * <p>A {@code null} value is returned as 0, use {@code isNull()} to tell 
+	 * the difference.
+	 * 
+	 * @param  fieldName
+	 *         The name of the field.
+	 *         
+	 * @return  The int value of the field, or 0 if the value is {@code null}.
+	 * 
+	 * @since   1.2
+	 */
+	public int getInt(final String fieldName) {
+		Preconditions.checkNotNull(fieldName);
+		
+		return getIntAt(indexOfField(fieldName));
+	}
+	
+	/**
+	 * Get the value of an {@code Integer} field as {@code int} by the ordinal 
+	 * index without boxing.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field.
+	 *         
+	 * @return  The int value of the field, or 0 if the value is {@code null}.
+	 * 
+	 * @throws  IllegalArgumentException
+	 *          If the field is not {@code Integer}.
+	 *          
+	 * @since   1.2
+	 */
+	public int getIntAt(final int index) {
+		Preconditions.checkElementIndex(index, schema.size());
+		
+		if (schema.getType(index) != Integer.class) {
+			throw new IllegalArgumentException(schema.getName(index) + " is not " + Integer.class);
+		}
+		return (int) primitiveAt(index);
+	}
+	
+	/**
+	 * Get the value of a {@code Double} field as {@code double} without 
+	 * boxing.
+	 * 
+	 * <p>A {@code null} value is returned as 0, use {@code isNull()} to tell 
+	 * the difference.
+	 * 
+	 * @param  fieldName
+	 *         The name of the field.
+	 *         
+	 * @return  The double value of the field, or 0 if the value is 
+	 *          {@code null}.
+	 * 
+	 * @since   1.2
+	 */
+	public double getDouble(final String fieldName) {
+		Preconditions.checkNotNull(fieldName);
+		
+		return getDoubleAt(indexOfField(fieldName));
+	}
+	
+	/**
+	 * Get the value of a {@code Double} field as {@code double} by the 
+	 * ordinal index without boxing.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field.
+	 *         
+	 * @return  The double value of the field, or 0 if the value is 
+	 *          {@code null}.
+	 * 
+	 * @throws  IllegalArgumentException
+	 *          If the field is not {@code Double}.
+	 *          
+	 * @since   1.2
+	 */
+	public double getDoubleAt(final int index) {
+		Preconditions.checkElementIndex(index, schema.size());
+		
+		if (schema.getType(index) != Double.class) {
+			throw new IllegalArgumentException(schema.getName(index) + " is not " + Double.class);
+		}
+		return Double.longBitsToDouble(primitiveAt(index));
+	}
+	
+	/**
+	 * Set the value of a field without marking it as dirty.
+	 * 
+	 * <p>If the field doesn't exist or has a different type, this 
+	 * {@code DataRecord} will move to the schema with the field in the type.
+	 * 
+	 * @param  fieldName
+	 *         The name of the field.
+	 *         
+	 * @param  fieldType
+	 *         The type of the field.
+	 *         
+	 * @param  value
+	 *         The value of the field, can be {@code null}.
+	 *         
+	 * @return  The ordinal index of the field.
+	 * 
+	 * @since   1.2
+	 */
+	protected int putField(final String fieldName, final Class<?> fieldType, final Object value) {
+		int index = schema.indexOf(fieldName);
+		if (arena != null && (index < 0 || schema.getType(index) != fieldType)) {
+			throw new IllegalArgumentException(fieldName + " is not a " + fieldType + " column of " + dataType);
+		}
+		if (index < 0) {
+			schema = schema.withField(fieldName, fieldType);
+			index  = schema.size() - 1;
+			ensureSlotCapacity();
+		} else if (schema.getType(index) != fieldType) {
+			moveToSchema(schema.withField(fieldName, fieldType), index);
+		}
+		putValueAt(index, value);
+		return index;
+	}
+	
+	/**
+	 * Set the value of a field by the ordinal index without marking it as 
+	 * dirty.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field in the schema.
+	 *         
+	 * @param  value
+	 *         The value of the field, can be {@code null}.
+	 *         
+	 * @since   1.2
+	 */
+	void putValueAt(final int index, final Object value) {
+		Preconditions.checkElementIndex(index, schema.size());
+		
+		if (value == null) {
+			putNullAt(index);
+		} else if (!schema.isPrimitive(index)) {
+			if (arena != null) {
+				arena.putString(arenaIndex, index, (String) value);
+			} else {
+				referenceSlots[schema.getSlot(index)] = value;
+			}
+		} else if (schema.getType(index) == Double.class) {
+			putDoubleAt(index, ((Number) value).doubleValue());
+		} else {
+			putLongAt(index, ((Number) value).longValue());
+		}
+	}
+	
+	/**
+	 * Set the value of an {@code Integer} or {@code Long} field by the 
+	 * ordinal index without boxing and without marking it as dirty.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field in the schema.
+	 *         
+	 * @param  value
+	 *         The value of the field.
+	 *         
+	 * @since   1.2
+	 */
+	void putLongAt(final int index, final long value) {
+		Preconditions.checkArgument(schema.isPrimitive(index) && schema.getType(index) != Double.class, "not an integer field");
+		
+		putPrimitiveAt(index, value);
+	}
+	
+	/**
+	 * Set the value of a {@code Double} field by the ordinal index without 
+	 * boxing and without marking it as dirty.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field in the schema.
+	 *         
+	 * @param  value
+	 *         The value of the field.
+	 *         
+	 * @since   1.2
+	 */
+	void putDoubleAt(final int index, final double value) {
+		Preconditions.checkArgument(schema.getType(index) == Double.class, "not a double field");
+		
+		putPrimitiveAt(index, Double.doubleToRawLongBits(value));
+	}
+	
+	/**
+	 * Set the value of a field as {@code null} by the ordinal index without 
+	 * marking it as dirty.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field in the schema.
+	 *         
+	 * @since   1.2
+	 */
+	void putNullAt(final int index) {
+		Preconditions.checkElementIndex(index, schema.size());
+		
+		if (arena != null) {
+			arena.putNull(arenaIndex, index);
+		} else if (schema.isPrimitive(index)) {
+			primitiveSlots[schema.getSlot(index)] = 0;
+			nonNullBits[index >>> 6] &= ~(1L << index);
+		} else {
+			referenceSlots[schema.getSlot(index)] = null;
+		}
+	}
+	
+	private void putPrimitiveAt(final int index, final long bits) {
+		if (arena != null) {
+			arena.putSlot(arenaIndex, index, bits);
+		} else {
+			primitiveSlots[schema.getSlot(index)] = bits;
+			nonNullBits[index >>> 6] |= 1L << index;
+		}
+	}
+	
+	private boolean isNonNullAt(final int index) {
+		if (arena != null) {
+			return arena.isNonNull(arenaIndex, index);
+		}
+		return (nonNullBits[index >>> 6] & (1L << index)) != 0;
+	}
+	
+	private long primitiveAt(final int index) {
+		return arena != null ? arena.getSlot(arenaIndex, index) : primitiveSlots[schema.getSlot(index)];
+	}
+	
+	private Object referenceAt(final int index) {
+		return arena != null ? arena.getString(arenaIndex, index) : referenceSlots[schema.getSlot(index)];
+	}
+	
+	/**
+	 * Allocate the empty slots for all the fields in the schema.
+	 */
+	private void allocateSlots() {
+		primitiveSlots = schema.getPrimitiveCount() == 0 ? EMPTY_PRIMITIVES : new long[schema.getPrimitiveCount()];
+		referenceSlots = schema.getReferenceCount() == 0 ? EMPTY_REFERENCES : new Object[schema.getReferenceCount()];
+		nonNullBits    = schema.size() == 0 ? EMPTY_PRIMITIVES : new long[(schema.size() + 63) >>> 6];
+	}
+	
+	/**
+	 * Grow the slots after a field is appended to the schema.
+	 */
+	private void ensureSlotCapacity() {
+		if (primitiveSlots.length < schema.getPrimitiveCount()) {
+			primitiveSlots = Arrays.copyOf(primitiveSlots, Math.max(schema.getPrimitiveCount(), Math.max(primitiveSlots.length * 2, INITIAL_CAPACITY)));
+		}
+		if (referenceSlots.length < schema.getReferenceCount()) {
+			referenceSlots = Arrays.copyOf(referenceSlots, Math.max(schema.getReferenceCount(), Math.max(referenceSlots.length * 2, INITIAL_CAPACITY)));
+		}
+		if (nonNullBits.length < (schema.size() + 63) >>> 6) {
+			nonNullBits = Arrays.copyOf(nonNullBits, (schema.size() + 63) >>> 6);
+		}
+	}
+	
+	/**
+	 * Move to a schema with the same fields but a different type of one 
+	 * field, the values of the other fields are kept.
+	 * 
+	 * @param  newSchema
+	 *         The new schema.
+	 *         
+	 * @param  changedIndex
+	 *         The ordinal index of the field with the different type, its 
+	 *         value will be {@code null}.
+	 */
+	private void moveToSchema(final RecordSchema newSchema, final int changedIndex) {
+		final Object[] oldValues = new Object[schema.size()];
+		for (int i = 0; i < oldValues.length; i++) {
+			oldValues[i] = i == changedIndex ? null : valueAt(i);
+		}
+		schema = newSchema;
+		allocateSlots();
+		for (int i = 0; i < oldValues.length; i++) {
+			putValueAt(i, oldValues[i]);
+		}
+	}
+	
+	private void setDirtyField(final int index) {
+		if (dirtyFields == null) {
+			dirtyFields = new BitSet();
+		}
+		dirtyFields.set(index);
+		setModified(true);
+	}
+	
+	RecordSchema getSchema()                   { return schema;                }
+	int          getFieldCount()               { return schema.size();         }
+	String       getFieldName(final int index) { return schema.getName(index); }
+	Class<?>     getFieldType(final int index) { return schema.getType(index); }
+	
+	/**
+	 * Get the value of a field by the ordinal index.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field in the schema.
+	 *         
+	 * @return  The value of the field.
+	 * 
+	 * @since   1.2
+	 */
+	Object getValueAt(final int index) {
+		Preconditions.checkElementIndex(index, schema.size());
+		return valueAt(index);
+	}
+	
+	/**
+	 * Get the value of a field by the ordinal index, the value of a 
+	 * primitive field will be boxed.
+	 */
+	private Object valueAt(final int index) {
+		if (!schema.isPrimitive(index)) {
+			return referenceAt(index);
+		}
+		if (!isNonNullAt(index)) {
+			return null;
+		}
+		
+		final long     bits      = primitiveAt(index);
+		final Class<?> fieldType = schema.getType(index);
+		if (fieldType == Integer.class) {
+			return Integer.valueOf((int) bits);
+		}
+		if (fieldType == Long.class) {
+			return Long.valueOf(bits);
+		}
+		return Double.valueOf(Double.longBitsToDouble(bits));
+	}
+	
+	/**
+	 * Check a field has been set since this {@code DataRecord} was loaded 
+	 * from the database or synchronized with the database, by the ordinal 
+	 * index.
+	 * 
+	 * @param  index
+	 *         The ordinal index of the field in the schema.
+	 *         
+	 * @return  {@code true} if the field has been set;
+	 *          {@code false} otherwise.
+	 *          
+	 * @since   1.2
+	 */
+	boolean isDirtyFieldAt(final int index) {
+		return dirtyFields != null && dirtyFields.get(index);
+	}
+	
+	/**
+	 * Check a field has been set since this {@code DataRecord} was loaded 
+	 * from the database or synchronized with the database.
+	 * 
+	 * @param  fieldName
+	 *         The name of the field.
+	 *         
+	 * @return  {@code true} if the field has been set;
+	 *          {@code false} otherwise.
+	 *          
+	 * @since   1.2
+	 */
+	protected boolean isDirtyField(final String fieldName) {
+		Preconditions.checkNotNull(fieldName);
+		
+		final int index = schema.indexOf(fieldName);
+		return index >= 0 && isDirtyFieldAt(index);
+	}
+	
+	/**
+	 * Get the names of the fields which have been set since this 
+	 * {@code DataRecord} was loaded from the database or synchronized with 
+	 * the database.
+	 * 
+	 * @return  The set of the names of the dirty fields, in the same order 
+	 *          as the fields.
+	 * 
+	 * @since   1.2
+	 */
+	protected Set<String> getDirtyFields() {
+		final Set<String> dirtyFieldNames = new LinkedHashSet<>();
+		if (dirtyFields != null) {
+			for (int i = dirtyFields.nextSetBit(0); i >= 0; i = dirtyFields.nextSetBit(i + 1)) {
+				dirtyFieldNames.add(schema.getName(i));
+			}
+		}
+		return dirtyFieldNames;
+	}
+	
+	/**
+	 * Mark all the fields as clean, after this {@code DataRecord} has been 
+	 * synchronized with the database.
+	 * 
+	 * @since   1.2
+	 */
+	protected void clearDirtyFields() {
+		dirtyFields = null;
+	}
+	
+	/**
+	 * Save the state which is changed by writing this {@code DataRecord} to 
+	 * the database: the flag of new record, the {@code RecordId} and the 
+	 * dirty fields.
+	 * 
+	 * @return  The saved state, which can be restored by 
+	 *          {@code restoreCommitState()} if the transaction of the write 
+	 *          is rolled back.
+	 * 
+	 * @since   1.2
+	 */
+	CommitState saveCommitState() {
+		return new CommitState(isNewRecordForDatabase, recordId, dirtyFields == null ? null : (BitSet) dirtyFields.clone());
+	}
+	
+	/**
+	 * Restore the state saved by {@code saveCommitState()}.
+	 * 
+	 * @param  state
+	 *         The saved state.
+	 *         
+	 * @since   1.2
+	 */
+	void restoreCommitState(final CommitState state) {
+		Preconditions.checkNotNull(state);
+		
+		isNewRecordForDatabase = state.isNewRecordForDatabase;
+		recordId               = state.recordId;
+		dirtyFields            = state.dirtyFields;
+	}
+	
+	/**
+	 * Get the {@code Map} of the value of each field.
+	 * 
+	 * <p>The map is a read-only view backed by this {@code DataRecord}, the 
+	 * fields should be set by {@code setDataField()}.
 	 * 
 	 * @return  The map contains the values of all the field.
 	 * 
 	 * @since   1.1
 	 */
 	public Map<String, Object> getValueFields() {
-		return valueMap;
+		return new ValueMapView();
 	}
 	
 	/**
-	 * Get the {@code Map} which stores the type of each field.
+	 * Get the {@code Map} of the type of each field.
+	 * 
+	 * <p>The map is read-only and may be shared by other 
+	 * {@code DataRecord}s with the same fields.
 	 * 
 	 * @return  The map contains the types of all the field.
 	 * 
 	 * @since   1.1
 	 */
 	public Map<String, Class<?>> getTypeFields() {
-		return typeMap;
+		return schema.getTypeMap();
 	}
 	
 	/**
@@ -362,10 +1020,8 @@ public class DataRecord implements Serializable {
 	 */
 	public Object getValue(final String fieldName) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
 		
-		checkFieldExist(fieldName);
-		return valueMap.get(fieldName);
+		return valueAt(indexOfField(fieldName));
 	}
 	
 	/**
@@ -403,12 +1059,8 @@ public class DataRecord implements Serializable {
 	 */
 	protected boolean checkFieldExist(final String fieldName) {
 		Preconditions.checkNotNull(fieldName);
-		Preconditions.checkNotNull(valueMap);
-		Preconditions.checkNotNull(typeMap);
 		
-		if (!valueMap.containsKey(fieldName) || !typeMap.containsKey(fieldName)) {
-			throw new NoSuchElementException("Not existing field: " + fieldName);
-		}
+		indexOfField(fieldName);
 		return true;
 	}
 	
@@ -429,13 +1081,60 @@ public class DataRecord implements Serializable {
 	protected boolean checkFieldType(final String fieldName, final Class<?> expectedFieldType) {
 		Preconditions.checkNotNull(fieldName);
 		Preconditions.checkNotNull(expectedFieldType);
-		Preconditions.checkNotNull(typeMap);
 		
-		if (typeMap.get(fieldName) != expectedFieldType){
+		if (schema.getTypeMap().get(fieldName) != expectedFieldType){
 			throw new IllegalArgumentException(fieldName + " is not " + expectedFieldType);
 		}
 		return true;
 	}
+	
+	/**
+	 * Get the ordinal index of an existing field.
+	 * 
+	 * @param  fieldName
+	 *         The name of the field.
+	 *         
+	 * @return  The ordinal index of the field.
+	 * 
+	 * @throws  NoSuchElementException
+	 *          If the field doesn't exist.
+	 *          
+	 * @since   1.2
+	 */
+	private int indexOfField(final String fieldName) {
+		final int index = schema.indexOf(fieldName);
+		if (index < 0) {
+			throw new NoSuchElementException("Not existing field: " + fieldName);
+		}
+		return index;
+	}
+	
+	/**
+	 * Get the ordinal index of an existing field with the expected type.
+	 * 
+	 * @param  fieldName
+	 *         The name of the field.
+	 *         
+	 * @param  expectedFieldType
+	 *         The expected type for the field.
+	 *         
+	 * @return  The ordinal index of the field.
+	 * 
+	 * @throws  NoSuchElementException
+	 *          If the field doesn't exist.
+	 *          
+	 * @throws  IllegalArgumentException
+	 *          If the type of the field is not as expected.
+	 *          
+	 * @since   1.2
+	 */
+	private int indexOfField(final String fieldName, final Class<?> expectedFieldType) {
+		final int index = indexOfField(fieldName);
+		if (schema.getType(index) != expectedFieldType) {
+			throw new IllegalArgumentException(fieldName + " is not " + expectedFieldType);
+		}
+		return index;
+	}
 
 	
 	/**
@@ -444,22 +1143,113 @@ public class DataRecord implements Serializable {
 	 * @since   1.1
 	 */
 	public void printDataRecord() {
-		Preconditions.checkNotNull(valueMap);
-		Preconditions.checkNotNull(typeMap);
+		for (int i = 0; i < schema.size(); i++) {
+			System.out.println(schema.getName(i) + " " + valueAt(i));
+		}
+	}
+	
+	/**
+	 * Write the fields of this {@code DataRecord} by name, type and value, 
+	 * because the schema and the slots are not serializable.
+	 */
+	private void writeObject(final ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(schema.size());
+		for (int i = 0; i < schema.size(); i++) {
+			out.writeObject(schema.getName(i));
+			out.writeObject(schema.getType(i));
+			out.writeObject(valueAt(i));
+		}
+		out.writeObject(dirtyFields);
+	}
+	
+	private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		schema = RecordSchema.EMPTY;
+		allocateSlots();
+		final int fieldCount = in.readInt();
+		for (int i = 0; i < fieldCount; i++) {
+			final String   fieldName = (String)   in.readObject();
+			final Class<?> fieldType = (Class<?>) in.readObject();
+			putField(fieldName, fieldType, in.readObject());
+		}
+		dirtyFields = (BitSet) in.readObject();
+	}
+	
+	/**
+	 * The state of a {@code DataRecord} saved before it is written in a 
+	 * transaction.
+	 */
+	static final class CommitState {
+		private final boolean isNewRecordForDatabase;
+		private final long    recordId;
+		private final BitSet  dirtyFields;
 		
-		for (Map.Entry<String, Object> entry : valueMap.entrySet()) {			
-			if (typeMap.get(entry.getKey()) == String.class) {
-				System.out.println(entry.getKey() + " " + (String) entry.getValue());
-			}
-			if (typeMap.get(entry.getKey()) == Integer.class) {
-				System.out.println(entry.getKey() + " " + (Integer)entry.getValue());
-			}
-			if (typeMap.get(entry.getKey()) == Long.class) {
-				System.out.println(entry.getKey() + " " + (Long) entry.getValue());
-			}
-			if (typeMap.get(entry.getKey()) == Double.class) {
-				System.out.println(entry.getKey() + " " + (Double) entry.getValue());
+		private CommitState(final boolean isNewRecordForDatabase, final long recordId, final BitSet dirtyFields) {
+			this.isNewRecordForDatabase = isNewRecordForDatabase;
+			this.recordId               = recordId;
+			this.dirtyFields            = dirtyFields;
+		}
+	}
+	
+	/**
+	 * Read-only {@code Map} view of the values of this {@code DataRecord}.
+	 */
+	private final class ValueMapView extends AbstractMap<String, Object> {
+		@Override
+		public int size() {
+			return schema.size();
+		}
+		
+		@Override
+		public boolean containsKey(final Object key) {
+			return key instanceof String && schema.indexOf((String) key) >= 0;
+		}
+		
+		@Override
+		public Object get(final Object key) {
+			if (!(key instanceof String)) {
+				return null;
 			}
+			final int index = schema.indexOf((String) key);
+			return index < 0 ? null : valueAt(index);
+		}
+		
+		@Override
+		public Set<String> keySet() {
+			return Collections.unmodifiableSet(new LinkedHashSet<>(schema.getNames()));
+		}
+		
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			return new AbstractSet<Map.Entry<String, Object>>() {
+				@Override
+				public int size() {
+					return schema.size();
+				}
+				
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return new Iterator<Map.Entry<String, Object>>() {
+						private int index = 0;
+						
+						@Override
+						public boolean hasNext() {
+							return index < schema.size();
+						}
+						
+						@Override
+						public Map.Entry<String, Object> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							final Map.Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<>(schema.getName(index), valueAt(index));
+							index++;
+							return entry;
+						}
+					};
+				}
+			};
 		}
 	}
 }
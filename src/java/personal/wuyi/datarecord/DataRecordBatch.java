@@ -0,0 +1,509 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Column-wise result of a query.
+ *
+ * <p>Unlike a list of {@code DataRecord}s, the values of a
+ * {@code DataRecordBatch} are stored by column:
+ * <ul>
+ * 	<li>{@code Integer} and {@code Long} columns are stored in a
+ *      {@code long[]}.
+ * 	<li>{@code Double} columns are stored in a {@code double[]}.
+ * 	<li>{@code String} columns are dictionary-encoded: each row stores the
+ *      code of its value in an {@code int[]}, and each distinct value is
+ *      stored once in the dictionary of the column.
+ * 	<li>The {@code null} values of each column are marked in a bitmap, and
+ *      stored as 0 (or -1 as the code of a {@code String} column).
+ * </ul>
+ *
+ * <p>The column arrays are returned without copying and have exactly
+ * {@code size()} elements, so an aggregation can loop over a column
+ * directly. The arrays must not be modified.
+ *
+ * <p>{@code getDataRecord()} builds a {@code DataRecord} of one row for the
+ * code which needs the {@code DataRecord} API, the built {@code DataRecord}
+ * is not added to the commit pool.
+ *
+ * @author  Wuyi Chen
+ * @date    12/18/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public final class DataRecordBatch implements Iterable<DataRecord> {
+	/** The initial number of the rows can be stored without growing. */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/** The code of a {@code null} value in a {@code String} column. */
+	public static final int NULL_CODE = -1;
+
+	private final String                     dataType;
+	private final RecordSchema               schema;
+	private final long[][]                   longColumns;
+	private final double[][]                 doubleColumns;
+	private final int[][]                    codeColumns;
+	private final String[][]                 dictionaries;
+	private final BitSet[]                   nullColumns;
+	private long[]                           recordIds;
+	private int                              size;
+
+	private DataRecordBatch(final String dataType, final RecordSchema schema) {
+		this.dataType      = dataType;
+		this.schema        = schema;
+		this.longColumns   = new long[schema.size()][];
+		this.doubleColumns = new double[schema.size()][];
+		this.codeColumns   = new int[schema.size()][];
+		this.dictionaries  = new String[schema.size()][];
+		this.nullColumns   = new BitSet[schema.size()];
+		this.recordIds     = new long[INITIAL_CAPACITY];
+
+		for (int i = 0; i < schema.size(); i++) {
+			final Class<?> columnType = schema.getType(i);
+			if (columnType == Integer.class || columnType == Long.class) {
+				longColumns[i] = new long[INITIAL_CAPACITY];
+			} else if (columnType == Double.class) {
+				doubleColumns[i] = new double[INITIAL_CAPACITY];
+			} else {
+				codeColumns[i] = new int[INITIAL_CAPACITY];
+			}
+			nullColumns[i] = new BitSet();
+		}
+	}
+
+	/**
+	 * Read all the rows of a result set into a {@code DataRecordBatch}.
+	 *
+	 * <p>The column index of each field is resolved once, and the values are
+	 * read by the primitive getters of the result set without boxing.
+	 *
+	 * @param  rs
+	 *         The result set of the query.
+	 *
+	 * @param  dataType
+	 *         The name of the queried table.
+	 *
+	 * @param  schema
+	 *         The schema of the table.
+	 *
+	 * @return  The {@code DataRecordBatch} contains all the rows.
+	 *
+	 * @throws  SQLException
+	 *          If an error occurred when reading the rows.
+	 *
+	 * @since   1.2
+	 */
+	static DataRecordBatch read(final ResultSet rs, final String dataType, final RecordSchema schema) throws SQLException {
+		Preconditions.checkNotNull(rs);
+		Preconditions.checkNotNull(dataType);
+		Preconditions.checkNotNull(schema);
+
+		final DataRecordBatch                batch             = new DataRecordBatch(dataType, schema);
+		final int[]                          columnIndexes     = new int[schema.size()];
+		final List<Map<String, Integer>>     dictionaryMapList = new ArrayList<>();
+		final List<List<String>>             dictionaryList    = new ArrayList<>();
+		for (int i = 0; i < schema.size(); i++) {
+			columnIndexes[i] = rs.findColumn(schema.getName(i));
+			dictionaryMapList.add(batch.codeColumns[i] == null ? null : new HashMap<>());
+			dictionaryList.add(batch.codeColumns[i] == null ? null : new ArrayList<>());
+		}
+		final int recordIdIndex = rs.findColumn(DataRecordManagerConstants.RECORD_IDENTIFIER);
+
+		while (rs.next()) {
+			final int row = batch.size;
+			if (row == batch.recordIds.length) {
+				batch.resize(row * 2);
+			}
+			batch.recordIds[row] = rs.getLong(recordIdIndex);
+
+			for (int i = 0; i < columnIndexes.length; i++) {
+				final Class<?> columnType = schema.getType(i);
+				if (columnType == Integer.class) {
+					batch.longColumns[i][row] = rs.getInt(columnIndexes[i]);
+				} else if (columnType == Long.class) {
+					batch.longColumns[i][row] = rs.getLong(columnIndexes[i]);
+				} else if (columnType == Double.class) {
+					batch.doubleColumns[i][row] = rs.getDouble(columnIndexes[i]);
+				} else {
+					final String value = rs.getString(columnIndexes[i]);
+					if (value == null) {
+						batch.codeColumns[i][row] = NULL_CODE;
+					} else {
+						Integer code = dictionaryMapList.get(i).get(value);
+						if (code == null) {
+							code = dictionaryList.get(i).size();
+							dictionaryMapList.get(i).put(value, code);
+							dictionaryList.get(i).add(value);
+						}
+						batch.codeColumns[i][row] = code;
+					}
+				}
+				if (rs.wasNull()) {
+					batch.nullColumns[i].set(row);
+				}
+			}
+			batch.size++;
+		}
+
+		batch.resize(batch.size);                     // trim the columns to the number of rows
+		for (int i = 0; i < schema.size(); i++) {
+			if (batch.codeColumns[i] != null) {
+				batch.dictionaries[i] = dictionaryList.get(i).toArray(new String[0]);
+			}
+		}
+		return batch;
+	}
+
+	/**
+	 * Change the length of all the columns.
+	 *
+	 * @param  capacity
+	 *         The new length of the columns.
+	 */
+	private void resize(final int capacity) {
+		recordIds = Arrays.copyOf(recordIds, capacity);
+		for (int i = 0; i < schema.size(); i++) {
+			if (longColumns[i] != null) {
+				longColumns[i] = Arrays.copyOf(longColumns[i], capacity);
+			} else if (doubleColumns[i] != null) {
+				doubleColumns[i] = Arrays.copyOf(doubleColumns[i], capacity);
+			} else {
+				codeColumns[i] = Arrays.copyOf(codeColumns[i], capacity);
+			}
+		}
+	}
+
+	/**
+	 * Get the type/table name of the rows.
+	 *
+	 * @return  The name of the queried table.
+	 *
+	 * @since   1.2
+	 */
+	public String getDataTypeName() {
+		return dataType;
+	}
+
+	/**
+	 * Get the number of the rows.
+	 *
+	 * @return  The number of the rows, which is also the length of each
+	 *          column array.
+	 *
+	 * @since   1.2
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the number of the columns, {@code RecordId} is not included.
+	 *
+	 * @return  The number of the columns.
+	 *
+	 * @since   1.2
+	 */
+	public int getColumnCount() {
+		return schema.size();
+	}
+
+	/**
+	 * Get the index of a column.
+	 *
+	 * <p>The index is the same as the field index of the {@code DataRecord}s
+	 * loaded from the same table.
+	 *
+	 * @param  columnName
+	 *         The name of the column.
+	 *
+	 * @return  The index of the column.
+	 *
+	 * @throws  NoSuchElementException
+	 *          If the column doesn't exist.
+	 *
+	 * @since   1.2
+	 */
+	public int getColumnIndex(final String columnName) {
+		Preconditions.checkNotNull(columnName);
+
+		final int index = schema.indexOf(columnName);
+		if (index < 0) {
+			throw new NoSuchElementException("Not existing column: " + columnName);
+		}
+		return index;
+	}
+
+	/**
+	 * Get the name of a column.
+	 *
+	 * @param  column
+	 *         The index of the column.
+	 *
+	 * @return  The name of the column.
+	 *
+	 * @since   1.2
+	 */
+	public String getColumnName(final int column) {
+		Preconditions.checkElementIndex(column, schema.size());
+		return schema.getName(column);
+	}
+
+	/**
+	 * Get the type of a column.
+	 *
+	 * @param  column
+	 *         The index of the column.
+	 *
+	 * @return  The type of the column, which is {@code String},
+	 *          {@code Integer}, {@code Long} or {@code Double}.
+	 *
+	 * @since   1.2
+	 */
+	public Class<?> getColumnType(final int column) {
+		Preconditions.checkElementIndex(column, schema.size());
+		return schema.getType(column);
+	}
+
+	/**
+	 * Get the record identifiers of the rows.
+	 *
+	 * @return  The array of the record identifiers.
+	 *
+	 * @since   1.2
+	 */
+	public long[] getRecordIds() {
+		return recordIds;
+	}
+
+	/**
+	 * Get the values of an {@code Integer} or {@code Long} column.
+	 *
+	 * @param  column
+	 *         The index of the column.
+	 *
+	 * @return  The array of the values, a {@code null} value is stored as 0.
+	 *
+	 * @throws  IllegalArgumentException
+	 *          If the column is not {@code Integer} or {@code Long}.
+	 *
+	 * @since   1.2
+	 */
+	public long[] getLongColumn(final int column) {
+		Preconditions.checkElementIndex(column, schema.size());
+		if (longColumns[column] == null) {
+			throw new IllegalArgumentException(schema.getName(column) + " is not " + Long.class);
+		}
+		return longColumns[column];
+	}
+
+	/**
+	 * Get the values of a {@code Double} column.
+	 *
+	 * @param  column
+	 *         The index of the column.
+	 *
+	 * @return  The array of the values, a {@code null} value is stored as 0.
+	 *
+	 * @throws  IllegalArgumentException
+	 *          If the column is not {@code Double}.
+	 *
+	 * @since   1.2
+	 */
+	public double[] getDoubleColumn(final int column) {
+		Preconditions.checkElementIndex(column, schema.size());
+		if (doubleColumns[column] == null) {
+			throw new IllegalArgumentException(schema.getName(column) + " is not " + Double.class);
+		}
+		return doubleColumns[column];
+	}
+
+	/**
+	 * Get the dictionary codes of a {@code String} column.
+	 *
+	 * <p>The value of a row is the element of the dictionary at the code,
+	 * see {@code getDictionary()}.
+	 *
+	 * @param  column
+	 *         The index of the column.
+	 *
+	 * @return  The array of the codes, a {@code null} value is stored as
+	 *          {@code NULL_CODE}.
+	 *
+	 * @throws  IllegalArgumentException
+	 *          If the column is not {@code String}.
+	 *
+	 * @since   1.2
+	 */
+	public int[] getCodeColumn(final int column) {
+		Preconditions.checkElementIndex(column, schema.size());
+		if (codeColumns[column] == null) {
+			throw new IllegalArgumentException(schema.getName(column) + " is not " + String.class);
+		}
+		return codeColumns[column];
+	}
+
+	/**
+	 * Get the dictionary of a {@code String} column.
+	 *
+	 * @param  column
+	 *         The index of the column.
+	 *
+	 * @return  The array of the distinct values in the order of their first
+	 *          occurrence.
+	 *
+	 * @throws  IllegalArgumentException
+	 *          If the column is not {@code String}.
+	 *
+	 * @since   1.2
+	 */
+	public String[] getDictionary(final int column) {
+		Preconditions.checkElementIndex(column, schema.size());
+		if (dictionaries[column] == null) {
+			throw new IllegalArgumentException(schema.getName(column) + " is not " + String.class);
+		}
+		return dictionaries[column];
+	}
+
+	/**
+	 * Check the value of a row in a column is {@code null}.
+	 *
+	 * @param  row
+	 *         The index of the row.
+	 *
+	 * @param  column
+	 *         The index of the column.
+	 *
+	 * @return  {@code true} if the value is {@code null};
+	 *          {@code false} otherwise.
+	 *
+	 * @since   1.2
+	 */
+	public boolean isNull(final int row, final int column) {
+		Preconditions.checkElementIndex(row, size);
+		Preconditions.checkElementIndex(column, schema.size());
+		return nullColumns[column].get(row);
+	}
+
+	/**
+	 * Get the number of the {@code null} values in a column.
+	 *
+	 * @param  column
+	 *         The index of the column.
+	 *
+	 * @return  The number of the {@code null} values.
+	 *
+	 * @since   1.2
+	 */
+	public int getNullCount(final int column) {
+		Preconditions.checkElementIndex(column, schema.size());
+		return nullColumns[column].cardinality();
+	}
+
+	/**
+	 * Get the value of a row in a {@code String} column.
+	 *
+	 * @param  row
+	 *         The index of the row.
+	 *
+	 * @param  column
+	 *         The index of the column.
+	 *
+	 * @return  The string value, can be {@code null}.
+	 *
+	 * @since   1.2
+	 */
+	public String getString(final int row, final int column) {
+		Preconditions.checkElementIndex(row, size);
+
+		final int code = getCodeColumn(column)[row];
+		return code == NULL_CODE ? null : dictionaries[column][code];
+	}
+
+	/**
+	 * Build a {@code DataRecord} of a row.
+	 *
+	 * <p>The {@code DataRecord} shares the schema of the table, and it is not
+	 * new to the database, so it can be added to the commit pool for
+	 * updating back to the database.
+	 *
+	 * @param  row
+	 *         The index of the row.
+	 *
+	 * @return  The {@code DataRecord} of the row.
+	 *
+	 * @since   1.2
+	 */
+	public DataRecord getDataRecord(final int row) {
+		Preconditions.checkElementIndex(row, size);
+
+		final DataRecord dataRecord = new DataRecord(dataType, schema, false);
+		dataRecord.setRecordId(recordIds[row]);
+		for (int i = 0; i < schema.size(); i++) {
+			if (nullColumns[i].get(row)) {
+				continue;                             // the values are null initially
+			}
+			if (longColumns[i] != null) {
+				dataRecord.putLongAt(i, longColumns[i][row]);
+			} else if (doubleColumns[i] != null) {
+				dataRecord.putDoubleAt(i, doubleColumns[i][row]);
+			} else {
+				dataRecord.putValueAt(i, dictionaries[i][codeColumns[i][row]]);
+			}
+		}
+		return dataRecord;
+	}
+
+	/**
+	 * Get an iterator to build the {@code DataRecord} of each row in order.
+	 *
+	 * @return  The iterator of the {@code DataRecord}s.
+	 *
+	 * @since   1.2
+	 */
+	@Override
+	public Iterator<DataRecord> iterator() {
+		return new Iterator<DataRecord>() {
+			private int row = 0;
+
+			@Override
+			public boolean hasNext() {
+				return row < size;
+			}
+
+			@Override
+			public DataRecord next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return getDataRecord(row++);
+			}
+		};
+	}
+}
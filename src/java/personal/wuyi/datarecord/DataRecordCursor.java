@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Cursor to read the {@code DataRecord}s of a query one by one.
+ * 
+ * <p>Unlike {@code DataRecordManager.queryDataRecords()}, this cursor doesn't 
+ * materialize the whole result set. Each {@code DataRecord} is built from 
+ * the current row only when {@code next()} is called, and the rows are 
+ * fetched from the database in small chunks (or one by one for MySQL), so a 
+ * large table can be scanned with constant memory.
+ * 
+ * <p>The cursor holds the statement and the result set, so it must be closed 
+ * after use, preferably by a try-with-resources statement. An error occurred 
+ * when reading the rows will be thrown as a {@code DataRecordException}.
+ * 
+ * @author  Wuyi Chen
+ * @date    12/14/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class DataRecordCursor implements Iterator<DataRecord>, AutoCloseable {
+	private final Statement             statement;
+	private final ResultSet             rs;
+	private final String                dataType;
+	private final RecordSchema          schema;
+	private final CommitPool            commitPool;
+	private final Connection            autoCommitConnection;
+	private boolean                     hasFetchedRow;
+	private boolean                     hasNextRow;
+	private boolean                     isClosed;
+	
+	/**
+	 * Construct a {@code DataRecordCursor}.
+	 * 
+	 * @param  statement
+	 *         The statement executed the query.
+	 *         
+	 * @param  rs
+	 *         The result set of the query.
+	 *         
+	 * @param  dataType
+	 *         The name of the queried table.
+	 *         
+	 * @param  schema
+	 *         The schema of the table.
+	 *         
+	 * @param  commitPool
+	 *         The commit pool to retain the read {@code DataRecord}s, 
+	 *         {@code null} if they should not be retained.
+	 *         
+	 * @param  autoCommitConnection
+	 *         The connection whose auto-commit mode needs to be restored 
+	 *         when closing this cursor, {@code null} if not needed.
+	 *         
+	 * @since   1.2
+	 */
+	DataRecordCursor(final Statement statement, final ResultSet rs, final String dataType, final RecordSchema schema, 
+			final CommitPool commitPool, final Connection autoCommitConnection) {
+		this.statement            = Preconditions.checkNotNull(statement);
+		this.rs                   = Preconditions.checkNotNull(rs);
+		this.dataType             = Preconditions.checkNotNull(dataType);
+		this.schema               = Preconditions.checkNotNull(schema);
+		this.commitPool           = commitPool;
+		this.autoCommitConnection = autoCommitConnection;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		if (!hasFetchedRow) {
+			try {
+				hasNextRow    = !isClosed && rs.next();
+				hasFetchedRow = true;
+			} catch (SQLException e) {
+				throw new DataRecordException(e);
+			}
+		}
+		return hasNextRow;
+	}
+	
+	@Override
+	public DataRecord next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		hasFetchedRow = false;
+		
+		try {
+			final DataRecord dataRecord = DataRecordSession.readDataRecord(rs, dataType, schema);
+			if (commitPool != null) {
+				commitPool.add(dataRecord);
+			}
+			return dataRecord;
+		} catch (SQLException e) {
+			throw new DataRecordException(e);
+		}
+	}
+	
+	/**
+	 * Set the number of the rows fetched from the database in one round 
+	 * trip for the following reads.
+	 * 
+	 * <p>This is only a hint, the rows streamed one by one for MySQL are not 
+	 * affected.
+	 * 
+	 * @param  rows
+	 *         The number of the rows, must be positive.
+	 *         
+	 * @throws  SQLException
+	 *          If an error occurred when setting the fetch size.
+	 *          
+	 * @since   1.2
+	 */
+	void setFetchSize(final int rows) throws SQLException {
+		Preconditions.checkArgument(rows > 0, "rows is not positive");
+		
+		if (!isClosed && statement.getFetchSize() != Integer.MIN_VALUE) {    // Integer.MIN_VALUE is the streaming mode of MySQL
+			rs.setFetchSize(rows);
+		}
+	}
+	
+	/**
+	 * Close the result set and the statement of this cursor.
+	 * 
+	 * <p>If the auto-commit mode of the connection was turned off for this 
+	 * cursor, it will be turned on again.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when closing the cursor.
+	 *          
+	 * @since   1.2
+	 */
+	@Override
+	public void close() throws SQLException {
+		if (isClosed) {
+			return;
+		}
+		isClosed = true;
+		
+		try {
+			rs.close();
+		} finally {
+			try {
+				statement.close();
+			} finally {
+				if (autoCommitConnection != null) {
+					autoCommitConnection.setAutoCommit(true);
+				}
+			}
+		}
+	}
+}
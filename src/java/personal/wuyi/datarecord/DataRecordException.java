@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.SQLException;
+
+/**
+ * Unchecked exception to wrap a {@code SQLException} thrown from the APIs 
+ * which can not throw checked exceptions, like {@code Iterator.next()}.
+ * 
+ * @author  Wuyi Chen
+ * @date    12/14/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class DataRecordException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Construct a {@code DataRecordException}.
+	 * 
+	 * @param  cause
+	 *         The {@code SQLException} thrown by the database.
+	 *         
+	 * @since   1.2
+	 */
+	public DataRecordException(final SQLException cause) {
+		super(cause);
+	}
+	
+	@Override
+	public synchronized SQLException getCause() {
+		return (SQLException) super.getCause();
+	}
+}
@@ -18,20 +18,24 @@ package personal.wuyi.datarecord;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import personal.wuyi.client.database.DbType;
 import personal.wuyi.client.database.GenericDbConfig;
-import personal.wuyi.string.SqlUtil;
 
 import com.google.common.base.Preconditions;
 
@@ -42,127 +46,982 @@ import com.google.common.base.Preconditions;
  * This static class provides convenient and transaction-based APIs for 
  * synchronizing between the {@code DataRecord} and the database.
  * 
+ * <p>All the static methods run on a default {@code DataRecordSession}, 
+ * which is opened by {@code buildConnection()} on a pool of connections. 
+ * The code which needs multiple connections, like the workers running in 
+ * parallel, should use their own sessions opened by {@code openSession()}.
+ * 
  * @author  Wuyi Chen
  * @date    03/07/2016
  * @version 1.1
  * @since   1.1
  */
 public class DataRecordManager implements DataRecordManagerConstants {
-	/** The type of the database */
-	protected static DbType     type;
-	protected static Connection connect;
+	/** The pool of the connections, built by {@code buildConnection()}. */
+	private static volatile ConnectionPool    pool;
+	
+	/** The session used by the static methods. */
+	private static volatile DataRecordSession defaultSession;
+	
+	/** The database type and the connection settings or factory which built the pool. */
+	private static DbType                     poolType;
+	private static Object                     poolSource;
+	
+	/** The executor of the submitted tasks, created by the first submission. */
+	private static volatile IoExecutor        ioExecutor;
+	
+	/** The cache of the column metadata, shared by all the pooled sessions. */
+	private static final ColumnMetadataCache metadataCache = new ColumnMetadataCache();
+	
+	/** The settings applied to the sessions. */
+	private static WriteMode defaultWriteMode     = WriteMode.STATEMENT;
+	private static int       batchSize            = DEFAULT_BATCH_SIZE;
+	private static int       statementCacheSize   = StatementCache.DEFAULT_CAPACITY;
+	private static int       poolMinSize          = DEFAULT_POOL_MIN_SIZE;
+	private static int       poolMaxSize          = DEFAULT_POOL_MAX_SIZE;
+	private static int       commitParallelism    = 1;
+	private static int       transactionChunkSize = 0;
+	private static int       commitPoolLimit      = 0;
+	private static long      commitPoolByteLimit  = 0;
+	private static boolean   useVirtualThreads    = true;
+	
+	/**
+	 * The commit pool of the default session.
+	 * 
+	 * @deprecated  The commit pool is owned by the default session, this is 
+	 *              a view of it: {@code add()} and {@code clear()} write 
+	 *              through, the other modifications are not supported. Use 
+	 *              {@code getDefaultSession()} instead.
+	 */
+	@Deprecated
+	protected static final List<DataRecord> commitPool = new CommitPoolView();
+	
+	private DataRecordManager() {}
+	
+	/**
+	 * Build database connection.
+	 * 
+	 * <p>The first call builds a pool of the connections and opens the 
+	 * default session on a connection borrowed from the pool. The following 
+	 * calls with the same type and configuration clear the commit pool of 
+	 * the default session, and replace the default session if its 
+	 * connection is not valid anymore (for example, it has been disconnected 
+	 * by the {@code wait_timeout} of MySQL). A call with another type or 
+	 * configuration closes the pool by {@code closeConnection()} and builds 
+	 * a new one.
+	 * 
+	 * @param  type
+	 *         The database type.
+	 *         
+	 * @param  config
+	 *         The generic database configuration.
+	 *         
+	 * @throws  SQLException
+	 *          If there is any error when connecting to database.
+	 *          
+	 * @throws  ClassNotFoundException
+	 *          If the driver class is not found in the class path.
+	 *          
+	 * @since   1.1
+	 */
+	public static synchronized void buildConnection(final DbType type, final GenericDbConfig config) throws SQLException, ClassNotFoundException {
+		final List<String> source = Arrays.asList(type.buildUrl(config), config.getUsername(), config.getPassword());   // the config is mutable and has no equals()
+		if (!isPoolBuiltBy(type, source)) {
+			closeConnection();
+			metadataCache.invalidateAll();
+			pool       = new ConnectionPool(type, config, metadataCache, poolMinSize, poolMaxSize);
+			poolType   = type;
+			poolSource = source;
+		}
+		openDefaultSession();
+	}
+	
+	/**
+	 * Build database connection by a connection factory, like the embedded 
+	 * databases without a {@code GenericDbConfig}.
+	 * 
+	 * <p>The pool is rebuilt the same as 
+	 * {@code buildConnection(DbType, GenericDbConfig)}, if the type or the 
+	 * factory is changed.
+	 * 
+	 * @param  type
+	 *         The database type, which decides the SQL dialect.
+	 *         
+	 * @param  factory
+	 *         The factory to open a new connection.
+	 *         
+	 * @throws  SQLException
+	 *          If there is any error when connecting to database.
+	 *          
+	 * @since   1.2
+	 */
+	static synchronized void buildConnection(final DbType type, final ConnectionPool.Factory factory) throws SQLException {
+		if (!isPoolBuiltBy(type, factory)) {
+			closeConnection();
+			metadataCache.invalidateAll();
+			pool       = new ConnectionPool(type, factory, metadataCache, poolMinSize, poolMaxSize, true);
+			poolType   = type;
+			poolSource = factory;
+		}
+		openDefaultSession();
+	}
+	
+	private static boolean isPoolBuiltBy(final DbType type, final Object source) {
+		return pool != null && !pool.isClosed() && poolType == type && Objects.equals(poolSource, source);
+	}
+	
+	/**
+	 * Clear the commit pool of the default session, or replace the default 
+	 * session if its connection is not valid.
+	 */
+	private static void openDefaultSession() throws SQLException {
+		if (defaultSession != null && defaultSession.isValid()) {
+			defaultSession.clearCommitPool();
+		} else {
+			if (defaultSession != null) {
+				defaultSession.close();
+			}
+			defaultSession = openSession();
+		}
+	}
+	
+	/**
+	 * Close database connection.
+	 * 
+	 * <p>The default session and the pool of the connections will be 
+	 * closed. The sessions opened by {@code openSession()} can still be used 
+	 * until they are closed, then their connections will be closed.
+	 * 
+	 * @throws  SQLException
+	 *          If there is any error when closing the connection.
+	 *          
+	 * @since   1.1
+	 */
+	public static synchronized void closeConnection() throws SQLException {
+		try {
+			if (defaultSession != null) {
+				defaultSession.close();
+			}
+		} finally {
+			defaultSession = null;
+			if (ioExecutor != null) {
+				ioExecutor.close();
+				ioExecutor = null;
+			}
+			if (pool != null) {
+				pool.close();
+				pool       = null;
+				poolType   = null;
+				poolSource = null;
+			}
+			metadataCache.invalidateAll();
+		}
+	}
+	
+	/**
+	 * Open a new session on a connection borrowed from the pool built by 
+	 * {@code buildConnection()}.
+	 * 
+	 * <p>The workers running in parallel should use their own sessions, 
+	 * and close them to return the connections to the pool.
+	 * 
+	 * @return  The new session with the current settings.
+	 * 
+	 * @throws  SQLException
+	 *          If there is no connection available before the borrow 
+	 *          timeout, or there is any error when connecting to database.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static DataRecordSession openSession() throws SQLException {
+		final ConnectionPool    connectionPool = getConnectionPool();
+		final DataRecordSession session        = connectionPool.openSession();   // don't hold the lock while waiting for a connection
+		try {
+			synchronized (DataRecordManager.class) {
+				session.setDefaultWriteMode(defaultWriteMode);
+				session.setBatchSize(batchSize);
+				session.setStatementCacheSize(statementCacheSize);
+				session.setCommitParallelism(Math.min(commitParallelism, connectionPool.getMaxSize()));
+				session.setTransactionChunkSize(transactionChunkSize);
+				session.setCommitPoolLimit(commitPoolLimit, commitPoolByteLimit);
+			}
+		} catch (RuntimeException | SQLException e) {
+			session.close();
+			throw e;
+		}
+		return session;
+	}
+	
+	/**
+	 * Open a write-behind flusher on a new session borrowed from the pool, 
+	 * with the default flush size, flush delay and queue capacity.
+	 * 
+	 * <p>The flusher commits the added {@code DataRecord}s on a background 
+	 * thread, see {@code WriteBehindFlusher}. It must be closed to commit the 
+	 * remaining records and return the connection to the pool.
+	 * 
+	 * @return  The new flusher.
+	 * 
+	 * @throws  SQLException
+	 *          If there is no connection available before the borrow 
+	 *          timeout, or there is any error when connecting to database.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static WriteBehindFlusher openWriteBehindFlusher() throws SQLException {
+		return new WriteBehindFlusher(openSession());
+	}
+	
+	/**
+	 * Set whether the tasks submitted by {@code submitQuery()} and 
+	 * {@code submitCommit()} run on virtual threads.
+	 * 
+	 * <p>The virtual threads are used by default when the runtime supports 
+	 * them (Java 21 or later), otherwise the tasks run on a pool of platform 
+	 * threads. Either way, the number of the running tasks is limited by the 
+	 * size of the connection pool. The setting is applied to the executor 
+	 * created after the next {@code closeConnection()}.
+	 * 
+	 * @param  enabled
+	 *         {@code true} to use virtual threads when they are supported; 
+	 *         {@code false} to always use platform threads.
+	 *         
+	 * @since   1.2
+	 */
+	public static synchronized void setVirtualThreadsEnabled(final boolean enabled) {
+		useVirtualThreads = enabled;
+	}
+	
+	/**
+	 * Submit a query which runs in the background on its own session.
+	 * 
+	 * <p>The returned {@code DataRecord}s are not in any commit pool. To 
+	 * update them back to the database, add them to a session by 
+	 * {@code addDataRecord(DataRecord)} or submit them by 
+	 * {@code submitCommit()}.
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The {@code Future} of the list of {@code DataRecord}s, which 
+	 *          fails with the {@code SQLException} if an error occurred when 
+	 *          querying the database.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static Future<List<DataRecord>> submitQuery(final String dataType, final String whereClause) {
+		return getIoExecutor().submit(() -> {
+			try (DataRecordSession session = openSession()) {
+				return session.queryDataRecords(dataType, whereClause);
+			}
+		});
+	}
+	
+	/**
+	 * Submit a commit of the {@code DataRecord}s which runs in the background
+	 * on its own session, by the default write mode.
+	 * 
+	 * @param  dataRecords
+	 *         The {@code DataRecord}s to be synchronized with the database, 
+	 *         which should not be modified until the commit is done.
+	 *         
+	 * @return  The {@code Future} of the numbers of the written and skipped 
+	 *          records, which fails with the {@code SQLException} if an 
+	 *          error occurred when committing the records.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static Future<CommitResult> submitCommit(final Collection<DataRecord> dataRecords) {
+		return submitCommit(dataRecords, null);
+	}
+	
+	/**
+	 * Submit a commit of the {@code DataRecord}s which runs in the background
+	 * on its own session.
+	 * 
+	 * @param  dataRecords
+	 *         The {@code DataRecord}s to be synchronized with the database, 
+	 *         which should not be modified until the commit is done.
+	 *         
+	 * @param  writeMode
+	 *         The write mode for inserting new records, or {@code null} for 
+	 *         the default write mode.
+	 *         
+	 * @return  The {@code Future} of the numbers of the written and skipped 
+	 *          records, which fails with the {@code SQLException} if an 
+	 *          error occurred when committing the records.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static Future<CommitResult> submitCommit(final Collection<DataRecord> dataRecords, final WriteMode writeMode) {
+		final List<DataRecord> dataRecordList = new ArrayList<>(Preconditions.checkNotNull(dataRecords));
+		return getIoExecutor().submit(() -> {
+			try (DataRecordSession session = openSession()) {
+				for (DataRecord dataRecord : dataRecordList) {
+					session.addDataRecord(dataRecord);
+				}
+				return writeMode == null ? session.storeAndCommit() : session.storeAndCommit(writeMode);
+			}
+		});
+	}
+	
+	/**
+	 * Query a list of {@code DataRecord}s asynchronously on its own session, 
+	 * by the executor of the submitted tasks.
+	 * 
+	 * <p>The independent queries can run at the same time, each one on a 
+	 * connection borrowed from the pool. The returned {@code DataRecord}s are
+	 * not in any commit pool, see {@code submitQuery()}.
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The {@code CompletableFuture} of the list of 
+	 *          {@code DataRecord}s, which is completed exceptionally by the 
+	 *          {@code SQLException} if an error occurred when querying the 
+	 *          database.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static CompletableFuture<List<DataRecord>> queryDataRecordsAsync(final String dataType, final String whereClause) {
+		return queryDataRecordsAsync(dataType, whereClause, getIoExecutor());
+	}
+	
+	/**
+	 * Query a list of {@code DataRecord}s asynchronously on its own session.
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @param  executor
+	 *         The executor to run the query. The query blocks its thread 
+	 *         until the result is read, so it should not be a pool of few 
+	 *         threads shared with the CPU work.
+	 *         
+	 * @return  The {@code CompletableFuture} of the list of 
+	 *          {@code DataRecord}s, which is completed exceptionally by the 
+	 *          {@code SQLException} if an error occurred when querying the 
+	 *          database.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static CompletableFuture<List<DataRecord>> queryDataRecordsAsync(final String dataType, final String whereClause, final Executor executor) {
+		getConnectionPool();
+		return IoExecutor.callAsync(() -> {
+			try (DataRecordSession session = openSession()) {
+				return session.queryDataRecords(dataType, whereClause);
+			}
+		}, executor);
+	}
+	
+	/**
+	 * Create a publisher of the {@code DataRecord}s of a query, which reads 
+	 * the rows by the executor of the submitted tasks.
+	 * 
+	 * <p>Each subscription runs the query on its own session and only reads 
+	 * the rows requested by the subscriber, see {@code DataRecordPublisher}.
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The publisher.
+	 * 
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static DataRecordPublisher publishDataRecords(final String dataType, final String whereClause) {
+		return publishDataRecords(dataType, whereClause, getIoExecutor());
+	}
+	
+	/**
+	 * Create a publisher of the {@code DataRecord}s of a query.
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @param  executor
+	 *         The executor to read the rows and call the subscribers.
+	 *         
+	 * @return  The publisher.
+	 * 
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static DataRecordPublisher publishDataRecords(final String dataType, final String whereClause, final Executor executor) {
+		Preconditions.checkArgument(!isNullOrEmpty(dataType), "dataType is null or empty");
+		getConnectionPool();
+		return new DataRecordPublisher(DataRecordManager::openSession, dataType, whereClause, executor);
+	}
+	
+	/**
+	 * Synchronize all the {@code DataRecord}s in the commit pool of the default
+	 * session with database asynchronously, by the executor of the submitted 
+	 * tasks.
+	 * 
+	 * <p>The commit runs on the default session, so the other calls on the 
+	 * default session wait until it is done. The records added to the commit 
+	 * pool after the commit has started are kept for the next commit.
+	 * 
+	 * @return  The {@code CompletableFuture} of the numbers of the written and
+	 *          skipped records, which is completed exceptionally by the 
+	 *          {@code SQLException} if an error occurred when committing the 
+	 *          result.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static CompletableFuture<CommitResult> storeAndCommitAsync() {
+		return storeAndCommitAsync(getIoExecutor());
+	}
+	
+	/**
+	 * Synchronize all the {@code DataRecord}s in the commit pool of the default
+	 * session with database asynchronously.
+	 * 
+	 * @param  executor
+	 *         The executor to run the commit.
+	 *         
+	 * @return  The {@code CompletableFuture} of the numbers of the written and
+	 *          skipped records, which is completed exceptionally by the 
+	 *          {@code SQLException} if an error occurred when committing the 
+	 *          result.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static CompletableFuture<CommitResult> storeAndCommitAsync(final Executor executor) {
+		final DataRecordSession session = getDefaultSession();
+		return IoExecutor.callAsync(session::storeAndCommit, executor);
+	}
+	
+	/**
+	 * Get the executor of the submitted tasks, create it if needed.
+	 */
+	private static IoExecutor getIoExecutor() {
+		final IoExecutor executor = ioExecutor;
+		if (executor != null) {
+			return executor;
+		}
+		
+		synchronized (DataRecordManager.class) {
+			getConnectionPool();
+			if (ioExecutor == null) {
+				ioExecutor = new IoExecutor(Math.max(1, poolMaxSize - 1), useVirtualThreads);   // the default session holds a connection
+			}
+			return ioExecutor;
+		}
+	}
+	
+	/**
+	 * Get the pool of the connections built by {@code buildConnection()}.
+	 * 
+	 * @return  The pool of the connections.
+	 * 
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static ConnectionPool getConnectionPool() {
+		final ConnectionPool connectionPool = pool;
+		Preconditions.checkState(connectionPool != null, "the connection has not been built");
+		return connectionPool;
+	}
+	
+	/**
+	 * Set the minimum and maximum number of the connections in the pool.
+	 * 
+	 * <p>The sizes are applied to the pool built by the next 
+	 * {@code buildConnection()} after {@code closeConnection()}.
+	 * 
+	 * @param  minSize
+	 *         The minimum number of the connections, can not be negative.
+	 *         
+	 * @param  maxSize
+	 *         The maximum number of the connections, can not be less than 
+	 *         {@code minSize} and must be positive.
+	 *         
+	 * @since   1.2
+	 */
+	public static synchronized void setConnectionPoolSize(final int minSize, final int maxSize) {
+		Preconditions.checkArgument(minSize >= 0, "minSize is negative");
+		Preconditions.checkArgument(maxSize > 0, "maxSize is not positive");
+		Preconditions.checkArgument(minSize <= maxSize, "minSize is greater than maxSize");
+		poolMinSize = minSize;
+		poolMaxSize = maxSize;
+	}
+	
+	/**
+	 * Get the default session used by the static methods.
+	 * 
+	 * @return  The default session.
+	 * 
+	 * @throws  IllegalStateException
+	 *          If {@code buildConnection()} has not been called.
+	 *          
+	 * @since   1.2
+	 */
+	public static DataRecordSession getDefaultSession() {
+		final DataRecordSession session = defaultSession;
+		Preconditions.checkState(session != null, "the connection has not been built");
+		return session;
+	}
+	
+	/**
+	 * Set the time-to-live of the cached column metadata.
+	 * 
+	 * <p>The default time-to-live is 5 minutes, and 0 will disable the cache.
+	 * 
+	 * @param  ttl
+	 *         The time-to-live, can not be negative.
+	 *         
+	 * @param  unit
+	 *         The time unit of the time-to-live.
+	 *         
+	 * @since   1.2
+	 */
+	public static void setColumnMetadataTtl(final long ttl, final TimeUnit unit) {
+		metadataCache.setTtl(ttl, unit);
+	}
+	
+	/**
+	 * Invalidate the cached column metadata of a table.
+	 * 
+	 * @param  tableName
+	 *         The name of the table.
+	 *         
+	 * @since   1.2
+	 */
+	public static void invalidateColumnMetadata(final String tableName) {
+		Preconditions.checkArgument(!isNullOrEmpty(tableName), "tableName is null or empty");
+		metadataCache.invalidate(tableName);
+	}
+	
+	/**
+	 * Invalidate the cached column metadata of all the tables.
+	 * 
+	 * @since   1.2
+	 */
+	public static void invalidateColumnMetadata() {
+		metadataCache.invalidateAll();
+	}
+	
+	/**
+	 * Set the write mode used by {@code storeAndCommit()}.
+	 * 
+	 * <p>The write mode is kept for the sessions opened later.
+	 * 
+	 * @param  writeMode
+	 *         The write mode for inserting new records.
+	 *         
+	 * @since   1.2
+	 */
+	public static synchronized void setDefaultWriteMode(final WriteMode writeMode) {
+		Preconditions.checkNotNull(writeMode);
+		defaultWriteMode = writeMode;
+		if (defaultSession != null) {
+			defaultSession.setDefaultWriteMode(writeMode);
+		}
+	}
+	
+	/**
+	 * Set the maximum number of records in one JDBC batch.
+	 * 
+	 * <p>The size is kept for the sessions opened later.
+	 * 
+	 * @param  size
+	 *         The maximum number of records in one batch, must be positive.
+	 *         
+	 * @since   1.2
+	 */
+	public static synchronized void setBatchSize(final int size) {
+		Preconditions.checkArgument(size > 0, "size is not positive");
+		batchSize = size;
+		if (defaultSession != null) {
+			defaultSession.setBatchSize(size);
+		}
+	}
+	
+	/**
+	 * Set the number of the pooled connections used by 
+	 * {@code storeAndCommit()}, see 
+	 * {@code DataRecordSession.setCommitParallelism()}.
+	 * 
+	 * <p>The parallelism is kept for the sessions opened later, it is limited 
+	 * by the maximum size of the pool, and a commit only uses the 
+	 * connections which are not in use.
+	 * 
+	 * @param  parallelism
+	 *         The number of the connections, must be positive.
+	 *         
+	 * @since   1.2
+	 */
+	public static synchronized void setCommitParallelism(final int parallelism) {
+		Preconditions.checkArgument(parallelism > 0, "parallelism is not positive");
+		commitParallelism = parallelism;
+		if (defaultSession != null) {
+			defaultSession.setCommitParallelism(Math.min(parallelism, getConnectionPool().getMaxSize()));
+		}
+	}
+	
+	/**
+	 * Set the number of records committed in one transaction by 
+	 * {@code storeAndCommit()}, see 
+	 * {@code DataRecordSession.setTransactionChunkSize()}.
+	 * 
+	 * <p>The size is kept for the sessions opened later.
+	 * 
+	 * @param  size
+	 *         The number of records in one transaction, or 0 for one 
+	 *         transaction per commit.
+	 *         
+	 * @since   1.2
+	 */
+	public static synchronized void setTransactionChunkSize(final int size) {
+		Preconditions.checkArgument(size >= 0, "size is negative");
+		transactionChunkSize = size;
+		if (defaultSession != null) {
+			defaultSession.setTransactionChunkSize(size);
+		}
+	}
+	
+	/**
+	 * Bound the commit pool by the number of records and the estimated 
+	 * bytes, see {@code DataRecordSession.setCommitPoolLimit()}.
+	 * 
+	 * <p>The limits are kept for the sessions opened later.
+	 * 
+	 * @param  maxRecords
+	 *         The maximum number of records, 0 for unbounded.
+	 *         
+	 * @param  maxBytes
+	 *         The maximum estimated bytes of the records, 0 for unbounded.
+	 *         
+	 * @since   1.2
+	 */
+	public static synchronized void setCommitPoolLimit(final int maxRecords, final long maxBytes) {
+		Preconditions.checkArgument(maxRecords >= 0, "maxRecords is negative");
+		Preconditions.checkArgument(maxBytes >= 0, "maxBytes is negative");
+		commitPoolLimit     = maxRecords;
+		commitPoolByteLimit = maxBytes;
+		if (defaultSession != null) {
+			defaultSession.setCommitPoolLimit(maxRecords, maxBytes);
+		}
+	}
+	
+	/**
+	 * Set the maximum number of the cached prepared statements.
+	 * 
+	 * <p>The size is kept for the sessions opened later.
+	 * 
+	 * @param  size
+	 *         The maximum number of the cached statements, must be positive.
+	 *         
+	 * @throws  SQLException
+	 *          If there is any error when closing the evicted statements.
+	 *          
+	 * @since   1.2
+	 */
+	public static synchronized void setStatementCacheSize(final int size) throws SQLException {
+		Preconditions.checkArgument(size > 0, "size is not positive");
+		statementCacheSize = size;
+		if (defaultSession != null) {
+			defaultSession.setStatementCacheSize(size);
+		}
+	}
+	
+	/**
+	 * Create a new {@code DataRecord} object in the commit pool of the default
+	 * session.
+	 * 
+	 * @param  dataType
+	 *         The table name in the database matches to the new 
+	 *         {@code DataRecord}.
+	 *         
+	 * @return  The new created {@code DataRecord}.
+	 * 
+	 * @since   1.1
+	 */
+	public static DataRecord addDataRecord(final String dataType) {
+		return getDefaultSession().addDataRecord(dataType);
+	}
+	
+	/**
+	 * Add an existing {@code DataRecord} to the commit pool of the default 
+	 * session, like a {@code DataRecord} modified again after it has been 
+	 * committed.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be synchronized later on.
+	 *         
+	 * @since   1.2
+	 */
+	public static void addDataRecord(final DataRecord dataRecord) {
+		getDefaultSession().addDataRecord(dataRecord);
+	}
+	
+	/**
+	 * Create an off-heap arena for the {@code DataRecord}s of a table.
+	 * 
+	 * @param  dataType
+	 *         The table name in the database matches to the 
+	 *         {@code DataRecord}s.
+	 *         
+	 * @param  capacity
+	 *         The size of the arena in bytes.
+	 *         
+	 * @return  The arena with the schema of the table.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when querying the columns of the table.
+	 *          
+	 * @since   1.2
+	 */
+	public static RecordArena createRecordArena(final String dataType, final int capacity) throws SQLException {
+		return getDefaultSession().createRecordArena(dataType, capacity);
+	}
 	
 	/**
-	 * <p>This commit pool is to store all DataRecords in memory temporarily.
-	 * The DataRecord in this pool is waiting to be synchronized to database 
-	 * or modified in memory.
+	 * Add a new {@code DataRecord} stored in an arena to the commit pool of the
+	 * default session.
 	 * 
-	 * <p>Run addDataRecord() function will create and add a new DataRecord 
-	 * into this commit pool.
+	 * @param  arena
+	 *         The arena stores the values of the new {@code DataRecord}.
+	 *         
+	 * @return  The new created {@code DataRecord}.
 	 * 
-	 * <p>Run storeAndCommit() function will synchronize all the DataRecords 
-	 * in this commit pool with database and clean up this commit pool.
+	 * @since   1.2
 	 */
-	protected static List<DataRecord> commitPool = new ArrayList<>();
+	public static DataRecord addDataRecord(final RecordArena arena) {
+		return getDefaultSession().addDataRecord(arena);
+	}
 	
-	private DataRecordManager() {}
+	/**
+	 * Synchronize all the {@code DataRecord}s in the commit pool of the default
+	 * session with database, by the default write mode.
+	 * 
+	 * @return  The numbers of the written and skipped records.
+	 * 
+	 * @throws  SQLException
+	 *          If the type of a field in the {@code DataRecord} can not match 
+	 *          the type of the column in the database, or there is an error 
+	 *          occurred when committing the result.
+	 *          
+	 * @since   1.1
+	 */
+	public static CommitResult storeAndCommit() throws SQLException {
+		return getDefaultSession().storeAndCommit();
+	}
 	
 	/**
-	 * Build database connection.
+	 * Synchronize all the {@code DataRecord}s in the commit pool of the default
+	 * session with database.
 	 * 
-	 * @param  type
-	 *         The database type.
+	 * @param  writeMode
+	 *         The write mode for inserting new records.
 	 *         
-	 * @param  config
-	 *         The generic database configuration.
+	 * @return  The numbers of the written and skipped records.
 	 * 
 	 * @throws  SQLException
-	 *          If there is any error when connecting to database.
+	 *          If the type of a field in the {@code DataRecord} can not match 
+	 *          the type of the column in the database, or there is an error 
+	 *          occurred when committing the result.
 	 *          
-	 * @throws  ClassNotFoundException
-	 *          If the driver class is not found in the class path.
+	 * @since   1.2
+	 */
+	public static CommitResult storeAndCommit(final WriteMode writeMode) throws SQLException {
+		return getDefaultSession().storeAndCommit(writeMode);
+	}
+	
+	/**
+	 * Query a list of {@code DataRecord}s from database.
+	 * 
+	 * <p>The list will be also added to the commit pool of the default session
+	 * for updating back to the database later on.
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The list of {@code DataRecord}s.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when querying the database.
 	 *          
 	 * @since   1.1
 	 */
-	public static void buildConnection(final DbType type, final GenericDbConfig config) throws SQLException, ClassNotFoundException {
-		commitPool = new ArrayList<>();
-		DataRecordManager.type = type;
-		Class.forName(type.getDriverClass());
-		if (connect == null || connect.isClosed()) {
-			connect = DriverManager.getConnection(type.buildUrl(config), config.getUsername(), config.getPassword());
-		}
+	public static List<DataRecord> queryDataRecords(final String dataType, final String whereClause) throws SQLException {
+		return getDefaultSession().queryDataRecords(dataType, whereClause);
 	}
 	
 	/**
-	 * Close database connection.
+	 * Query the database and store the {@code DataRecord}s in an arena.
+	 * 
+	 * <p>The list will be also added to the commit pool of the default session
+	 * for updating back to the database later on.
+	 * 
+	 * @param  arena
+	 *         The arena of the table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The list of {@code DataRecord}s.
 	 * 
-	 * <p>MySQL has a parameter called "wait_timeout". The default value is 8 
-	 * hours. If there is no activity in 8 hours, MySQL would disable that 
-	 * connection. So in that case, you must close the previous connection and 
-	 * re-build a new connection.
-	 *
 	 * @throws  SQLException
-	 *          If there is any error when closing the connection.
+	 *          If an error occurred when querying the database.
 	 *          
-	 * @since   1.1
+	 * @since   1.2
 	 */
-	public static void closeConnection() throws SQLException {
-		if (connect != null && !connect.isClosed()) {
-			connect.close();
-		}
+	public static List<DataRecord> queryDataRecords(final RecordArena arena, final String whereClause) throws SQLException {
+		return getDefaultSession().queryDataRecords(arena, whereClause);
 	}
 	
 	/**
-	 * Create a new {@code DataRecord} object.
+	 * Open a cursor on the default session to read the {@code DataRecord}s of
+	 * a query one by one.
 	 * 
-	 * <p>This function will create and return a blank {@code DataRecord} 
-	 * object for developers to message a new record. Also, this function will 
-	 * add this new {@code DataRecord} object to the internal commit pool of 
-	 * {@code DataRecordManager}.
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The cursor, which must be closed after use.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	public static DataRecordCursor openCursor(final String dataType, final String whereClause) throws SQLException {
+		return getDefaultSession().openCursor(dataType, whereClause);
+	}
+	
+	/**
+	 * Open a cursor on the default session to read the {@code DataRecord}s of
+	 * a query one by one.
 	 * 
 	 * @param  dataType
-	 *         The table name in the database matches to the new 
-	 *         {@code DataRecord}.
+	 *         The name of table needs to be queried.
 	 *         
-	 * @return  The new created {@code DataRecord}.
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @param  addToCommitPool
+	 *         {@code true} if the read {@code DataRecord}s should be added to 
+	 *         the commit pool for updating back to the database later on;
+	 *         {@code false} otherwise.
+	 *         
+	 * @return  The cursor, which must be closed after use.
 	 * 
-	 * @since   1.1
+	 * @throws  SQLException
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
 	 */
-	public static DataRecord addDataRecord(final String dataType) {
-		Preconditions.checkNotNull(commitPool);
-		
-		final DataRecord newDataRecord = new DataRecord(dataType);
-		commitPool.add(newDataRecord);
-		return newDataRecord;
+	public static DataRecordCursor openCursor(final String dataType, final String whereClause, final boolean addToCommitPool) throws SQLException {
+		return getDefaultSession().openCursor(dataType, whereClause, addToCommitPool);
 	}
 	
 	/**
-	 * Synchronize all the {@code DataRecord}s in this commit pool with 
-	 * database.
+	 * Read the {@code DataRecord}s of a query one by one on the default session
+	 * and pass each of them to an action.
 	 * 
-	 * <p>First, this method will verify the type of each field are matching 
-	 * the type of the corresponding column in the database. 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @param  action
+	 *         The action to be performed for each {@code DataRecord}.
+	 *         
+	 * @throws  SQLException
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	public static void forEachDataRecord(final String dataType, final String whereClause, final Consumer<DataRecord> action) throws SQLException {
+		getDefaultSession().forEachDataRecord(dataType, whereClause, action);
+	}
+	
+	/**
+	 * Query the database on the default session and read the result
+	 * column-wise.
 	 * 
-	 * <p>Second, this method will try to synchronize all the 
-	 * {@code DataRecord}s in commit pool with database.
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The {@code DataRecordBatch} contains all the rows.
 	 * 
 	 * @throws  SQLException
-	 *          If the type of a field in the {@code DataRecord} can not match 
-	 *          the type of the column in the database, or there is an error 
-	 *          occurred when committing the result.
+	 *          If an error occurred when querying the database.
 	 *          
+	 * @since   1.2
+	 */
+	public static DataRecordBatch queryDataRecordBatch(final String dataType, final String whereClause) throws SQLException {
+		return getDefaultSession().queryDataRecordBatch(dataType, whereClause);
+	}
+	
+	/**
+	 * Get the size of the commit pool of the default session.
+	 * 
+	 * @return  The size of the commit pool.
+	 * 
 	 * @since   1.1
 	 */
-	public static void storeAndCommit() throws SQLException {
-		Preconditions.checkNotNull(commitPool);
-		
-		for (DataRecord dataRecord : commitPool) {
-			verifyDataField(dataRecord.getDataTypeName(), dataRecord.getTypeFields());
-		}
-		
-		for(DataRecord dataRecord : commitPool) {
-			synchronizeDataRecordWithDatabase(dataRecord);
-		}
+	public static int getSizeOfCommitPool() {
+		return getDefaultSession().getSizeOfCommitPool();
 	}
 	
 	/**
@@ -177,23 +1036,19 @@ public class DataRecordManager implements DataRecordManagerConstants {
 	 *          the type of the column in the database.
 	 *          
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.verifyDataField()} of the 
+	 *              default session instead.
 	 */
+	@Deprecated
 	protected static void verifyDataField(final DataRecord dataRecord) throws SQLException {
-		Preconditions.checkNotNull(dataRecord);
-		verifyDataField(dataRecord.getDataTypeName(), dataRecord.getTypeFields());
+		getDefaultSession().verifyDataField(dataRecord);
 	}
 	
 	/**
 	 * Verify the type of each field in the {@code DataRecord} can match the 
 	 * type of the columns in the database.
 	 * 
-	 * <p>First, this method will get the meta data of the table based on the 
-	 * data type of the {@code DataRecord}.
-	 * 
-	 * <p>Second, this method will get all the data fields in the 
-	 * {@code DataRecord} and verify the column type matching between the 
-	 * {@code DataRecord} and the database table.
-	 * 
 	 * @param  tableName
 	 *         The table name.
 	 * 
@@ -205,43 +1060,18 @@ public class DataRecordManager implements DataRecordManagerConstants {
 	 *          the type of the column in the database.
 	 *          
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.verifyDataField()} of the 
+	 *              default session instead.
 	 */
-	protected static void verifyDataField(final String tableName, final Map<String, Class<?>> typeMap) throws SQLException{
-		Preconditions.checkNotNull(tableName);
-		Preconditions.checkNotNull(typeMap);
-		
-		final Map<String, Class<?>> columnTypes = getColumnMetadata(tableName);    // Get relevant table schema from database
-		
-		for (Map.Entry<String, Class<?>> entry : typeMap.entrySet()) {
-			if (columnTypes.containsKey(entry.getKey())) {
-				if (entry.getValue() == columnTypes.get(entry.getKey())) {
-					continue;
-				} else {
-					throw new SQLException("The type of " + entry.getKey() + " is " + entry.getValue() 
-							+ ". Can not match " + columnTypes.get(entry.getKey()) + " in table " + tableName);
-				}
-			} else {
-				throw new SQLException(tableName + " doesn't has column: " + entry.getKey());
-			}
-		}
+	@Deprecated
+	protected static void verifyDataField(final String tableName, final Map<String, Class<?>> typeMap) throws SQLException {
+		getDefaultSession().verifyDataField(tableName, typeMap);
 	}
 	
 	/**
 	 * Get the metadata of a table in database.
 	 * 
-	 * <p>This function will get the metadata of a table and then
-	 * convert the type of column to Java primitive type and message
-	 * as a {@code Map}.
-	 * 
-	 * <p>The relationship between the MySQL column types and Java 
-	 * primitive types:
-	 * <ul>
-	 * 	<li>VARCHAR => String
-	 * 	<li>INT => Integer
-	 * 	<li>BIGINT => Long
-	 * 	<li>DOUBLE => Double
-	 * </ul>
-	 * 
 	 * @param  tableName
 	 *         The name of the table needs to be inquired.
 	 *         
@@ -251,32 +1081,18 @@ public class DataRecordManager implements DataRecordManagerConstants {
 	 *          If the error occurred when querying the database.
 	 *          
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.getColumnMetadata()} of the 
+	 *              default session instead.
 	 */
+	@Deprecated
 	protected static Map<String, Class<?>> getColumnMetadata(final String tableName) throws SQLException {
-		Preconditions.checkNotNull(connect);
-		Preconditions.checkArgument(!isNullOrEmpty(tableName), "tableName is null or empty");
-		
-		final Map<String, Class<?>> columnTypes = new LinkedHashMap<>();
-		
-		try (final Statement statement   = connect.createStatement();
-		     final ResultSet rs          = statement.executeQuery(SELECT_STATEMENT + tableName)) {
-			final ResultSetMetaData     metadata    = rs.getMetaData();
-			for (int i = 1; i <= metadata.getColumnCount(); i++) {
-				columnTypes.put(metadata.getColumnName(i), COLUMN_TYPE_MAP.get(metadata.getColumnTypeName(i)));
-			}
-		}
-			
-		return columnTypes; 
+		return getDefaultSession().getColumnMetadata(tableName);
 	}
 	
 	/**
 	 * Synchronize one {@code DataRecord} with database.
 	 * 
-	 * <p>If database already had a corresponding record for that 
-	 * {@code DataRecord}, just need to use the update operation. If the 
-	 * {@code DataRecord} is a new one for database, this method needs to call 
-	 * insert operation.
-	 * 
 	 * @param  dataRecord
 	 *         The {@code DataRecord} needs to be synchronized.
 	 *         
@@ -285,88 +1101,33 @@ public class DataRecordManager implements DataRecordManagerConstants {
 	 *          inserting a new record with database.
 	 *          
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.synchronizeDataRecordWithDatabase()} 
+	 *              of the default session instead.
 	 */
+	@Deprecated
 	protected static void synchronizeDataRecordWithDatabase(final DataRecord dataRecord) throws SQLException {
-		Preconditions.checkNotNull(dataRecord);
-		
-		if(dataRecord.isNewRecordForDatabase()) {
-			insertDataRecordBase(dataRecord);
-		} else {
-			updateDataRecord(dataRecord);
-		}
+		getDefaultSession().synchronizeDataRecordWithDatabase(dataRecord);
 	}
-
+	
 	/**
 	 * Update the {@code DataRecord} in memory to the database.
 	 * 
-	 * <p>The function will use RecordId to map the record in database and 
-	 * the corresponding {@code DataRecord} in memory. And then compare the 
-	 * difference between them and update the record in database.
-	 * 
-	 * <p>The process of this function:
-	 * <ul>
-	 * 	<li>Use RecordId to query the database and get record as DataRecord.
-	 *  <li>Check there is only one record for a certain RecordId in database.
-	 *  <li>Compare two DataRecords between database one and memory one. 
-	 *      Construct a new DataRecord which captures the difference.
-	 *  <li>Update the corresponding record in database.
-	 * </ul>
-	 * 
 	 * @param  dataRecordMem
 	 *         The {@code DataRecord} in memory.
 	 *         
-	 * @throws SQLException
-	 *         If the error occurred when querying the database or updating 
-	 *         the database.
-	 *         
-	 * @since   1.1
-	 */
-	protected static void updateDataRecord(final DataRecord dataRecordMem) throws SQLException {
-		Preconditions.checkNotNull(dataRecordMem);
-		
-		final String whereClause = RECORD_IDENTIFIER + " = " + dataRecordMem.getRecordId();
-		final List<DataRecord> dataRecordList = queryDataRecordsBase(dataRecordMem.getDataTypeName(), whereClause);
-		
-		if (dataRecordList.size() != 1) {
-			if (dataRecordList.isEmpty()) {
-				throw new SQLException(dataRecordMem.getDataTypeName() + " doesn't have a record for " + RECORD_IDENTIFIER + ": " + dataRecordMem.getRecordId());
-			} else if (dataRecordList.size() > 1) {
-				throw new SQLException(dataRecordMem.getDataTypeName() + " has multiple records for " + RECORD_IDENTIFIER + ": " + dataRecordMem.getRecordId());
-			}
-		}
-		final DataRecord dataRecordDb = dataRecordList.get(0);
-		
-		final DataRecord diff = compareAndGetDiff(dataRecordDb, dataRecordMem);
-		diff.setRecordId(dataRecordDb.getRecordId());
-		
-		updateDataRecordBase(diff);
-	}
-
-	/**
-	 * Query a list of {@code DataRecord}s from database.
-	 * 
-	 * <p>After querying the list of {@code DataRecord}s. The list will be also added 
-	 * to commitPool for updating back to the database later on.
-	 * 
-	 * @param  dataType
-	 *         The name of table needs to be queried.
-	 *         
-	 * @param  whereClause
-	 *         The where clause of the query.
-	 *         
-	 * @return  The list of {@code DataRecord}s.
-	 * 
-	 * @throws  SQLException 
-	 *          If an error occurred when querying the database.
+	 * @throws  SQLException
+	 *          If the error occurred when querying the database or updating 
+	 *          the database.
 	 *          
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.updateDataRecord()} of the 
+	 *              default session instead.
 	 */
-	public static List<DataRecord> queryDataRecords(final String dataType, final String whereClause) throws SQLException  {
-		Preconditions.checkArgument(!isNullOrEmpty(dataType), "dataType is null or empty");
-		
-		final List<DataRecord> dataRecordList = queryDataRecordsBase(dataType, whereClause);
-		commitPool.addAll(dataRecordList);
-		return dataRecordList;
+	@Deprecated
+	protected static void updateDataRecord(final DataRecord dataRecordMem) throws SQLException {
+		getDefaultSession().updateDataRecord(dataRecordMem);
 	}
 	
 	/**
@@ -379,41 +1140,37 @@ public class DataRecordManager implements DataRecordManagerConstants {
 	 *          If an error occurred when inserting the record into database.
 	 *          
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.insertDataRecordBase()} of the 
+	 *              default session instead.
 	 */
+	@Deprecated
 	protected static void insertDataRecordBase(final DataRecord dataRecord) throws SQLException {
-		Preconditions.checkNotNull(connect);
-		
-		try (final Statement statement = connect.createStatement()) {
-			final String sqlStatement = generateSQLInsertStatement(dataRecord);
-			System.out.println(sqlStatement);
-			statement.executeUpdate(sqlStatement);	
-		}
+		getDefaultSession().insertDataRecordBase(dataRecord);
 	}
 	
 	/**
 	 * Update one {@code DataRecord} into database.
 	 * 
-	 * @param  dataRecord
-	 *         The {@code DataRecord} needs to be updated.
+	 * @param  diff
+	 *         The {@code DataRecord} to capture the fields needs to be updated.
 	 *         
 	 * @throws  SQLException
 	 *          If an error occurred when updating the record into database.
 	 *          
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.updateDataRecordBase()} of the 
+	 *              default session instead.
 	 */
+	@Deprecated
 	protected static void updateDataRecordBase(final DataRecord diff) throws SQLException {
-		try (final Statement statement = connect.createStatement()) {
-			final String sqlStatement = generateSQLUpdateStatement(diff);
-			statement.executeUpdate(sqlStatement);
-		}
+		getDefaultSession().updateDataRecordBase(diff);
 	}
 	
 	/**
 	 * Query a list of {@code DataRecord}s from database.
 	 * 
-	 * <p>This method will query the table and get a list of matched results. 
-	 * And message the results to the list of {@code DataRecord}s.
-	 * 
 	 * @param  dataType
 	 *         The name of the table.
 	 * 
@@ -426,60 +1183,17 @@ public class DataRecordManager implements DataRecordManagerConstants {
 	 *          If an error occurred when querying the database.
 	 *          
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.queryDataRecordsBase()} of the 
+	 *              default session instead.
 	 */
+	@Deprecated
 	protected static List<DataRecord> queryDataRecordsBase(final String dataType, final String whereClause) throws SQLException {
-		Preconditions.checkNotNull(connect);
-		Preconditions.checkNotNull(commitPool);
-		
-		final List<DataRecord> dataRecordList = new ArrayList<>();
-		final String sqlStatement = generateSQLQueryStatement(dataType, whereClause);
-		
-		try (final Statement statement = connect.createStatement();
-			 final ResultSet rs        = statement.executeQuery(sqlStatement)) {
-		
-			final Map<String, Class<?>> columnTypes = getColumnMetadata(dataType);
-		
-			while(rs.next()) {
-				final DataRecord dataRecord = new DataRecord(dataType, false);            // specify this DataRecord is not new one to database
-				dataRecord.setRecordId(rs.getLong(RECORD_IDENTIFIER));
-				for (Map.Entry<String, Class<?>> entry : columnTypes.entrySet()) {
-					dataRecord.getTypeFields().put(entry.getKey(), entry.getValue());
-					if (entry.getValue() == String.class) {
-						dataRecord.getValueFields().put(entry.getKey(), rs.getString(entry.getKey()));
-					}
-					if (entry.getValue() == Integer.class) {
-						dataRecord.getValueFields().put(entry.getKey(), rs.getInt(entry.getKey()));
-					}
-					if (entry.getValue() == Long.class) {
-						dataRecord.getValueFields().put(entry.getKey(), rs.getLong(entry.getKey()));
-					}
-					if (entry.getValue() == Double.class) {
-						dataRecord.getValueFields().put(entry.getKey(), rs.getDouble(entry.getKey()));
-					}
-				}
-				dataRecordList.add(dataRecord);
-			}
-		}
-		
-		return dataRecordList;
+		return getDefaultSession().queryDataRecordsBase(dataType, whereClause);
 	}
 	
 	/**
-	 * Generate the SQL insert statement for one {@code DataRecord}.
-	 * 
-	 * <p>This function is to generate SQL insert statement and return the SQL
-	 * statement like: 
-	 * <pre>
-	 * INSERT INTO table (column1, column2, column3) 
-	 * VALUES (abc, 123, 12.4)
-	 * </pre>
-	 * 
-	 * <p>This function will automatically handle the mapping between each 
-	 * column name and its values. It totally avoids developer to write a long 
-	 * SQL statement or waste time on checking column mapping. 
-	 * 
-	 * <p>Also, developers also don't need to leave a white space when they 
-	 * are trying to message SQL statement.
+	 * Generate a SQL insert statement based on a {@code DataRecord}.
 	 * 
 	 * @param  dataRecord
 	 *         The {@code DataRecord} needs to be inserted.
@@ -487,131 +1201,56 @@ public class DataRecordManager implements DataRecordManagerConstants {
 	 * @return  The SQL insert statement.
 	 * 
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.generateSQLInsertStatement()} 
+	 *              instead.
 	 */
+	@Deprecated
 	protected static String generateSQLInsertStatement(final DataRecord dataRecord) {
-		final StringBuilder sqlStatement = new StringBuilder();
-		final StringBuilder columnSb     = new StringBuilder();
-		final StringBuilder valueSb      = new StringBuilder();
-		
-		for (Map.Entry<String, Object> entry : dataRecord.getValueFields().entrySet()) {
-			// add column name
-			columnSb.append(entry.getKey()).append(",");
-			
-			// add value
-			if (dataRecord.getTypeFields().get(entry.getKey()) == String.class) {
-				valueSb.append("'").append(SqlUtil.insertValueWithSingleQuote((String) entry.getValue())).append("'").append(",");  // double the single quote if the value is string
-			}
-			if (dataRecord.getTypeFields().get(entry.getKey()) == Integer.class) {
-				valueSb.append((Integer)entry.getValue()).append(",");
-			}
-			if (dataRecord.getTypeFields().get(entry.getKey()) == Long.class) {
-				valueSb.append((Long) entry.getValue()).append(",");
-			}
-			if (dataRecord.getTypeFields().get(entry.getKey()) == Double.class) {
-				valueSb.append((Double) entry.getValue()).append(",");
-			}
-		}
-		
-		// Build SQL statement
-		sqlStatement.append("INSERT INTO " + dataRecord.getDataTypeName() + " ");
-		sqlStatement.append("(").append(columnSb.substring(0, columnSb.length()-1)).append(") ");
-		sqlStatement.append("VALUES ");
-		sqlStatement.append("(").append(valueSb.substring(0, valueSb.length()-1)).append(")");
-		
-		return sqlStatement.toString();
+		return DataRecordSession.generateSQLInsertStatement(dataRecord);
 	}
 	
 	/**
-	 * Generate SQL update statement for one {@code DataRecord}.
-	 * 
-	 * <p>This function is to generate SQL update statement and return the SQL
-	 * statement like: 
-	 * <pre>
-	 * UPDATE table SET column1='abc', column2=12 
-	 * WHERE RecordId = 123.
-	 * </pre>
-	 * 
-	 * <p>This function will automatically handle the mapping between each 
-	 * column name and it updated value. It totally avoids developer to write 
-	 * a long SQL statement or waste time on checking column mapping.
-	 * 
-	 * <p>Also, developers also don't need to leave a white space when they 
-	 * are trying to message SQL statement.
+	 * Generate a SQL update statement based on a {@code DataRecord}.
 	 * 
 	 * @param  diff
 	 *         The {@code DataRecord} to capture the fields needs to be updated.
-	 *  
+	 *         
 	 * @return  The SQL update statement.
 	 * 
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.generateSQLUpdateStatement()} 
+	 *              instead.
 	 */
+	@Deprecated
 	protected static String generateSQLUpdateStatement(final DataRecord diff) {
-		final StringBuilder sqlStatement = new StringBuilder();
-		final StringBuilder assignSb     = new StringBuilder();
-		
-		for (Map.Entry<String, Object> entry : diff.getValueFields().entrySet()) {
-			if (diff.getTypeFields().get(entry.getKey()) == String.class) {
-				assignSb.append(entry.getKey()).append("=").append("'").append(SqlUtil.insertValueWithSingleQuote((String) entry.getValue())).append("'").append(",");  // double the single quote if the value is string
-			}
-			if (diff.getTypeFields().get(entry.getKey()) == Integer.class) {
-				assignSb.append(entry.getKey()).append("=").append((Integer)entry.getValue()).append(",");
-			}
-			if (diff.getTypeFields().get(entry.getKey()) == Long.class) {
-				assignSb.append(entry.getKey()).append("=").append((Long) entry.getValue()).append(",");
-			}
-			if (diff.getTypeFields().get(entry.getKey()) == Double.class) {
-				assignSb.append(entry.getKey()).append("=").append((Double) entry.getValue()).append(",");
-			}
-		}
-		
-		// Build SQL statement
-		sqlStatement.append("UPDATE " + diff.getDataTypeName() + " ");
-		sqlStatement.append("SET ").append(assignSb.substring(0, assignSb.length()-1)).append(" ");
-		sqlStatement.append("WHERE " + RECORD_IDENTIFIER + " = " + diff.getRecordId());
-		
-		return sqlStatement.toString();
+		return DataRecordSession.generateSQLUpdateStatement(diff);
 	}
 	
 	/**
-	 * Generate SQL query statement for one {@code DataRecord}.
-	 * 
-	 * <p>This function is to generate SQL query statement and return the SQL
-	 * statement like: 
-	 * <pre>
-	 * SELECT * FROM table WHERE column = 'abc'.
-	 * </pre>
-	 * 
-	 * <p>This function will automatically handle the mapping between each 
-	 * column name and its values.
+	 * Generate a SQL query statement.
 	 * 
 	 * @param  dataType
 	 *         The name of the table.
 	 *         
 	 * @param  whereClause
-	 *         The where clause.
+	 *         The where clause of the query.
 	 *         
 	 * @return  The SQL query statement.
 	 * 
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.generateSQLQueryStatement()} 
+	 *              instead.
 	 */
+	@Deprecated
 	protected static String generateSQLQueryStatement(final String dataType, final String whereClause) {
-		Preconditions.checkArgument(!isNullOrEmpty(dataType), "dataType is null or empty");
-		
-		final StringBuilder sqlStatement = new StringBuilder();
-		if (isNullOrEmpty(whereClause)) {
-			sqlStatement.append(SELECT_STATEMENT + dataType);
-		} else {
-			sqlStatement.append(SELECT_STATEMENT + dataType + " WHERE ").append(whereClause);
-		}
-		return sqlStatement.toString();
+		return DataRecordSession.generateSQLQueryStatement(dataType, whereClause);
 	}
 	
 	/**
-	 * Compare two {@code DataRecord}s.
-	 * 
-	 * <p>This method will compare two {@code DataRecord}s and return a new 
-	 * {@code DataRecord} to capture the value difference between them by 
-	 * populating the new {@code DataRecord} with the values in df2.
+	 * Compare two {@code DataRecord}s and get the difference.
 	 * 
 	 * @param  dr1
 	 *         The first {@code DataRecord}.
@@ -619,36 +1258,47 @@ public class DataRecordManager implements DataRecordManagerConstants {
 	 * @param  dr2
 	 *         The second {@code DataRecord}.
 	 *         
-	 * @return  The new {@code DataRecord} to reflect the differences by the 
-	 *          field name and the values in the dr2.
+	 * @return  The {@code DataRecord} with the fields of {@code dr2} which 
+	 *          are different from {@code dr1}.
 	 *          
 	 * @since   1.1
+	 * 
+	 * @deprecated  Use {@code DataRecordSession.compareAndGetDiff()} instead.
 	 */
+	@Deprecated
 	protected static DataRecord compareAndGetDiff(final DataRecord dr1, final DataRecord dr2) {
-		Preconditions.checkNotNull(dr1);
-		Preconditions.checkNotNull(dr2);
-		Preconditions.checkArgument(dr1.getDataTypeName().equalsIgnoreCase(dr2.getDataTypeName()));
-		
-		final DataRecord diff = new DataRecord(dr1.getDataTypeName());
-		
-		for (Map.Entry<String, Object> entry : dr1.getValueFields().entrySet()) {
-			if(entry.getValue() != dr2.getValueFields().get(entry.getKey())) {
-				diff.getValueFields().put(entry.getKey(), dr2.getValueFields().get(entry.getKey()));         // the new value should be based on dr2
-				diff.getTypeFields().put(entry.getKey(), dr2.getTypeFields().get(entry.getKey()));
-			}
-		}
-		
-		return diff;
+		return DataRecordSession.compareAndGetDiff(dr1, dr2);
 	}
 	
 	/**
-	 * Get the size of the commit pool in the {@code DataRecordManager}.
-	 * 
-	 * @return  The size of the commit pool.
-	 * 
-	 * @since   1.1
+	 * The view of the commit pool of the default session, for the deprecated 
+	 * {@code commitPool}.
 	 */
-	public static int getSizeOfCommitPool() {
-		return commitPool.size();
+	private static final class CommitPoolView extends AbstractList<DataRecord> {
+		@Override
+		public DataRecord get(final int index) {
+			return getDefaultSession().getCommitPoolSnapshot().get(index);
+		}
+		
+		@Override
+		public Iterator<DataRecord> iterator() {
+			return Collections.unmodifiableList(getDefaultSession().getCommitPoolSnapshot()).iterator();
+		}
+		
+		@Override
+		public int size() {
+			return getDefaultSession().getSizeOfCommitPool();
+		}
+		
+		@Override
+		public boolean add(final DataRecord dataRecord) {
+			getDefaultSession().addDataRecord(dataRecord);
+			return true;
+		}
+		
+		@Override
+		public void clear() {
+			getDefaultSession().clearCommitPool();
+		}
 	}
 }
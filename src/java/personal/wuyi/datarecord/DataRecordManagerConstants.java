@@ -16,8 +16,10 @@
 
 package personal.wuyi.datarecord;
 
+import java.sql.Types;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Interface to store constants for {@code DataRecordManager}.
@@ -39,21 +41,108 @@ interface DataRecordManagerConstants {
 	 * <ul>
 	 * 	<li>VARCHAR => String
 	 * 	<li>INT => Integer
+	 * 	<li>INTEGER => Integer (the name of INT reported by H2)
 	 * 	<li>BIGINT => Long
 	 * 	<li>DOUBLE => Double
 	 * </ul>
+	 * 
+	 * <p>The names reported by the PostgreSQL driver are also mapped: 
+	 * {@code int4} and {@code serial} to Integer, {@code int8} and 
+	 * {@code bigserial} to Long, {@code float8} to Double. The lookup is 
+	 * case-insensitive, PostgreSQL reports the names in lower case.
 	 */
-	Map<String, Class<?>> COLUMN_TYPE_MAP = new HashMap<String, Class<?>>() {
+	Map<String, Class<?>> COLUMN_TYPE_MAP = new TreeMap<String, Class<?>>(String.CASE_INSENSITIVE_ORDER) {
 		private static final long serialVersionUID = 1L;
 		
 		{
-			put("VARCHAR", String.class);
-			put("INT",     Integer.class);
-			put("BIGINT",  Long.class);
-			put("DOUBLE",  Double.class);
+			put("VARCHAR",   String.class);
+			put("INT",       Integer.class);
+			put("INTEGER",   Integer.class);
+			put("BIGINT",    Long.class);
+			put("DOUBLE",    Double.class);
+			put("INT4",      Integer.class);
+			put("SERIAL",    Integer.class);
+			put("INT8",      Long.class);
+			put("BIGSERIAL", Long.class);
+			put("FLOAT8",    Double.class);
 		}
 	};
 	
+	/**
+	 * Mapping between Java primitive type and the SQL type for binding a 
+	 * {@code null} value into a prepared statement:
+	 * <ul>
+	 * 	<li>String => VARCHAR
+	 * 	<li>Integer => INTEGER
+	 * 	<li>Long => BIGINT
+	 * 	<li>Double => DOUBLE
+	 * </ul>
+	 */
+	Map<Class<?>, Integer> SQL_TYPE_MAP = new HashMap<Class<?>, Integer>() {
+		private static final long serialVersionUID = 1L;
+		
+		{
+			put(String.class,  Types.VARCHAR);
+			put(Integer.class, Types.INTEGER);
+			put(Long.class,    Types.BIGINT);
+			put(Double.class,  Types.DOUBLE);
+		}
+	};
+	
+	/** The default number of records in one JDBC batch. */
+	int DEFAULT_BATCH_SIZE = 1000;
+	
+	/** The default minimum number of the connections in the pool. */
+	int DEFAULT_POOL_MIN_SIZE = 1;
+	
+	/** The default maximum number of the connections in the pool. */
+	int DEFAULT_POOL_MAX_SIZE = 10;
+	
+	/** The maximum number of bind parameters in one MySQL statement. */
+	int MYSQL_MAX_PARAMETERS = 65535;
+	
+	/** The maximum number of bind parameters in one PostgreSQL statement. */
+	int POSTGRESQL_MAX_PARAMETERS = 32767;
+	
+	/** 
+	 * The bytes reserved in a MySQL packet for the protocol header and the 
+	 * SQL text except the values.
+	 */
+	int MYSQL_PACKET_OVERHEAD = 1024;
+	
+	/** The label of the generated key column reported by MySQL Connector/J. */
+	String MYSQL_GENERATED_KEY_LABEL = "GENERATED_KEY";
+	
+	/** The estimated bytes of a numeric value or a {@code null} in SQL text. */
+	int NUMERIC_VALUE_BYTES = 24;
+	
+	/** 
+	 * The {@code max_allowed_packet} used when the server doesn't report a 
+	 * positive value: 4 MB, the default of MySQL 5.6.
+	 */
+	long DEFAULT_MAX_ALLOWED_PACKET = 4L * 1024 * 1024;
+	
+	/** The query for the {@code max_allowed_packet} of MySQL. */
+	String MAX_ALLOWED_PACKET_QUERY = "SELECT @@max_allowed_packet";
+	
+	/** The query for the {@code innodb_autoinc_lock_mode} of MySQL. */
+	String AUTO_INC_LOCK_MODE_QUERY = "SELECT @@innodb_autoinc_lock_mode";
+	
+	/** 
+	 * The {@code innodb_autoinc_lock_mode} of MySQL which doesn't guarantee 
+	 * consecutive auto-increment values for a bulk insert.
+	 */
+	int INTERLEAVED_AUTO_INC_LOCK_MODE = 2;
+	
+	/** The number of characters buffered before writing them to a bulk load stream. */
+	int BULK_LOAD_BUFFER_SIZE = 64 * 1024;
+	
+	/** The number of rows fetched in one round trip by a cursor. */
+	int CURSOR_FETCH_SIZE = 1000;
+	
 	/** The template for select statements. */
 	String SELECT_STATEMENT = "SELECT * FROM ";
+	
+	/** The condition for select statements which never return any row. */
+	String EMPTY_RESULT_CONDITION = " WHERE 1 = 0";
 }
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Publisher of the {@code DataRecord}s of a query, which only reads the rows
+ * requested by the subscriber.
+ *
+ * <p>The {@code Subscriber} and {@code Subscription} interfaces have the same
+ * methods and rules as the ones of {@code java.util.concurrent.Flow} (and
+ * Reactive Streams), so a subscriber of those can be adapted by forwarding
+ * the calls. They are declared here because this library is still compiled
+ * for Java 8.
+ *
+ * <p>Each subscription runs the query on its own session opened by the first
+ * {@code request()}, and reads the rows by a cursor, see
+ * {@code DataRecordSession.openCursor()}. The rows are read on the executor
+ * only while there is outstanding demand, and the fetch size of the cursor
+ * follows the demand, so a slow subscriber holds at most one fetch of rows in
+ * memory. The session is closed when all the rows are read, the subscription
+ * is cancelled, or an error occurs.
+ *
+ * <p>A subscription holds a connection until it is completed or cancelled, so
+ * a subscriber which stops requesting should cancel it.
+ *
+ * @author  Wuyi Chen
+ * @date    12/28/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public final class DataRecordPublisher {
+	private final Callable<DataRecordSession> sessionFactory;
+	private final String                      dataType;
+	private final String                      whereClause;
+	private final Executor                    executor;
+
+	/**
+	 * Receiver of the {@code DataRecord}s, the same as
+	 * {@code java.util.concurrent.Flow.Subscriber<DataRecord>}.
+	 *
+	 * @since   1.2
+	 */
+	public interface Subscriber {
+		void onSubscribe(Subscription subscription);
+		void onNext(DataRecord dataRecord);
+		void onError(Throwable throwable);
+		void onComplete();
+	}
+
+	/**
+	 * Link between the publisher and a subscriber, the same as
+	 * {@code java.util.concurrent.Flow.Subscription}.
+	 *
+	 * @since   1.2
+	 */
+	public interface Subscription {
+		void request(long n);
+		void cancel();
+	}
+
+	/**
+	 * Construct a {@code DataRecordPublisher}.
+	 *
+	 * @param  sessionFactory
+	 *         The factory of the session for each subscription, the session
+	 *         is owned by the subscription and closed with it.
+	 *
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *
+	 * @param  executor
+	 *         The executor to read the rows and call the subscribers.
+	 *
+	 * @since   1.2
+	 */
+	DataRecordPublisher(final Callable<DataRecordSession> sessionFactory, final String dataType, final String whereClause, final Executor executor) {
+		this.sessionFactory = Preconditions.checkNotNull(sessionFactory);
+		this.dataType       = Preconditions.checkNotNull(dataType);
+		this.whereClause    = whereClause;
+		this.executor       = Preconditions.checkNotNull(executor);
+	}
+
+	/**
+	 * Subscribe to the {@code DataRecord}s of the query. Each subscription
+	 * runs the query again.
+	 *
+	 * @param  subscriber
+	 *         The subscriber.
+	 *
+	 * @since   1.2
+	 */
+	public void subscribe(final Subscriber subscriber) {
+		Preconditions.checkNotNull(subscriber);
+		subscriber.onSubscribe(new CursorSubscription(subscriber));
+	}
+
+	/**
+	 * The subscription reading a cursor. The reads are serialized by the
+	 * work counter: only the caller which increments it from 0 runs
+	 * {@code drain()}, the other callers make that run loop once more.
+	 */
+	private final class CursorSubscription implements Subscription {
+		private final Subscriber    subscriber;
+		private final AtomicLong    demand = new AtomicLong();
+		private final AtomicInteger work   = new AtomicInteger();
+		private volatile boolean    cancelled;
+		private volatile Throwable  failure;
+		private DataRecordSession   session;          // only accessed by drain()
+		private DataRecordCursor    cursor;
+		private boolean             done;
+
+		private CursorSubscription(final Subscriber subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(final long n) {
+			if (n <= 0) {
+				failure = new IllegalArgumentException("non-positive request: " + n);
+			} else {
+				demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+
+		private void schedule() {
+			if (work.getAndIncrement() != 0) {
+				return;
+			}
+
+			try {
+				executor.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				failure = e;
+				drain();                              // only closes the cursor and reports the error
+			}
+		}
+
+		private void drain() {
+			int missed = 1;
+			do {
+				drainOnce();
+				missed = work.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void drainOnce() {
+			if (done) {
+				return;
+			}
+			if (cancelled) {
+				finish(null, false);
+				return;
+			}
+			if (failure != null) {
+				finish(failure, true);
+				return;
+			}
+
+			final long requested = demand.get();
+			if (requested == 0) {
+				return;
+			}
+
+			long emitted = 0;
+			try {
+				if (cursor == null) {
+					session = sessionFactory.call();
+					cursor  = session.openCursor(dataType, whereClause, false);
+				}
+				cursor.setFetchSize((int) Math.min(requested, DataRecordManagerConstants.CURSOR_FETCH_SIZE));
+
+				while (emitted < requested && !cancelled) {
+					if (!cursor.hasNext()) {
+						finish(null, true);
+						return;
+					}
+					final DataRecord dataRecord = cursor.next();
+					emitted++;
+					try {
+						subscriber.onNext(dataRecord);
+					} catch (RuntimeException e) {
+						finish(null, false);          // a throwing subscriber is treated as cancelled
+						return;
+					}
+				}
+			} catch (DataRecordException e) {
+				finish(e.getCause(), true);
+				return;
+			} catch (Exception e) {
+				finish(e, true);
+				return;
+			}
+
+			if (requested != Long.MAX_VALUE) {
+				demand.addAndGet(-emitted);
+			}
+		}
+
+		private void finish(final Throwable error, final boolean signal) {
+			done = true;
+
+			Throwable result = error;
+			try {
+				try {
+					if (cursor != null) {
+						cursor.close();
+					}
+				} finally {
+					if (session != null) {
+						session.close();
+					}
+				}
+			} catch (SQLException e) {
+				if (result == null) {
+					result = e;
+				}
+			}
+
+			if (signal) {
+				if (result != null) {
+					subscriber.onError(result);
+				} else {
+					subscriber.onComplete();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,2854 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import personal.wuyi.client.database.DbType;
+import personal.wuyi.client.database.GenericDbConfig;
+import personal.wuyi.string.SqlUtil;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Session for handing basic operations between the {@code DataRecord} and 
+ * the database on one connection.
+ * 
+ * <p>A session owns its connection, its commit pool and the prepared 
+ * statements of the connection, so the sessions are independent of each 
+ * other and can be used by different threads concurrently. The public 
+ * methods of a session are guarded by a {@code ReentrantLock}, so a session 
+ * can also be shared, but the operations on it will be serialized. The 
+ * exception is {@code addDataRecord()}: the commit pool is striped, so many 
+ * threads can add records to one session without contending on a single 
+ * lock, and {@code storeAndCommit()} commits a consistent snapshot of the 
+ * pool.
+ * 
+ * <p>No monitor of the session is held during the JDBC calls, so a virtual 
+ * thread waiting for the database releases its carrier thread. The number 
+ * of the concurrent operations is still bounded by the connections: one 
+ * operation per session at a time, and the sessions opened from a 
+ * {@code ConnectionPool} are bounded by its size. A JDBC driver which 
+ * blocks inside its own {@code synchronized} blocks, like MySQL 
+ * Connector/J 5.x, still pins the carrier thread for that call.
+ * 
+ * <p>{@code DataRecordManager} provides the same APIs as static methods on 
+ * a default session.
+ * 
+ * @author  Wuyi Chen
+ * @date    12/20/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class DataRecordSession implements DataRecordManagerConstants, AutoCloseable {
+	/** 
+	 * The executor of the partitions of the parallel commits, shared by all 
+	 * the sessions, its idle threads exit after a minute.
+	 */
+	private static final ExecutorService COMMIT_EXECUTOR = newCommitExecutor();
+	
+	/** 
+	 * The lock serializing the operations on the connection. It is not the 
+	 * monitor of the session, so a virtual thread blocked in a JDBC call 
+	 * while holding it can unmount from its carrier thread.
+	 */
+	private final ReentrantLock       lock                 = new ReentrantLock();
+	
+	/** The type of the database */
+	private final DbType              type;
+	private final Connection          connect;
+	
+	/** The cache of the column metadata of the tables in the database. */
+	private final ColumnMetadataCache metadataCache;
+	
+	/** The pool which the connection is borrowed from, {@code null} if not pooled. */
+	private final ConnectionPool      pool;
+	
+	/** The cache of the prepared statements in the connection. */
+	private final StatementCache      statementCache;
+	
+	/**
+	 * <p>This commit pool is to store the DataRecords of this session in 
+	 * memory temporarily. The DataRecord in this pool is waiting to be 
+	 * synchronized to database or modified in memory. The pool is striped, 
+	 * so the threads adding records don't contend on the session.
+	 */
+	private final CommitPool          commitPool           = new CommitPool();
+	
+	/** The write mode used by {@code storeAndCommit()}. */
+	private WriteMode                 defaultWriteMode     = WriteMode.STATEMENT;
+	
+	/** The maximum number of records in one JDBC batch. */
+	private int                       batchSize            = DEFAULT_BATCH_SIZE;
+	
+	/** The {@code max_allowed_packet} of MySQL in bytes, 0 if not read yet. */
+	private long                      maxAllowedPacket     = 0;
+	
+	/** The {@code innodb_autoinc_lock_mode} of MySQL, -1 if not read yet. */
+	private int                       autoIncLockMode      = -1;
+	
+	/** The number of the connections used by {@code storeAndCommit()}. */
+	private int                       commitParallelism    = 1;
+	
+	/** 
+	 * The number of records committed in one transaction by 
+	 * {@code storeAndCommit()}, 0 for one transaction per commit.
+	 */
+	private int                       transactionChunkSize = 0;
+	
+	/** The flag to indicate the commit pool is bounded by a limit. */
+	private volatile boolean          commitPoolBounded    = false;
+	
+	/** The maximum number of records in the commit pool, 0 for unbounded. */
+	private int                       commitPoolLimit      = 0;
+	
+	/** The maximum estimated bytes of the commit pool, 0 for unbounded. */
+	private long                      commitPoolByteLimit  = 0;
+	
+	/** The estimated bytes of the records in the commit pool. */
+	private long                      commitPoolBytes      = 0;
+	
+	/** 
+	 * The last new record added to the commit pool, its bytes are counted 
+	 * when the next record is added because it is filled after being added.
+	 */
+	private DataRecord                pendingDataRecord    = null;
+	
+	/** The flag to indicate this session has been closed. */
+	private boolean                   closed               = false;
+	
+	/**
+	 * Construct a {@code DataRecordSession} on an existing connection.
+	 * 
+	 * <p>The session takes the ownership of the connection, the connection 
+	 * will be closed when the session is closed.
+	 * 
+	 * @param  type
+	 *         The database type.
+	 *         
+	 * @param  connect
+	 *         The connection to the database.
+	 *         
+	 * @since   1.2
+	 */
+	public DataRecordSession(final DbType type, final Connection connect) {
+		this(type, connect, new ColumnMetadataCache());
+	}
+	
+	/**
+	 * Construct a {@code DataRecordSession} sharing the column metadata 
+	 * cache with other sessions on the same database.
+	 * 
+	 * @param  type
+	 *         The database type.
+	 *         
+	 * @param  connect
+	 *         The connection to the database.
+	 *         
+	 * @param  metadataCache
+	 *         The cache of the column metadata of the tables in the database.
+	 *         
+	 * @since   1.2
+	 */
+	DataRecordSession(final DbType type, final Connection connect, final ColumnMetadataCache metadataCache) {
+		this(type, connect, metadataCache, null);
+	}
+	
+	/**
+	 * Construct a {@code DataRecordSession} on a connection borrowed from a 
+	 * pool.
+	 * 
+	 * @param  type
+	 *         The database type.
+	 *         
+	 * @param  connect
+	 *         The connection to the database.
+	 *         
+	 * @param  metadataCache
+	 *         The cache of the column metadata of the tables in the database.
+	 *         
+	 * @param  pool
+	 *         The pool which the connection is borrowed from, the connection 
+	 *         will be returned to the pool when the session is closed. 
+	 *         {@code null} if the connection is owned by the session.
+	 *         
+	 * @since   1.2
+	 */
+	DataRecordSession(final DbType type, final Connection connect, final ColumnMetadataCache metadataCache, final ConnectionPool pool) {
+		this.type          = Preconditions.checkNotNull(type);
+		this.connect       = Preconditions.checkNotNull(connect);
+		this.metadataCache = Preconditions.checkNotNull(metadataCache);
+		this.pool          = pool;
+		
+		// Oracle reports the ROWID as the generated key unless the key column is named
+		this.statementCache = (type == DbType.ORACLE) ? new StatementCache(new String[] { RECORD_IDENTIFIER }) : new StatementCache();
+	}
+	
+	/**
+	 * Open a new session with a new database connection.
+	 * 
+	 * @param  type
+	 *         The database type.
+	 *         
+	 * @param  config
+	 *         The generic database configuration.
+	 *         
+	 * @return  The new session.
+	 * 
+	 * @throws  SQLException
+	 *          If there is any error when connecting to database.
+	 *          
+	 * @throws  ClassNotFoundException
+	 *          If the driver class is not found in the class path.
+	 *          
+	 * @since   1.2
+	 */
+	public static DataRecordSession open(final DbType type, final GenericDbConfig config) throws SQLException, ClassNotFoundException {
+		return new DataRecordSession(type, openConnection(type, config));
+	}
+	
+	/**
+	 * Open a new database connection.
+	 * 
+	 * @param  type
+	 *         The database type.
+	 *         
+	 * @param  config
+	 *         The generic database configuration.
+	 *         
+	 * @return  The new connection.
+	 * 
+	 * @throws  SQLException
+	 *          If there is any error when connecting to database.
+	 *          
+	 * @throws  ClassNotFoundException
+	 *          If the driver class is not found in the class path.
+	 *          
+	 * @since   1.2
+	 */
+	static Connection openConnection(final DbType type, final GenericDbConfig config) throws SQLException, ClassNotFoundException {
+		Preconditions.checkNotNull(type);
+		Preconditions.checkNotNull(config);
+		
+		Class.forName(type.getDriverClass());
+		return DriverManager.getConnection(type.buildUrl(config), config.getUsername(), config.getPassword());
+	}
+	
+	/**
+	 * Close the cached prepared statements and the connection of this 
+	 * session.
+	 * 
+	 * <p>If the connection is borrowed from a pool, it will be returned to 
+	 * the pool instead of being closed. The {@code DataRecord}s in the commit 
+	 * pool which have not been committed will be discarded.
+	 * 
+	 * @throws  SQLException
+	 *          If there is any error when closing the connection.
+	 *          
+	 * @since   1.2
+	 */
+	@Override
+	public void close() throws SQLException {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		
+			try {
+				statementCache.invalidateAll();
+			} finally {
+				clearCommitPool();
+				if (pool != null) {
+					pool.release(connect);
+				} else if (!connect.isClosed()) {
+					connect.close();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Check this session or its connection is closed.
+	 * 
+	 * @return  {@code true} if this session or its connection is closed;
+	 *          {@code false} otherwise.
+	 *          
+	 * @throws  SQLException
+	 *          If there is any error when checking the connection.
+	 *          
+	 * @since   1.2
+	 */
+	public boolean isClosed() throws SQLException {
+		lock.lock();
+		try {
+			return closed || connect.isClosed();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Check the connection of this session is still valid.
+	 * 
+	 * <p>A connection can be disconnected by the server, like after the 
+	 * {@code wait_timeout} of MySQL, this method sends a validation to the 
+	 * server to detect that.
+	 * 
+	 * @return  {@code true} if this session is not closed and its 
+	 *          connection is valid;
+	 *          {@code false} otherwise.
+	 *          
+	 * @throws  SQLException
+	 *          If there is any error when checking the connection.
+	 *          
+	 * @since   1.2
+	 */
+	public boolean isValid() throws SQLException {
+		lock.lock();
+		try {
+			return !isClosed() && connect.isValid(ConnectionPool.VALIDATION_TIMEOUT_SECONDS);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Discard all the {@code DataRecord}s in the commit pool.
+	 * 
+	 * @since   1.2
+	 */
+	public void clearCommitPool() {
+		lock.lock();
+		try {
+			commitPool.clear();
+			commitPoolBytes   = 0;
+			pendingDataRecord = null;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public DbType     getDbType()     { return type;    }
+	public Connection getConnection() { return connect; }
+	
+	/**
+	 * Set the time-to-live of the cached column metadata.
+	 * 
+	 * <p>The column metadata of a table is cached after the first lookup, so 
+	 * verifying or querying the records of the same table will not read the 
+	 * metadata from the database again until the cached metadata is expired. 
+	 * The default time-to-live is 5 minutes, and 0 will disable the cache.
+	 * 
+	 * @param  ttl
+	 *         The time-to-live, can not be negative.
+	 *         
+	 * @param  unit
+	 *         The time unit of the time-to-live.
+	 *         
+	 * @since   1.2
+	 */
+	public void setColumnMetadataTtl(final long ttl, final TimeUnit unit) {
+		lock.lock();
+		try {
+			metadataCache.setTtl(ttl, unit);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Invalidate the cached column metadata of a table.
+	 * 
+	 * <p>This method should be called after the schema of the table has been 
+	 * altered, so the next lookup will read the new metadata from the 
+	 * database.
+	 * 
+	 * @param  tableName
+	 *         The name of the table.
+	 *         
+	 * @since   1.2
+	 */
+	public void invalidateColumnMetadata(final String tableName) {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(!isNullOrEmpty(tableName), "tableName is null or empty");
+			metadataCache.invalidate(tableName);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Invalidate the cached column metadata of all the tables.
+	 * 
+	 * @since   1.2
+	 */
+	public void invalidateColumnMetadata() {
+		lock.lock();
+		try {
+			metadataCache.invalidateAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Set the write mode used by {@code storeAndCommit()}.
+	 * 
+	 * <p>The default write mode is {@code WriteMode.STATEMENT}.
+	 * 
+	 * @param  writeMode
+	 *         The write mode for inserting new records.
+	 *         
+	 * @since   1.2
+	 */
+	public void setDefaultWriteMode(final WriteMode writeMode) {
+		lock.lock();
+		try {
+			Preconditions.checkNotNull(writeMode);
+			defaultWriteMode = writeMode;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Set the maximum number of records in one JDBC batch.
+	 * 
+	 * <p>This size is used by {@code WriteMode.BATCH}, a batch will be 
+	 * executed when the number of records in it reaches this size. It is also 
+	 * the maximum number of rows in one statement for 
+	 * {@code WriteMode.MULTI_ROW}.
+	 * 
+	 * @param  size
+	 *         The maximum number of records in one batch, must be positive.
+	 *         
+	 * @since   1.2
+	 */
+	public void setBatchSize(final int size) {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(size > 0, "size is not positive");
+			batchSize = size;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Set the number of the connections used by {@code storeAndCommit()}.
+	 * 
+	 * <p>With a parallelism greater than 1, the modified records are split
+	 * into partitions by the table and the {@code RecordId}, and the
+	 * partitions are written concurrently: one on the connection of this
+	 * session and the others on the sessions borrowed from the pool of this
+	 * session. The partitions never wait for the pool: only the connections
+	 * which are available when the commit starts are borrowed, so a busy
+	 * pool lowers the parallelism of the commit. Each partition is batched
+	 * by the batch size of this session. The default parallelism is 1.
+	 * 
+	 * @param  parallelism
+	 *         The number of the connections, must be positive and not greater
+	 *         than the maximum size of the pool.
+	 * 
+	 * @throws  IllegalStateException
+	 *          If the parallelism is greater than 1 but this session is not
+	 *          opened from a {@code ConnectionPool}.
+	 * 
+	 * @since   1.2
+	 */
+	public void setCommitParallelism(final int parallelism) {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(parallelism > 0, "parallelism is not positive");
+			Preconditions.checkState(parallelism == 1 || pool != null, "the session is not opened from a connection pool");
+			Preconditions.checkArgument(parallelism == 1 || parallelism <= pool.getMaxSize(), "parallelism is greater than the size of the connection pool");
+			commitParallelism = parallelism;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Set the number of records committed in one transaction by 
+	 * {@code storeAndCommit()}.
+	 * 
+	 * <p>By default, all the records of one {@code storeAndCommit()} are 
+	 * committed in one transaction, so the commit is atomic. For a huge 
+	 * commit pool, a chunk size commits every {@code size} records to keep 
+	 * the transactions small, but a failure only rolls back the current 
+	 * chunk.
+	 * 
+	 * @param  size
+	 *         The number of records in one transaction, or 0 for one 
+	 *         transaction per commit.
+	 *         
+	 * @since   1.2
+	 */
+	public void setTransactionChunkSize(final int size) {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(size >= 0, "size is negative");
+			transactionChunkSize = size;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Bound the commit pool by the number of records and the estimated bytes.
+	 * 
+	 * <p>When the commit pool reaches a limit, it is flushed automatically 
+	 * by {@code storeAndCommit()} with the default write mode before the 
+	 * next record is added by {@code addDataRecord()} or 
+	 * {@code queryDataRecords()}. The records read by a cursor don't trigger 
+	 * a flush, because the connection is busy with the cursor.
+	 * 
+	 * <p>In the bounded mode, the commit pool only keeps the records waiting 
+	 * to be written: a flush removes all the records which are not modified, 
+	 * including the queried records. So a record should be modified before 
+	 * more records are added, or be added back by 
+	 * {@code addDataRecord(DataRecord)}.
+	 * 
+	 * <p>The bytes of a new record are estimated when the next record is 
+	 * added, because the fields are set after the record is added.
+	 * 
+	 * @param  maxRecords
+	 *         The maximum number of records, 0 for unbounded.
+	 *         
+	 * @param  maxBytes
+	 *         The maximum estimated bytes of the records, 0 for unbounded.
+	 *         
+	 * @since   1.2
+	 */
+	public void setCommitPoolLimit(final int maxRecords, final long maxBytes) {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(maxRecords >= 0, "maxRecords is negative");
+			Preconditions.checkArgument(maxBytes >= 0, "maxBytes is negative");
+			commitPoolLimit     = maxRecords;
+			commitPoolByteLimit = maxBytes;
+			commitPoolBounded   = maxRecords > 0 || maxBytes > 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private boolean isCommitPoolBounded() {
+		return commitPoolBounded;
+	}
+	
+	/**
+	 * Check the commit pool has reached the limits set by 
+	 * {@code setCommitPoolLimit()}.
+	 * 
+	 * @return  {@code true} if the commit pool should be flushed;
+	 *          {@code false} otherwise.
+	 *          
+	 * @since   1.2
+	 */
+	protected boolean isCommitPoolFull() {
+		if (commitPoolLimit > 0 && commitPool.size() >= commitPoolLimit) {
+			return true;
+		}
+		if (commitPoolByteLimit > 0) {
+			final long pendingBytes = pendingDataRecord == null ? 0 : estimateRowBytes(pendingDataRecord);
+			return commitPoolBytes + pendingBytes >= commitPoolByteLimit;
+		}
+		return false;
+	}
+	
+	/**
+	 * Flush the commit pool by {@code storeAndCommit()} if it is bounded and 
+	 * full.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when committing the records.
+	 *          
+	 * @since   1.2
+	 */
+	protected void flushIfFull() throws SQLException {
+		if (isCommitPoolBounded() && isCommitPoolFull()) {
+			storeAndCommit(defaultWriteMode);
+		}
+	}
+	
+	private void flushIfFullUnchecked() {
+		try {
+			flushIfFull();
+		} catch (SQLException e) {
+			throw new DataRecordException(e);
+		}
+	}
+	
+	/**
+	 * Add a new {@code DataRecord} to the commit pool.
+	 * 
+	 * <p>If the commit pool is not bounded, the record is appended to the 
+	 * stripe of the current thread without locking this session. Otherwise 
+	 * the session is locked to check the limits and flush the commit pool 
+	 * when it is full.
+	 * 
+	 * @param  dataRecord
+	 *         The new {@code DataRecord}.
+	 *         
+	 * @throws  DataRecordException
+	 *          If the commit pool is full and the automatic flush failed.
+	 *          
+	 * @since   1.2
+	 */
+	private void addNewDataRecord(final DataRecord dataRecord) {
+		if (!isCommitPoolBounded()) {
+			commitPool.add(dataRecord);
+			return;
+		}
+		
+		lock.lock();
+		try {
+			flushIfFullUnchecked();
+			if (pendingDataRecord != null) {
+				commitPoolBytes += estimateRowBytes(pendingDataRecord);
+			}
+			commitPool.add(dataRecord);
+			pendingDataRecord = dataRecord;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private void addQueriedDataRecords(final List<DataRecord> dataRecordList) {
+		for (DataRecord dataRecord : dataRecordList) {
+			commitPoolBytes += estimateRowBytes(dataRecord);
+		}
+		commitPool.addAll(dataRecordList);
+	}
+	
+	/**
+	 * Set the maximum number of the cached prepared statements.
+	 * 
+	 * <p>The prepared statements for inserting and updating records are 
+	 * cached by the table and the column layout, so the records with the same 
+	 * layout share one statement which is only parsed once by the database. 
+	 * The least recently used statement will be closed when the cache is full. 
+	 * The default size is 64.
+	 * 
+	 * @param  size
+	 *         The maximum number of the cached statements, must be positive.
+	 *         
+	 * @throws  SQLException
+	 *          If there is any error when closing the evicted statements.
+	 *          
+	 * @since   1.2
+	 */
+	public void setStatementCacheSize(final int size) throws SQLException {
+		lock.lock();
+		try {
+			statementCache.setCapacity(size);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Create a new {@code DataRecord} object.
+	 * 
+	 * <p>This function will create and return a blank {@code DataRecord} 
+	 * object for developers to message a new record. Also, this function will 
+	 * add this new {@code DataRecord} object to the commit pool of this 
+	 * session.
+	 * 
+	 * @param  dataType
+	 *         The table name in the database matches to the new 
+	 *         {@code DataRecord}.
+	 *         
+	 * @return  The new created {@code DataRecord}.
+	 * 
+	 * @throws  DataRecordException
+	 *          If the commit pool is full and the automatic flush failed.
+	 *          
+	 * @since   1.2
+	 */
+	public DataRecord addDataRecord(final String dataType) {
+		final DataRecord newDataRecord = new DataRecord(dataType);
+		addNewDataRecord(newDataRecord);
+		return newDataRecord;
+	}
+	
+	/**
+	 * Add an existing {@code DataRecord} to the commit pool of this session.
+	 * 
+	 * <p>The {@code DataRecord}s are removed from the commit pool after they 
+	 * are committed, so a {@code DataRecord} which is modified again after 
+	 * being committed needs to be added back by this method. A committed 
+	 * {@code DataRecord} keeps the {@code RecordId} reported by the insert, 
+	 * so the next commit updates its row instead of inserting a new one.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be synchronized later on.
+	 *         
+	 * @throws  IllegalArgumentException
+	 *          If the {@code DataRecord} has been inserted without its 
+	 *          {@code RecordId} reported back, like by {@code COPY}.
+	 *          
+	 * @throws  DataRecordException
+	 *          If the commit pool is full and the automatic flush failed.
+	 *          
+	 * @since   1.2
+	 */
+	public void addDataRecord(final DataRecord dataRecord) {
+		Preconditions.checkNotNull(dataRecord);
+		Preconditions.checkArgument(!dataRecord.isInsertedWithoutRecordId(), "the record was inserted without its RecordId, it can't be written again");
+		
+		addNewDataRecord(dataRecord);
+	}
+	
+	/**
+	 * Create an off-heap arena for the {@code DataRecord}s of a table.
+	 * 
+	 * <p>The values of the {@code DataRecord}s created by 
+	 * {@code addDataRecord(RecordArena)} and read by 
+	 * {@code queryDataRecords(RecordArena, String)} are stored in the arena 
+	 * instead of the heap, so the memory of those records is bounded by the 
+	 * capacity of the arena and is not scanned by the garbage collector.
+	 * 
+	 * @param  dataType
+	 *         The table name in the database matches to the 
+	 *         {@code DataRecord}s.
+	 *         
+	 * @param  capacity
+	 *         The size of the arena in bytes.
+	 *         
+	 * @return  The arena with the schema of the table.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when querying the columns of the table.
+	 *          
+	 * @since   1.2
+	 */
+	public RecordArena createRecordArena(final String dataType, final int capacity) throws SQLException {
+		lock.lock();
+		try {
+			return new RecordArena(dataType, getRecordSchema(dataType), capacity);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Add a new {@code DataRecord} stored in an arena.
+	 * 
+	 * <p>The new {@code DataRecord} is added to the commit pool, the same as 
+	 * {@code addDataRecord(String)}, but only the columns of the table can be 
+	 * set.
+	 * 
+	 * @param  arena
+	 *         The arena stores the values of the new {@code DataRecord}.
+	 *         
+	 * @return  The new created {@code DataRecord}.
+	 * 
+	 * @throws  IllegalStateException
+	 *          If the arena is full.
+	 *          
+	 * @throws  DataRecordException
+	 *          If the commit pool is full and the automatic flush failed.
+	 *          
+	 * @since   1.2
+	 */
+	public DataRecord addDataRecord(final RecordArena arena) {
+		Preconditions.checkNotNull(arena);
+		
+		final DataRecord newDataRecord = arena.allocate(true);
+		addNewDataRecord(newDataRecord);
+		return newDataRecord;
+	}
+	
+	/**
+	 * Synchronize all the {@code DataRecord}s in this commit pool with 
+	 * database.
+	 * 
+	 * <p>This method will use the default write mode, see 
+	 * {@code setDefaultWriteMode(WriteMode)}.
+	 * 
+	 * @return  The numbers of the written and skipped records.
+	 * 
+	 * @throws  SQLException
+	 *          If the type of a field in the {@code DataRecord} can not match 
+	 *          the type of the column in the database, or there is an error 
+	 *          occurred when committing the result.
+	 *          
+	 * @since   1.2
+	 */
+	public CommitResult storeAndCommit() throws SQLException {
+		lock.lock();
+		try {
+			return storeAndCommit(defaultWriteMode);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Synchronize all the {@code DataRecord}s in this commit pool with 
+	 * database.
+	 * 
+	 * <p>The {@code DataRecord}s which have not been modified since they were 
+	 * loaded from or synchronized with the database will be skipped.
+	 * 
+	 * <p>First, this method will verify the type of each field of the 
+	 * modified {@code DataRecord}s are matching the type of the corresponding 
+	 * column in the database. 
+	 * 
+	 * <p>Second, this method will try to synchronize all the modified 
+	 * {@code DataRecord}s in commit pool with database. The new 
+	 * {@code DataRecord}s will be inserted by the given write mode. After 
+	 * that, the synchronized {@code DataRecord}s will be removed from the 
+	 * commit pool, so the cost of the next commit only depends on the new 
+	 * work.
+	 * 
+	 * <p>The writes run in a transaction, see 
+	 * {@code setTransactionChunkSize()}. If a transaction fails, it is 
+	 * rolled back and its {@code DataRecord}s keep their modifications, so 
+	 * they can be committed again.
+	 * 
+	 * @param  writeMode
+	 *         The write mode for inserting new records.
+	 * 
+	 * @return  The numbers of the written and skipped records.
+	 * 
+	 * @throws  SQLException
+	 *          If the type of a field in the {@code DataRecord} can not match 
+	 *          the type of the column in the database, or there is an error 
+	 *          occurred when committing the result.
+	 *          
+	 * @since   1.2
+	 */
+	public CommitResult storeAndCommit(final WriteMode writeMode) throws SQLException {
+		lock.lock();
+		try {
+			Preconditions.checkNotNull(writeMode);
+		
+			final List<DataRecord> snapshot               = commitPool.snapshot();
+			final List<DataRecord> modifiedDataRecordList = new ArrayList<>();
+			for (DataRecord dataRecord : snapshot) {
+				if (dataRecord.isModified()) {
+					modifiedDataRecordList.add(dataRecord);
+				}
+			}
+		
+			final Set<List<Object>> verifiedLayoutSet = new HashSet<>();
+			for (DataRecord dataRecord : modifiedDataRecordList) {
+				if (verifiedLayoutSet.add(getLayoutKey(dataRecord))) {     // the records with the same layout only need to be verified once
+					verifyDataField(dataRecord);
+				}
+			}
+		
+			int insertedCount = 0;
+			for (DataRecord dataRecord : modifiedDataRecordList) {
+				if (dataRecord.isNewRecordForDatabase()) {
+					insertedCount++;
+				}
+			}
+		
+			final int skippedCount = snapshot.size() - modifiedDataRecordList.size();
+			try {
+				if (commitParallelism > 1 && modifiedDataRecordList.size() > 1) {
+					writeDataRecordsInParallel(modifiedDataRecordList, writeMode);
+				} else {
+					commitDataRecords(modifiedDataRecordList, writeMode);
+				}
+			} finally {
+				removeCommittedDataRecords(modifiedDataRecordList, isCommitPoolBounded());
+			}
+		
+			return new CommitResult(insertedCount, modifiedDataRecordList.size() - insertedCount, skippedCount);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Remove the committed {@code DataRecord}s from the commit pool.
+	 * 
+	 * <p>The commit pool is updated in place, because a cursor may still add 
+	 * the records it reads to the same list.
+	 * 
+	 * @param  modifiedDataRecordList
+	 *         The {@code DataRecord}s which were written by the commit, the 
+	 *         ones which are not modified anymore have been committed.
+	 *         
+	 * @param  removeUnmodified
+	 *         {@code true} if the {@code DataRecord}s which were not written 
+	 *         by the commit should also be removed;
+	 *         {@code false} otherwise.
+	 *         
+	 * @since   1.2
+	 */
+	private void removeCommittedDataRecords(final List<DataRecord> modifiedDataRecordList, final boolean removeUnmodified) {
+		final Set<DataRecord> writtenSet = Collections.newSetFromMap(new IdentityHashMap<>());
+		writtenSet.addAll(modifiedDataRecordList);
+		commitPool.removeIf(dataRecord -> !dataRecord.isModified() && (removeUnmodified || writtenSet.contains(dataRecord)));
+		
+		commitPoolBytes = 0;
+		for (DataRecord dataRecord : commitPool.snapshot()) {
+			if (dataRecord != pendingDataRecord) {
+				commitPoolBytes += estimateRowBytes(dataRecord);
+			}
+		}
+		if (pendingDataRecord != null && !pendingDataRecord.isModified()) {
+			pendingDataRecord = null;
+		}
+	}
+	
+	/**
+	 * Write the modified {@code DataRecord}s to the database in 
+	 * transactions on the connection of this session.
+	 * 
+	 * <p>If the connection is in auto-commit mode, the records are written 
+	 * in one transaction, or in one transaction per 
+	 * {@code transactionChunkSize} records. A failed transaction is rolled 
+	 * back and the state of its records is restored, the records of the 
+	 * previous transactions stay committed. The connection is set back to 
+	 * auto-commit mode at the end.
+	 * 
+	 * <p>If the connection is not in auto-commit mode, the caller manages 
+	 * the transaction and the records are only written.
+	 * 
+	 * @param  modifiedDataRecordList
+	 *         The list of the modified {@code DataRecord}s.
+	 *         
+	 * @param  writeMode
+	 *         The write mode for inserting new records.
+	 *         
+	 * @throws  SQLException
+	 *          If there is an error occurred when writing the records or 
+	 *          committing the transaction.
+	 *          
+	 * @since   1.2
+	 */
+	protected void commitDataRecords(final List<DataRecord> modifiedDataRecordList, final WriteMode writeMode) throws SQLException {
+		if (modifiedDataRecordList.isEmpty()) {
+			return;
+		}
+		if (!connect.getAutoCommit()) {                // the transaction is managed by the caller
+			writeDataRecords(modifiedDataRecordList, writeMode);
+			markCommitted(modifiedDataRecordList);
+			return;
+		}
+		
+		final int chunkSize = transactionChunkSize > 0 ? transactionChunkSize : modifiedDataRecordList.size();
+		connect.setAutoCommit(false);
+		try {
+			for (int from = 0; from < modifiedDataRecordList.size(); from += chunkSize) {
+				final List<DataRecord>             chunk     = modifiedDataRecordList.subList(from, Math.min(from + chunkSize, modifiedDataRecordList.size()));
+				final List<DataRecord.CommitState> stateList = new ArrayList<>(chunk.size());
+				for (DataRecord dataRecord : chunk) {
+					stateList.add(dataRecord.saveCommitState());
+				}
+				
+				try {
+					writeDataRecords(chunk, writeMode);
+					connect.commit();
+				} catch (SQLException | RuntimeException e) {
+					try {
+						connect.rollback();
+					} catch (SQLException rollbackException) {
+						e.addSuppressed(rollbackException);
+					}
+					for (int i = 0; i < chunk.size(); i++) {
+						chunk.get(i).restoreCommitState(stateList.get(i));
+					}
+					throw e;
+				}
+				markCommitted(chunk);
+			}
+		} finally {
+			connect.setAutoCommit(true);
+		}
+	}
+	
+	/**
+	 * Write the modified {@code DataRecord}s to the database on the 
+	 * connection of this session.
+	 * 
+	 * @param  modifiedDataRecordList
+	 *         The list of the modified {@code DataRecord}s.
+	 *         
+	 * @param  writeMode
+	 *         The write mode for inserting new records.
+	 *         
+	 * @throws  SQLException
+	 *          If there is an error occurred when writing the records.
+	 *          
+	 * @since   1.2
+	 */
+	protected void writeDataRecords(final List<DataRecord> modifiedDataRecordList, final WriteMode writeMode) throws SQLException {
+		switch (writeMode) {
+			case BATCH:
+			case MULTI_ROW:
+			case BULK_LOAD:
+				final List<DataRecord> newDataRecordList = new ArrayList<>();
+				for (DataRecord dataRecord : modifiedDataRecordList) {
+					if (dataRecord.isNewRecordForDatabase()) {
+						newDataRecordList.add(dataRecord);
+					} else {
+						updateDataRecord(dataRecord);
+					}
+				}
+				if (writeMode == WriteMode.MULTI_ROW) {
+					insertDataRecordsInMultiRow(newDataRecordList);
+				} else if (writeMode == WriteMode.BULK_LOAD) {
+					insertDataRecordsByBulkLoad(newDataRecordList);
+				} else {
+					insertDataRecordsInBatch(newDataRecordList);
+				}
+				break;
+			default:
+				for (DataRecord dataRecord : modifiedDataRecordList) {
+					synchronizeDataRecordWithDatabase(dataRecord);
+				}
+				break;
+		}
+	}
+	
+	/**
+	 * Write the modified {@code DataRecord}s to the database on multiple 
+	 * connections concurrently.
+	 * 
+	 * <p>Up to {@code commitParallelism - 1} sessions are borrowed from the 
+	 * pool of this session without waiting, and the records are split by 
+	 * {@code partition()} into one partition per connection. The first 
+	 * partition is written on the connection of this session in the calling 
+	 * thread, and each of the other partitions is written on a borrowed 
+	 * session by the shared commit executor.
+	 * 
+	 * <p>The partitions are committed in their own transactions, so the 
+	 * commit is not atomic across the partitions: if a partition fails, the 
+	 * partitions which have been committed stay committed in the database, 
+	 * and only the records of the failed partition keep their modifications 
+	 * and will be written by the next commit.
+	 * 
+	 * @param  modifiedDataRecordList
+	 *         The list of the modified {@code DataRecord}s.
+	 *         
+	 * @param  writeMode
+	 *         The write mode for inserting new records.
+	 *         
+	 * @throws  SQLException
+	 *          If there is an error occurred when writing any partition, the 
+	 *          errors of the other partitions are added as the suppressed 
+	 *          exceptions.
+	 *          
+	 * @since   1.2
+	 */
+	protected void writeDataRecordsInParallel(final List<DataRecord> modifiedDataRecordList, final WriteMode writeMode) throws SQLException {
+		final List<DataRecordSession> sessionList = new ArrayList<>();
+		int submittedCount = 0;
+		try {
+			while (sessionList.size() < commitParallelism - 1) {
+				final DataRecordSession session = pool.tryOpenSession();
+				if (session == null) {
+					break;                            // the pool is busy, commit on fewer connections
+				}
+				session.setBatchSize(batchSize);
+				session.setTransactionChunkSize(transactionChunkSize);
+				sessionList.add(session);
+			}
+			
+			final List<List<DataRecord>> partitionList = partition(modifiedDataRecordList, sessionList.size() + 1);
+			final List<Future<?>>        futureList    = new ArrayList<>();
+			for (final List<DataRecord> partition : partitionList.subList(1, partitionList.size())) {
+				final DataRecordSession session = sessionList.get(submittedCount);
+				futureList.add(COMMIT_EXECUTOR.submit(() -> {
+					try (DataRecordSession borrowed = session) {
+						borrowed.commitDataRecords(partition, writeMode);
+					}
+					return null;
+				}));
+				submittedCount++;
+			}
+			
+			SQLException error = null;
+			try {
+				commitDataRecords(partitionList.get(0), writeMode);
+			} catch (SQLException | RuntimeException e) {
+				error = toSQLException(e);
+			}
+			
+			for (Future<?> future : futureList) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					final SQLException cause = toSQLException(e.getCause());
+					if (error == null) {
+						error = cause;
+					} else {
+						error.addSuppressed(cause);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("interrupted while waiting for the partitions to be committed", e);
+				}
+			}
+			
+			if (error != null) {
+				throw error;
+			}
+		} finally {
+			for (DataRecordSession session : sessionList.subList(submittedCount, sessionList.size())) {
+				session.close();                      // the submitted sessions are closed by their tasks
+			}
+		}
+	}
+	
+	private static ExecutorService newCommitExecutor() {
+		final AtomicInteger threadCount = new AtomicInteger();
+		return Executors.newCachedThreadPool(runnable -> {
+			final Thread thread = new Thread(runnable, "datarecord-commit-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	private static SQLException toSQLException(final Throwable e) {
+		return e instanceof SQLException ? (SQLException) e : new SQLException("failed to commit a partition", e);
+	}
+	
+	private static void markCommitted(final List<DataRecord> dataRecordList) {
+		for (DataRecord dataRecord : dataRecordList) {
+			if (dataRecord.isNewRecordForDatabase()) {
+				dataRecord.setInsertedWithoutRecordId(true);     // inserted, but the RecordId is unknown
+			}
+			dataRecord.setModified(false);
+			dataRecord.clearDirtyFields();
+		}
+	}
+	
+	/**
+	 * Split the {@code DataRecord}s into partitions which can be written 
+	 * concurrently.
+	 * 
+	 * <p>The records are grouped by the table first. In each table, an 
+	 * existing record is assigned by the hash of its {@code RecordId}, so 
+	 * the records with the same {@code RecordId} are always written in 
+	 * order by one partition; a new record is assigned in the round-robin 
+	 * order, so the inserts are spread evenly.
+	 * 
+	 * @param  dataRecordList
+	 *         The list of the {@code DataRecord}s.
+	 *         
+	 * @param  count
+	 *         The maximum number of the partitions.
+	 *         
+	 * @return  The non-empty partitions, at least one partition.
+	 * 
+	 * @since   1.2
+	 */
+	protected static List<List<DataRecord>> partition(final List<DataRecord> dataRecordList, final int count) {
+		Preconditions.checkNotNull(dataRecordList);
+		Preconditions.checkArgument(count > 0, "count is not positive");
+		
+		final Map<String, List<DataRecord>> tableMap = new LinkedHashMap<>();
+		for (DataRecord dataRecord : dataRecordList) {
+			tableMap.computeIfAbsent(dataRecord.getDataTypeName(), key -> new ArrayList<>()).add(dataRecord);
+		}
+		
+		final List<List<DataRecord>> partitionList = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			partitionList.add(new ArrayList<>());
+		}
+		for (List<DataRecord> tableList : tableMap.values()) {
+			int nextNewPartition = 0;
+			for (DataRecord dataRecord : tableList) {
+				final int index;
+				if (dataRecord.isNewRecordForDatabase()) {
+					index            = nextNewPartition;
+					nextNewPartition = (nextNewPartition + 1) % count;
+				} else {
+					index = Math.floorMod(Long.hashCode(dataRecord.getRecordId()), count);
+				}
+				partitionList.get(index).add(dataRecord);
+			}
+		}
+		
+		partitionList.removeIf(List::isEmpty);
+		if (partitionList.isEmpty()) {
+			partitionList.add(new ArrayList<>());
+		}
+		return partitionList;
+	}
+	
+	/**
+	 * Verify the type of each field in the {@code DataRecord} can match the 
+	 * type of the columns in the database.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be checked.
+	 *         
+	 * @throws  SQLException
+	 *          If the type of a field in the {@code DataRecord} can not match 
+	 *          the type of the column in the database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void verifyDataField(final DataRecord dataRecord) throws SQLException {
+		Preconditions.checkNotNull(dataRecord);
+		
+		if (dataRecord.getSchema() == getRecordSchema(dataRecord.getDataTypeName())) {
+			return;                                   // the record shares the schema of the table
+		}
+		verifyDataField(dataRecord.getDataTypeName(), dataRecord.getTypeFields());
+	}
+	
+	/**
+	 * Verify the type of each field in the {@code DataRecord} can match the 
+	 * type of the columns in the database.
+	 * 
+	 * <p>First, this method will get the meta data of the table based on the 
+	 * data type of the {@code DataRecord}.
+	 * 
+	 * <p>Second, this method will get all the data fields in the 
+	 * {@code DataRecord} and verify the column type matching between the 
+	 * {@code DataRecord} and the database table.
+	 * 
+	 * @param  tableName
+	 *         The table name.
+	 * 
+	 * @param  typeMap
+	 *         The map contains the field names and the field types.
+	 * 
+	 * @throws  SQLException
+	 *          If the type of a field in the {@code DataRecord} can not match 
+	 *          the type of the column in the database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void verifyDataField(final String tableName, final Map<String, Class<?>> typeMap) throws SQLException{
+		Preconditions.checkNotNull(tableName);
+		Preconditions.checkNotNull(typeMap);
+		
+		final Map<String, Class<?>> columnTypes = getColumnMetadata(tableName);    // Get relevant table schema from database
+		
+		for (Map.Entry<String, Class<?>> entry : typeMap.entrySet()) {
+			if (columnTypes.containsKey(entry.getKey())) {
+				if (entry.getValue() == columnTypes.get(entry.getKey())) {
+					continue;
+				} else {
+					throw new SQLException("The type of " + entry.getKey() + " is " + entry.getValue() 
+							+ ". Can not match " + columnTypes.get(entry.getKey()) + " in table " + tableName);
+				}
+			} else {
+				throw new SQLException(tableName + " doesn't has column: " + entry.getKey());
+			}
+		}
+	}
+	
+	/**
+	 * Get the metadata of a table in database.
+	 * 
+	 * <p>This function will get the metadata of a table and then
+	 * convert the type of column to Java primitive type and message
+	 * as a {@code Map}.
+	 * 
+	 * <p>The relationship between the MySQL column types and Java 
+	 * primitive types:
+	 * <ul>
+	 * 	<li>VARCHAR => String
+	 * 	<li>INT => Integer
+	 * 	<li>BIGINT => Long
+	 * 	<li>DOUBLE => Double
+	 * </ul>
+	 * 
+	 * <p>The metadata is cached per table, so only the first lookup (or the 
+	 * first lookup after the cached metadata is expired or invalidated) will 
+	 * read the metadata from the database.
+	 * 
+	 * @param  tableName
+	 *         The name of the table needs to be inquired.
+	 *         
+	 * @return  The unmodifiable map of the field name and the type of the 
+	 *          field.
+	 * 
+	 * @throws  SQLException
+	 *          If the error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	protected Map<String, Class<?>> getColumnMetadata(final String tableName) throws SQLException {
+		Preconditions.checkArgument(!isNullOrEmpty(tableName), "tableName is null or empty");
+		
+		return metadataCache.get(tableName, this::loadColumnMetadata);
+	}
+	
+	/**
+	 * Get the schema of a table in database.
+	 * 
+	 * <p>The schema is cached with the column metadata of the table, so all 
+	 * the {@code DataRecord}s loaded from the same table share one schema.
+	 * 
+	 * @param  tableName
+	 *         The name of the table needs to be inquired.
+	 *         
+	 * @return  The schema of the table.
+	 * 
+	 * @throws  SQLException
+	 *          If the error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	protected RecordSchema getRecordSchema(final String tableName) throws SQLException {
+		Preconditions.checkArgument(!isNullOrEmpty(tableName), "tableName is null or empty");
+		
+		return metadataCache.getSchema(tableName, this::loadColumnMetadata);
+	}
+	
+	/**
+	 * Read the metadata of a table from database.
+	 * 
+	 * <p>This function will run a query which never returns any row, so only 
+	 * the metadata of the result set will be transferred from the database.
+	 * 
+	 * @param  tableName
+	 *         The name of the table needs to be inquired.
+	 *         
+	 * @return  The map of the field name and the type of the field.
+	 * 
+	 * @throws  SQLException
+	 *          If the error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	protected Map<String, Class<?>> loadColumnMetadata(final String tableName) throws SQLException {
+		final Map<String, Class<?>> columnTypes = new LinkedHashMap<>();
+		
+		try (final Statement statement   = connect.createStatement();
+		     final ResultSet rs          = statement.executeQuery(SELECT_STATEMENT + tableName + EMPTY_RESULT_CONDITION)) {
+			final ResultSetMetaData     metadata    = rs.getMetaData();
+			for (int i = 1; i <= metadata.getColumnCount(); i++) {
+				columnTypes.put(metadata.getColumnName(i), COLUMN_TYPE_MAP.get(metadata.getColumnTypeName(i)));
+			}
+		}
+			
+		return columnTypes; 
+	}
+	
+	/**
+	 * Synchronize one {@code DataRecord} with database.
+	 * 
+	 * <p>If database already had a corresponding record for that 
+	 * {@code DataRecord}, just need to use the update operation. If the 
+	 * {@code DataRecord} is a new one for database, this method needs to call 
+	 * insert operation.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be synchronized.
+	 *         
+	 * @throws  SQLException
+	 *          If the error occurred when updating a existing record or 
+	 *          inserting a new record with database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void synchronizeDataRecordWithDatabase(final DataRecord dataRecord) throws SQLException {
+		Preconditions.checkNotNull(dataRecord);
+		
+		if(dataRecord.isNewRecordForDatabase()) {
+			insertDataRecordBase(dataRecord);
+		} else {
+			updateDataRecord(dataRecord);
+		}
+	}
+
+	/**
+	 * Update the {@code DataRecord} in memory to the database.
+	 * 
+	 * <p>The function will use RecordId to map the record in database and 
+	 * the corresponding {@code DataRecord} in memory. Only the fields which 
+	 * have been set since the {@code DataRecord} was loaded from the 
+	 * database will be updated, so the record doesn't need to be queried 
+	 * again before updating.
+	 * 
+	 * <p>The process of this function:
+	 * <ul>
+	 * 	<li>Construct a new DataRecord which captures the dirty fields.
+	 *  <li>Update the corresponding record in database.
+	 *  <li>Check there is only one record updated for a certain RecordId in 
+	 *      database.
+	 *  <li>Mark all the fields of the DataRecord as clean.
+	 * </ul>
+	 * 
+	 * @param  dataRecordMem
+	 *         The {@code DataRecord} in memory.
+	 *         
+	 * @throws SQLException
+	 *         If the error occurred when querying the database or updating 
+	 *         the database.
+	 *         
+	 * @since   1.2
+	 */
+	protected void updateDataRecord(final DataRecord dataRecordMem) throws SQLException {
+		Preconditions.checkNotNull(dataRecordMem);
+		
+		final DataRecord diff = getDirtyFieldsDiff(dataRecordMem);
+		if (diff.getFieldCount() == 0) {
+			return;                                   // nothing changed
+		}
+		diff.setRecordId(dataRecordMem.getRecordId());
+		
+		final int updatedCount = updateDataRecordBase(diff);
+		if (updatedCount == 0) {
+			throw new SQLException(dataRecordMem.getDataTypeName() + " doesn't have a record for " + RECORD_IDENTIFIER + ": " + dataRecordMem.getRecordId());
+		} else if (updatedCount > 1) {
+			throw new SQLException(dataRecordMem.getDataTypeName() + " has multiple records for " + RECORD_IDENTIFIER + ": " + dataRecordMem.getRecordId());
+		}
+		dataRecordMem.clearDirtyFields();
+	}
+	
+	/**
+	 * Get the dirty fields of a {@code DataRecord}.
+	 * 
+	 * <p>This method will return a new {@code DataRecord} to capture the 
+	 * fields which have been set since the {@code DataRecord} was loaded from 
+	 * the database, in the same order as the fields in the 
+	 * {@code DataRecord}.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be checked.
+	 *         
+	 * @return  The new {@code DataRecord} to reflect the dirty fields.
+	 * 
+	 * @since   1.2
+	 */
+	protected static DataRecord getDirtyFieldsDiff(final DataRecord dataRecord) {
+		Preconditions.checkNotNull(dataRecord);
+		
+		final DataRecord diff = new DataRecord(dataRecord.getDataTypeName());
+		for (int i = 0; i < dataRecord.getFieldCount(); i++) {
+			if (dataRecord.isDirtyFieldAt(i)) {
+				diff.putField(dataRecord.getFieldName(i), dataRecord.getFieldType(i), dataRecord.getValueAt(i));
+			}
+		}
+		return diff;
+	}
+
+	/**
+	 * Query a list of {@code DataRecord}s from database.
+	 * 
+	 * <p>After querying the list of {@code DataRecord}s. The list will be also added 
+	 * to commitPool for updating back to the database later on.
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The list of {@code DataRecord}s.
+	 * 
+	 * @throws  SQLException 
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	public List<DataRecord> queryDataRecords(final String dataType, final String whereClause) throws SQLException  {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(!isNullOrEmpty(dataType), "dataType is null or empty");
+		
+			final List<DataRecord> dataRecordList = queryDataRecordsBase(dataType, whereClause);
+			flushIfFull();
+			addQueriedDataRecords(dataRecordList);
+			return dataRecordList;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Query the database and store the {@code DataRecord}s in an arena.
+	 * 
+	 * <p>The values of the read {@code DataRecord}s are stored in the arena 
+	 * instead of the heap. The list will be also added to commitPool for 
+	 * updating back to the database later on.
+	 * 
+	 * @param  arena
+	 *         The arena of the table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The list of {@code DataRecord}s.
+	 * 
+	 * @throws  SQLException 
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @throws  IllegalStateException
+	 *          If the arena is full, the {@code DataRecord}s read before are 
+	 *          kept in the arena but not added to the commit pool.
+	 *          
+	 * @since   1.2
+	 */
+	public List<DataRecord> queryDataRecords(final RecordArena arena, final String whereClause) throws SQLException  {
+		lock.lock();
+		try {
+			Preconditions.checkNotNull(arena);
+		
+			final List<DataRecord> dataRecordList = new ArrayList<>();
+			final String sqlStatement = generateSQLQueryStatement(arena.getDataTypeName(), whereClause);
+		
+			try (final Statement statement = connect.createStatement();
+				 final ResultSet rs        = statement.executeQuery(sqlStatement)) {
+				while(rs.next()) {
+					dataRecordList.add(readDataRecord(rs, arena.allocate(false)));
+				}
+			}
+		
+			flushIfFull();
+			addQueriedDataRecords(dataRecordList);
+			return dataRecordList;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Open a cursor to read the {@code DataRecord}s of a query one by one.
+	 * 
+	 * <p>The read {@code DataRecord}s will not be added to the commit pool, 
+	 * see {@code openCursor(String, String, boolean)}.
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The cursor, which must be closed after use.
+	 * 
+	 * @throws  SQLException 
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	public DataRecordCursor openCursor(final String dataType, final String whereClause) throws SQLException {
+		lock.lock();
+		try {
+			return openCursor(dataType, whereClause, false);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Open a cursor to read the {@code DataRecord}s of a query one by one.
+	 * 
+	 * <p>The cursor fetches the rows from the database in a streaming way, 
+	 * based on the type of the database:
+	 * <ul>
+	 * 	<li>MySQL: the rows are streamed one by one. No other statement can be 
+	 *      executed on the connection until the cursor is closed.
+	 * 	<li>PostgreSQL: the rows are fetched by a server-side cursor in 
+	 *      chunks, the auto-commit mode of the connection is turned off until 
+	 *      the cursor is closed.
+	 * 	<li>Others: the rows are fetched in chunks.
+	 * </ul>
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @param  addToCommitPool
+	 *         {@code true} if the read {@code DataRecord}s should be added to 
+	 *         the commit pool for updating back to the database later on;
+	 *         {@code false} otherwise.
+	 *         
+	 * @return  The cursor, which must be closed after use.
+	 * 
+	 * @throws  SQLException 
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	public DataRecordCursor openCursor(final String dataType, final String whereClause, final boolean addToCommitPool) throws SQLException {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(!isNullOrEmpty(dataType), "dataType is null or empty");
+		
+			final RecordSchema          schema               = getRecordSchema(dataType);
+			final Connection            autoCommitConnection = (type == DbType.POSTGRESQL && connect.getAutoCommit()) ? connect : null;
+			if (autoCommitConnection != null) {
+				connect.setAutoCommit(false);             // PostgreSQL only uses a cursor in a transaction
+			}
+		
+			Statement statement = null;
+			try {
+				statement = connect.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				statement.setFetchSize(type == DbType.MYSQL ? Integer.MIN_VALUE : CURSOR_FETCH_SIZE);
+				final ResultSet rs = statement.executeQuery(generateSQLQueryStatement(dataType, whereClause));
+				return new DataRecordCursor(statement, rs, dataType, schema, addToCommitPool ? commitPool : null, autoCommitConnection);
+			} catch (SQLException e) {
+				if (statement != null) {
+					statement.close();
+				}
+				if (autoCommitConnection != null) {
+					connect.setAutoCommit(true);
+				}
+				throw e;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Read the {@code DataRecord}s of a query one by one and pass each of 
+	 * them to an action.
+	 * 
+	 * <p>This method uses a cursor to read the rows, see 
+	 * {@code openCursor(String, String, boolean)}. The read 
+	 * {@code DataRecord}s will not be added to the commit pool.
+	 * 
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *         
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @param  action
+	 *         The action to be performed for each {@code DataRecord}.
+	 *         
+	 * @throws  SQLException 
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	public void forEachDataRecord(final String dataType, final String whereClause, final Consumer<DataRecord> action) throws SQLException {
+		lock.lock();
+		try {
+			Preconditions.checkNotNull(action);
+		
+			try (final DataRecordCursor cursor = openCursor(dataType, whereClause, false)) {
+				while (cursor.hasNext()) {
+					action.accept(cursor.next());
+				}
+			} catch (DataRecordException e) {
+				throw e.getCause();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Query the database and read the result column-wise.
+	 *
+	 * <p>The rows are read into a {@code DataRecordBatch} without building a
+	 * {@code DataRecord} for each row, which is much more compact and faster
+	 * to scan than a list of {@code DataRecord}s for the analytical reads.
+	 * The rows are fetched in the same way as {@code openCursor()}, and they
+	 * will not be added to the commit pool.
+	 *
+	 * @param  dataType
+	 *         The name of table needs to be queried.
+	 *
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *
+	 * @return  The {@code DataRecordBatch} contains all the rows.
+	 *
+	 * @throws  SQLException
+	 *          If an error occurred when querying the database.
+	 *
+	 * @since   1.2
+	 */
+	public DataRecordBatch queryDataRecordBatch(final String dataType, final String whereClause) throws SQLException {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(!isNullOrEmpty(dataType), "dataType is null or empty");
+
+			final RecordSchema schema               = getRecordSchema(dataType);
+			final boolean      isAutoCommitDisabled = type == DbType.POSTGRESQL && connect.getAutoCommit();
+			if (isAutoCommitDisabled) {
+				connect.setAutoCommit(false);             // PostgreSQL only uses a cursor in a transaction
+			}
+
+			try (final Statement statement = connect.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+				statement.setFetchSize(type == DbType.MYSQL ? Integer.MIN_VALUE : CURSOR_FETCH_SIZE);
+				try (final ResultSet rs = statement.executeQuery(generateSQLQueryStatement(dataType, whereClause))) {
+					return DataRecordBatch.read(rs, dataType, schema);
+				}
+			} finally {
+				if (isAutoCommitDisabled) {
+					connect.setAutoCommit(true);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Insert one {@code DataRecord} into database.
+	 * 
+	 * <p>The {@code RecordId} generated by the database will be reported 
+	 * back to the {@code DataRecord}, and the {@code DataRecord} will not be 
+	 * new to database anymore.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be inserted.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when inserting the record into database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void insertDataRecordBase(final DataRecord dataRecord) throws SQLException {
+		final PreparedStatement statement = prepareInsertStatement(dataRecord);
+		bindValues(statement, dataRecord, 1);
+		statement.executeUpdate();
+		assignInsertedRecordIds(statement, Collections.singletonList(dataRecord));
+	}
+	
+	/**
+	 * Insert a list of new {@code DataRecord}s into database by JDBC batches.
+	 * 
+	 * <p>The {@code DataRecord}s will be grouped by the table and the field 
+	 * layout first, so each group can share one prepared insert statement. 
+	 * For each group, a batch will be executed whenever the number of records 
+	 * in it reaches the batch size, and the generated {@code RecordId}s of 
+	 * the batch will be reported back to the {@code DataRecord}s.
+	 * 
+	 * @param  dataRecordList
+	 *         The list of {@code DataRecord}s needs to be inserted.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when inserting the records into database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void insertDataRecordsInBatch(final List<DataRecord> dataRecordList) throws SQLException {
+		Preconditions.checkNotNull(dataRecordList);
+		
+		for (List<DataRecord> group : groupByFieldLayout(dataRecordList).values()) {
+			final PreparedStatement statement = prepareInsertStatement(group.get(0));
+			try {
+				int fromIndex = 0;
+				for (int i = 0; i < group.size(); i++) {
+					bindValues(statement, group.get(i), 1);
+					statement.addBatch();
+					if (i + 1 - fromIndex == batchSize) {
+						statement.executeBatch();
+						assignInsertedRecordIds(statement, group.subList(fromIndex, i + 1));
+						fromIndex = i + 1;
+					}
+				}
+				if (fromIndex < group.size()) {
+					statement.executeBatch();
+					assignInsertedRecordIds(statement, group.subList(fromIndex, group.size()));
+				}
+			} catch (SQLException e) {
+				statement.clearBatch();               // the statement is cached, don't leave the failed batch in it
+				throw e;
+			}
+		}
+	}
+	
+	/**
+	 * Insert a list of new {@code DataRecord}s into database by multi-row 
+	 * insert statements.
+	 * 
+	 * <p>The {@code DataRecord}s will be grouped by the table and the field 
+	 * layout first. For each group, the records will be split into chunks and 
+	 * each chunk will be inserted by one statement. A chunk is limited by:
+	 * <ul>
+	 * 	<li>The batch size.
+	 * 	<li>The maximum number of bind parameters of the database.
+	 * 	<li>The {@code max_allowed_packet} of MySQL, based on the estimated 
+	 *      size of the values.
+	 * </ul>
+	 * 
+	 * <p>The statements for the full chunks are cached, so a large group 
+	 * only needs one statement to be parsed by the database. The generated 
+	 * {@code RecordId}s of each chunk will be reported back to the 
+	 * {@code DataRecord}s. If the database 
+	 * is neither MySQL nor PostgreSQL, the records will be inserted by JDBC 
+	 * batches.
+	 * 
+	 * @param  dataRecordList
+	 *         The list of {@code DataRecord}s needs to be inserted.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when inserting the records into database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void insertDataRecordsInMultiRow(final List<DataRecord> dataRecordList) throws SQLException {
+		Preconditions.checkNotNull(dataRecordList);
+		
+		if (type != DbType.MYSQL && type != DbType.POSTGRESQL) {
+			insertDataRecordsInBatch(dataRecordList);
+			return;
+		}
+		
+		final long packetBudget = (type == DbType.MYSQL) ? getMaxAllowedPacket() - MYSQL_PACKET_OVERHEAD : Long.MAX_VALUE;
+		
+		for (List<DataRecord> group : groupByFieldLayout(dataRecordList).values()) {
+			final int maxRowCount = getMaxRowCount(group.get(0).getFieldCount());
+			
+			int  fromIndex  = 0;
+			long chunkBytes = 0;
+			for (int i = 0; i < group.size(); i++) {
+				final long rowBytes = estimateRowBytes(group.get(i));
+				if (i > fromIndex && (i - fromIndex == maxRowCount || chunkBytes + rowBytes > packetBudget)) {
+					insertChunk(group.subList(fromIndex, i), maxRowCount);
+					fromIndex  = i;
+					chunkBytes = 0;
+				}
+				chunkBytes += rowBytes;
+			}
+			insertChunk(group.subList(fromIndex, group.size()), maxRowCount);
+		}
+	}
+	
+	/**
+	 * Insert a chunk of {@code DataRecord}s with the same field layout by one 
+	 * multi-row insert statement.
+	 * 
+	 * @param  chunk
+	 *         The {@code DataRecord}s needs to be inserted.
+	 *         
+	 * @param  maxRowCount
+	 *         The maximum number of rows in one statement, only the statement 
+	 *         for a full chunk will be cached.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when inserting the records into database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void insertChunk(final List<DataRecord> chunk, final int maxRowCount) throws SQLException {
+		final DataRecord firstRecord = chunk.get(0);
+		final int        rowCount    = chunk.size();
+		
+		if (rowCount == maxRowCount) {
+			final PreparedStatement statement = statementCache.get(connect, StatementCache.Operation.MULTI_ROW_INSERT, 
+					firstRecord.getDataTypeName(), firstRecord.getSchema().getNames(), rowCount, 
+					() -> generateSQLMultiRowInsertStatement(firstRecord, rowCount));
+			bindChunk(statement, chunk);
+			statement.executeUpdate();
+			assignInsertedRecordIds(statement, chunk);
+		} else {
+			try (final PreparedStatement statement = statementCache.prepareInsertStatement(connect, generateSQLMultiRowInsertStatement(firstRecord, rowCount))) {
+				bindChunk(statement, chunk);
+				statement.executeUpdate();
+				assignInsertedRecordIds(statement, chunk);
+			}
+		}
+	}
+	
+	private static void bindChunk(final PreparedStatement statement, final List<DataRecord> chunk) throws SQLException {
+		int index = 1;
+		for (DataRecord dataRecord : chunk) {
+			index = bindValues(statement, dataRecord, index);
+		}
+	}
+	
+	/**
+	 * Get the maximum number of rows in one multi-row insert statement.
+	 * 
+	 * @param  columnCount
+	 *         The number of columns in each row.
+	 *         
+	 * @return  The maximum number of rows, which is limited by the batch size 
+	 *          and the maximum number of bind parameters of the database.
+	 *          
+	 * @since   1.2
+	 */
+	protected int getMaxRowCount(final int columnCount) {
+		final int maxParameters = (type == DbType.POSTGRESQL) ? POSTGRESQL_MAX_PARAMETERS : MYSQL_MAX_PARAMETERS;
+		return Math.max(1, Math.min(batchSize, maxParameters / Math.max(1, columnCount)));
+	}
+	
+	/**
+	 * Estimate the bytes of the values of one {@code DataRecord} in the SQL 
+	 * text sent to the database.
+	 * 
+	 * <p>The estimation is conservative: each character of a string is 
+	 * counted as 3 bytes (the longest UTF-8 character in MySQL utf8) plus 
+	 * the quotes, and each numeric value is counted as a fixed size.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be estimated.
+	 *         
+	 * @return  The estimated bytes.
+	 * 
+	 * @since   1.2
+	 */
+	protected static long estimateRowBytes(final DataRecord dataRecord) {
+		long bytes = 2;                               // the parentheses
+		for (int i = 0; i < dataRecord.getFieldCount(); i++) {
+			final Object value = dataRecord.getFieldType(i) == String.class ? dataRecord.getValueAt(i) : null;
+			if (value != null) {
+				bytes += 3L * ((String) value).length() + 3;
+			} else {
+				bytes += NUMERIC_VALUE_BYTES;
+			}
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Get the {@code max_allowed_packet} of MySQL.
+	 * 
+	 * <p>The value will be read from the database at the first time and 
+	 * cached until the connection is rebuilt. If the server doesn't report 
+	 * a value larger than {@code MYSQL_PACKET_OVERHEAD}, 
+	 * {@code DEFAULT_MAX_ALLOWED_PACKET} is used instead, so the multi-row 
+	 * inserts don't fall back to one row per statement.
+	 * 
+	 * @return  The {@code max_allowed_packet} in bytes.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	protected long getMaxAllowedPacket() throws SQLException {
+		if (maxAllowedPacket == 0) {
+			long value = 0;
+			try (final Statement statement = connect.createStatement();
+			     final ResultSet rs        = statement.executeQuery(MAX_ALLOWED_PACKET_QUERY)) {
+				if (rs.next()) {
+					value = rs.getLong(1);
+				}
+			}
+			maxAllowedPacket = value > MYSQL_PACKET_OVERHEAD ? value : DEFAULT_MAX_ALLOWED_PACKET;
+		}
+		return maxAllowedPacket;
+	}
+	
+	/**
+	 * Insert a list of new {@code DataRecord}s into database by the bulk 
+	 * loading command of the database.
+	 * 
+	 * <p>PostgreSQL uses the {@code COPY} command, MySQL uses the 
+	 * {@code LOAD DATA LOCAL INFILE} command, other databases will fall back 
+	 * to JDBC batches.
+	 * 
+	 * @param  dataRecordList
+	 *         The list of {@code DataRecord}s needs to be inserted.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when inserting the records into database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void insertDataRecordsByBulkLoad(final List<DataRecord> dataRecordList) throws SQLException {
+		if (type == DbType.POSTGRESQL) {
+			insertDataRecordsByCopy(dataRecordList);
+		} else if (type == DbType.MYSQL) {
+			insertDataRecordsByLoadData(dataRecordList);
+		} else {
+			insertDataRecordsInBatch(dataRecordList);
+		}
+	}
+	
+	/**
+	 * Insert a list of new {@code DataRecord}s into PostgreSQL by the 
+	 * {@code COPY} command.
+	 * 
+	 * <p>The {@code DataRecord}s will be grouped by the table and the field 
+	 * layout first. For each group, the values will be encoded as the text 
+	 * format of {@code COPY} and streamed to the database through the 
+	 * {@code CopyManager} of the driver, a buffer will be written whenever it 
+	 * is full. If an error occurred, the copy will be cancelled so none of 
+	 * the records in the group will be inserted.
+	 * 
+	 * <p>{@code COPY} doesn't report the generated {@code RecordId}s, so the 
+	 * {@code DataRecord}s stay new to database after they are committed and 
+	 * can't be written back: adding one of them to the commit pool again 
+	 * will be rejected. The records which need to be modified later should 
+	 * be queried from the database again, or be inserted by another write 
+	 * mode.
+	 * 
+	 * @param  dataRecordList
+	 *         The list of {@code DataRecord}s needs to be inserted.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when copying the records into database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void insertDataRecordsByCopy(final List<DataRecord> dataRecordList) throws SQLException {
+		Preconditions.checkNotNull(dataRecordList);
+		
+		final CopyManager copyManager = connect.unwrap(PGConnection.class).getCopyAPI();
+		
+		for (List<DataRecord> group : groupByFieldLayout(dataRecordList).values()) {
+			final CopyIn copyIn = copyManager.copyIn(generateSQLCopyStatement(group.get(0)));
+			try {
+				final StringBuilder sb = new StringBuilder(BULK_LOAD_BUFFER_SIZE);
+				for (DataRecord dataRecord : group) {
+					TextRowEncoder.appendRow(sb, dataRecord);
+					if (sb.length() >= BULK_LOAD_BUFFER_SIZE) {
+						writeToCopy(copyIn, sb);
+					}
+				}
+				writeToCopy(copyIn, sb);
+				copyIn.endCopy();
+			} finally {
+				if (copyIn.isActive()) {
+					copyIn.cancelCopy();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Insert a list of new {@code DataRecord}s into MySQL by the 
+	 * {@code LOAD DATA LOCAL INFILE} command.
+	 * 
+	 * <p>The {@code DataRecord}s will be grouped by the table and the field 
+	 * layout first. For each group, the values will be encoded as 
+	 * tab-separated text and streamed to the database through the 
+	 * {@code setLocalInfileInputStream} of Connector/J, so no file will be 
+	 * written to disk. 
+	 * 
+	 * <p>If all the rows in the group are loaded, the {@code RecordId}s will 
+	 * be reported back to the {@code DataRecord}s, and the 
+	 * {@code DataRecord}s will not be new to database anymore. The generated 
+	 * values are only consecutive when the {@code innodb_autoinc_lock_mode} 
+	 * is not interleaved, so the generated {@code RecordId}s will not be 
+	 * reported if the server uses the interleaved lock mode. The 
+	 * {@code DataRecord}s without the reported 
+	 * {@code RecordId}s can't be written back, the same as the ones inserted 
+	 * by {@code COPY}.
+	 * 
+	 * @param  dataRecordList
+	 *         The list of {@code DataRecord}s needs to be inserted.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when loading the records into database.
+	 *          
+	 * @since   1.2
+	 */
+	protected void insertDataRecordsByLoadData(final List<DataRecord> dataRecordList) throws SQLException {
+		Preconditions.checkNotNull(dataRecordList);
+		
+		for (List<DataRecord> group : groupByFieldLayout(dataRecordList).values()) {
+			try (final Statement statement = connect.createStatement()) {
+				statement.unwrap(com.mysql.jdbc.Statement.class).setLocalInfileInputStream(new TextRowInputStream(group));
+				final int rowCount = statement.executeUpdate(generateSQLLoadDataStatement(group.get(0)), Statement.RETURN_GENERATED_KEYS);
+				
+				if (rowCount == group.size() && (group.get(0).getSchema().indexOf(RECORD_IDENTIFIER) >= 0 
+						|| getAutoIncLockMode() != INTERLEAVED_AUTO_INC_LOCK_MODE)) {
+					assignInsertedRecordIds(statement, group);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Assign the {@code RecordId}s to the inserted {@code DataRecord}s.
+	 * 
+	 * <p>If the {@code RecordId}s are given by the {@code DataRecord}s, they 
+	 * will be taken from the fields; otherwise the keys generated by the 
+	 * statement will be assigned. The {@code DataRecord}s with the assigned 
+	 * {@code RecordId}s will not be new to database anymore.
+	 * 
+	 * @param  statement
+	 *         The statement which inserted the records.
+	 *         
+	 * @param  dataRecordList
+	 *         The list of inserted {@code DataRecord}s with the same field 
+	 *         layout, in the same order as they were inserted.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when reading the generated keys.
+	 *          
+	 * @since   1.2
+	 */
+	protected static void assignInsertedRecordIds(final Statement statement, final List<DataRecord> dataRecordList) throws SQLException {
+		final int recordIdIndex = dataRecordList.get(0).getSchema().indexOf(RECORD_IDENTIFIER);
+		if (recordIdIndex < 0) {
+			assignGeneratedRecordIds(statement, dataRecordList);
+			return;
+		}
+		
+		for (DataRecord dataRecord : dataRecordList) {
+			if (!dataRecord.isNullAt(recordIdIndex)) {
+				dataRecord.setRecordId(((Number) dataRecord.getValueAt(recordIdIndex)).longValue());
+				dataRecord.setNewRecordForDatabase(false);
+			}
+		}
+	}
+	
+	/**
+	 * Assign the generated {@code RecordId}s to the inserted 
+	 * {@code DataRecord}s.
+	 * 
+	 * <p>The keys are read from the {@code RecordId} column of the generated 
+	 * keys, like the {@code RETURNING *} of PostgreSQL, or from the 
+	 * {@code GENERATED_KEY} column of MySQL. If there is no such column, like 
+	 * the {@code ROWID} reported by Oracle by default, no {@code RecordId} is 
+	 * assigned. If the driver reports fewer keys than the records, the rest 
+	 * of the records stay new to database.
+	 * 
+	 * @param  statement
+	 *         The statement which inserted the records.
+	 *         
+	 * @param  dataRecordList
+	 *         The list of inserted {@code DataRecord}s, in the same order as 
+	 *         they were inserted.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when reading the generated keys.
+	 *          
+	 * @since   1.2
+	 */
+	protected static void assignGeneratedRecordIds(final Statement statement, final List<DataRecord> dataRecordList) throws SQLException {
+		try (final ResultSet keys = statement.getGeneratedKeys()) {
+			if (keys == null) {
+				return;                               // the driver doesn't report the generated keys
+			}
+			final int keyIndex = findRecordIdColumn(keys.getMetaData());
+			if (keyIndex < 1) {
+				return;                               // don't guess, the column may not be the RecordId
+			}
+			for (DataRecord dataRecord : dataRecordList) {
+				if (!keys.next()) {
+					return;
+				}
+				dataRecord.setRecordId(keys.getLong(keyIndex));
+				dataRecord.setNewRecordForDatabase(false);
+			}
+		}
+	}
+	
+	private static int findRecordIdColumn(final ResultSetMetaData metaData) throws SQLException {
+		if (metaData != null) {
+			for (int i = 1; i <= metaData.getColumnCount(); i++) {
+				final String label = metaData.getColumnLabel(i);
+				if (RECORD_IDENTIFIER.equalsIgnoreCase(label) || MYSQL_GENERATED_KEY_LABEL.equalsIgnoreCase(label)) {
+					return i;
+				}
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Get the {@code innodb_autoinc_lock_mode} of MySQL.
+	 * 
+	 * <p>The value will be read from the database at the first time and 
+	 * cached until the connection is rebuilt.
+	 * 
+	 * @return  The {@code innodb_autoinc_lock_mode}.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	protected int getAutoIncLockMode() throws SQLException {
+		if (autoIncLockMode < 0) {
+			try (final Statement statement = connect.createStatement();
+			     final ResultSet rs        = statement.executeQuery(AUTO_INC_LOCK_MODE_QUERY)) {
+				autoIncLockMode = rs.next() ? rs.getInt(1) : INTERLEAVED_AUTO_INC_LOCK_MODE;
+			}
+		}
+		return autoIncLockMode;
+	}
+	
+	private static void writeToCopy(final CopyIn copyIn, final StringBuilder sb) throws SQLException {
+		final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+		copyIn.writeToCopy(bytes, 0, bytes.length);
+		sb.setLength(0);
+	}
+	
+	/**
+	 * Get the cached prepared insert statement for the field layout of a 
+	 * {@code DataRecord}.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be inserted.
+	 *         
+	 * @return  The prepared insert statement.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when preparing the statement.
+	 *          
+	 * @since   1.2
+	 */
+	protected PreparedStatement prepareInsertStatement(final DataRecord dataRecord) throws SQLException {
+		return statementCache.get(connect, StatementCache.Operation.INSERT, dataRecord.getDataTypeName(), 
+				dataRecord.getSchema().getNames(), () -> generateSQLPreparedInsertStatement(dataRecord));
+	}
+	
+	/**
+	 * Get the cached prepared update statement for the field layout of a 
+	 * {@code DataRecord}.
+	 * 
+	 * @param  diff
+	 *         The {@code DataRecord} to capture the fields needs to be updated.
+	 *         
+	 * @return  The prepared update statement.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when preparing the statement.
+	 *          
+	 * @since   1.2
+	 */
+	protected PreparedStatement prepareUpdateStatement(final DataRecord diff) throws SQLException {
+		return statementCache.get(connect, StatementCache.Operation.UPDATE, diff.getDataTypeName(), 
+				diff.getSchema().getNames(), () -> generateSQLPreparedUpdateStatement(diff));
+	}
+	
+	/**
+	 * Group a list of {@code DataRecord}s by the table and the field layout.
+	 * 
+	 * <p>Two {@code DataRecord}s are in the same group if they have the same 
+	 * data type and the same fields in the same order. The order of the 
+	 * groups and the order of the records in each group are kept as the 
+	 * order in the input list.
+	 * 
+	 * @param  dataRecordList
+	 *         The list of {@code DataRecord}s needs to be grouped.
+	 *         
+	 * @return  The map of the layout key and the records in the group.
+	 * 
+	 * @since   1.2
+	 */
+	protected static Map<List<Object>, List<DataRecord>> groupByFieldLayout(final List<DataRecord> dataRecordList) {
+		final Map<List<Object>, List<DataRecord>> groupMap = new LinkedHashMap<>();
+		for (DataRecord dataRecord : dataRecordList) {
+			final List<Object> layoutKey = getLayoutKey(dataRecord);
+			List<DataRecord> group = groupMap.get(layoutKey);
+			if (group == null) {
+				group = new ArrayList<>();
+				groupMap.put(layoutKey, group);
+			}
+			group.add(dataRecord);
+		}
+		return groupMap;
+	}
+	
+	/**
+	 * Get the key of the table and the field layout of a {@code DataRecord}.
+	 * 
+	 * <p>Two {@code DataRecord}s have the same key if they have the same 
+	 * data type and the same fields in the same order.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord}.
+	 *         
+	 * @return  The layout key.
+	 * 
+	 * @since   1.2
+	 */
+	protected static List<Object> getLayoutKey(final DataRecord dataRecord) {
+		return Arrays.<Object>asList(dataRecord.getDataTypeName(), dataRecord.getSchema());
+	}
+	
+	/**
+	 * Bind the values of all the fields in a {@code DataRecord} into a 
+	 * prepared statement.
+	 * 
+	 * @param  statement
+	 *         The prepared statement.
+	 *         
+	 * @param  dataRecord
+	 *         The {@code DataRecord} provides the values.
+	 *         
+	 * @param  startIndex
+	 *         The index of the first parameter to be bound.
+	 *         
+	 * @return  The index of the next parameter after the bound ones.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when binding the values.
+	 *          
+	 * @since   1.2
+	 */
+	protected static int bindValues(final PreparedStatement statement, final DataRecord dataRecord, final int startIndex) throws SQLException {
+		int index = startIndex;
+		for (int i = 0; i < dataRecord.getFieldCount(); i++) {
+			final Class<?> fieldType = dataRecord.getFieldType(i);
+			if (dataRecord.isNullAt(i)) {
+				statement.setNull(index++, SQL_TYPE_MAP.get(fieldType));
+			} else if (fieldType == Integer.class) {                    // bind the primitive values without boxing
+				statement.setInt(index++, dataRecord.getIntAt(i));
+			} else if (fieldType == Long.class) {
+				statement.setLong(index++, dataRecord.getLongAt(i));
+			} else if (fieldType == Double.class) {
+				statement.setDouble(index++, dataRecord.getDoubleAt(i));
+			} else {
+				bindValue(statement, index++, fieldType, dataRecord.getValueAt(i));
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * Bind one value into a prepared statement.
+	 * 
+	 * @param  statement
+	 *         The prepared statement.
+	 *         
+	 * @param  index
+	 *         The index of the parameter.
+	 *         
+	 * @param  fieldType
+	 *         The type of the value.
+	 *         
+	 * @param  value
+	 *         The value needs to be bound, can be {@code null}.
+	 *         
+	 * @throws  SQLException
+	 *          If an error occurred when binding the value.
+	 *          
+	 * @since   1.2
+	 */
+	protected static void bindValue(final PreparedStatement statement, final int index, final Class<?> fieldType, final Object value) throws SQLException {
+		if (value == null) {
+			statement.setNull(index, SQL_TYPE_MAP.get(fieldType));
+		} else if (fieldType == String.class) {
+			statement.setString(index, (String) value);
+		} else if (fieldType == Integer.class) {
+			statement.setInt(index, (Integer) value);
+		} else if (fieldType == Long.class) {
+			statement.setLong(index, (Long) value);
+		} else if (fieldType == Double.class) {
+			statement.setDouble(index, (Double) value);
+		}
+	}
+	
+	/**
+	 * Update one {@code DataRecord} into database.
+	 * 
+	 * @param  diff
+	 *         The {@code DataRecord} to capture the fields needs to be updated.
+	 *         
+	 * @return  The number of the updated records in database.
+	 *         
+	 * @throws  SQLException
+	 *          If an error occurred when updating the record into database.
+	 *          
+	 * @since   1.2
+	 */
+	protected int updateDataRecordBase(final DataRecord diff) throws SQLException {
+		if (diff.getFieldCount() == 0) {
+			return 0;                                 // nothing changed
+		}
+		
+		final PreparedStatement statement = prepareUpdateStatement(diff);
+		final int               index     = bindValues(statement, diff, 1);
+		statement.setLong(index, diff.getRecordId());
+		return statement.executeUpdate();
+	}
+	
+	/**
+	 * Query a list of {@code DataRecord}s from database.
+	 * 
+	 * <p>This method will query the table and get a list of matched results. 
+	 * And message the results to the list of {@code DataRecord}s.
+	 * 
+	 * @param  dataType
+	 *         The name of the table.
+	 * 
+	 * @param  whereClause
+	 *         The where clause of the query.
+	 *         
+	 * @return  The list of {@code DataRecord}s.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when querying the database.
+	 *          
+	 * @since   1.2
+	 */
+	protected List<DataRecord> queryDataRecordsBase(final String dataType, final String whereClause) throws SQLException {
+		final List<DataRecord> dataRecordList = new ArrayList<>();
+		final String sqlStatement = generateSQLQueryStatement(dataType, whereClause);
+		
+		try (final Statement statement = connect.createStatement();
+			 final ResultSet rs        = statement.executeQuery(sqlStatement)) {
+		
+			final RecordSchema schema = getRecordSchema(dataType);
+		
+			while(rs.next()) {
+				dataRecordList.add(readDataRecord(rs, dataType, schema));
+			}
+		}
+		
+		return dataRecordList;
+	}
+	
+	/**
+	 * Build a {@code DataRecord} from the current row of a result set.
+	 * 
+	 * @param  rs
+	 *         The result set positioned at a row.
+	 *         
+	 * @param  dataType
+	 *         The name of the table.
+	 *         
+	 * @param  schema
+	 *         The schema of the table, which will be shared by the 
+	 *         {@code DataRecord}.
+	 *         
+	 * @return  The {@code DataRecord} which is not new to database.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when reading the row.
+	 *          
+	 * @since   1.2
+	 */
+	protected static DataRecord readDataRecord(final ResultSet rs, final String dataType, final RecordSchema schema) throws SQLException {
+		return readDataRecord(rs, new DataRecord(dataType, schema, false));      // specify this DataRecord is not new one to database
+	}
+	
+	/**
+	 * Read the current row of a result set into a {@code DataRecord} with 
+	 * the schema of the table.
+	 * 
+	 * @param  rs
+	 *         The result set positioned at a row.
+	 *         
+	 * @param  dataRecord
+	 *         The {@code DataRecord} with the schema of the table.
+	 *         
+	 * @return  The {@code DataRecord}.
+	 * 
+	 * @throws  SQLException
+	 *          If an error occurred when reading the row.
+	 *          
+	 * @since   1.2
+	 */
+	protected static DataRecord readDataRecord(final ResultSet rs, final DataRecord dataRecord) throws SQLException {
+		final RecordSchema schema = dataRecord.getSchema();
+		dataRecord.setRecordId(rs.getLong(RECORD_IDENTIFIER));
+		for (int i = 0; i < schema.size(); i++) {
+			final String   columnName = schema.getName(i);
+			final Class<?> columnType = schema.getType(i);
+			if (columnType == String.class) {
+				dataRecord.putValueAt(i, rs.getString(columnName));
+			}
+			if (columnType == Integer.class) {
+				dataRecord.putLongAt(i, rs.getInt(columnName));
+			}
+			if (columnType == Long.class) {
+				dataRecord.putLongAt(i, rs.getLong(columnName));
+			}
+			if (columnType == Double.class) {
+				dataRecord.putDoubleAt(i, rs.getDouble(columnName));
+			}
+			if (schema.isPrimitive(i) && rs.wasNull()) {       // the primitive getters return 0 for SQL NULL
+				dataRecord.putNullAt(i);
+			}
+		}
+		return dataRecord;
+	}
+	
+	/**
+	 * Generate the SQL insert statement for one {@code DataRecord}.
+	 * 
+	 * <p>This function is to generate SQL insert statement and return the SQL
+	 * statement like: 
+	 * <pre>
+	 * INSERT INTO table (column1, column2, column3) 
+	 * VALUES (abc, 123, 12.4)
+	 * </pre>
+	 * 
+	 * <p>This function will automatically handle the mapping between each 
+	 * column name and its values. It totally avoids developer to write a long 
+	 * SQL statement or waste time on checking column mapping. 
+	 * 
+	 * <p>Also, developers also don't need to leave a white space when they 
+	 * are trying to message SQL statement.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be inserted.
+	 *         
+	 * @return  The SQL insert statement.
+	 * 
+	 * @since   1.2
+	 */
+	protected static String generateSQLInsertStatement(final DataRecord dataRecord) {
+		final StringBuilder sqlStatement = new StringBuilder();
+		final StringBuilder columnSb     = new StringBuilder();
+		final StringBuilder valueSb      = new StringBuilder();
+		
+		for (Map.Entry<String, Object> entry : dataRecord.getValueFields().entrySet()) {
+			// add column name
+			columnSb.append(entry.getKey()).append(",");
+			
+			// add value
+			if (dataRecord.getTypeFields().get(entry.getKey()) == String.class) {
+				valueSb.append("'").append(SqlUtil.insertValueWithSingleQuote((String) entry.getValue())).append("'").append(",");  // double the single quote if the value is string
+			}
+			if (dataRecord.getTypeFields().get(entry.getKey()) == Integer.class) {
+				valueSb.append((Integer)entry.getValue()).append(",");
+			}
+			if (dataRecord.getTypeFields().get(entry.getKey()) == Long.class) {
+				valueSb.append((Long) entry.getValue()).append(",");
+			}
+			if (dataRecord.getTypeFields().get(entry.getKey()) == Double.class) {
+				valueSb.append((Double) entry.getValue()).append(",");
+			}
+		}
+		
+		// Build SQL statement
+		sqlStatement.append("INSERT INTO " + dataRecord.getDataTypeName() + " ");
+		sqlStatement.append("(").append(columnSb.substring(0, columnSb.length()-1)).append(") ");
+		sqlStatement.append("VALUES ");
+		sqlStatement.append("(").append(valueSb.substring(0, valueSb.length()-1)).append(")");
+		
+		return sqlStatement.toString();
+	}
+	
+	/**
+	 * Generate the parameterized SQL insert statement for one 
+	 * {@code DataRecord}.
+	 * 
+	 * <p>This function is to generate SQL insert statement with one 
+	 * placeholder for each field and return the SQL statement like: 
+	 * <pre>
+	 * INSERT INTO table (column1, column2, column3) 
+	 * VALUES (?, ?, ?)
+	 * </pre>
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} needs to be inserted.
+	 *         
+	 * @return  The SQL insert statement.
+	 * 
+	 * @since   1.2
+	 */
+	protected static String generateSQLPreparedInsertStatement(final DataRecord dataRecord) {
+		final StringBuilder sqlStatement = new StringBuilder();
+		final StringBuilder columnSb     = new StringBuilder();
+		final StringBuilder valueSb      = new StringBuilder();
+		
+		for (String fieldName : dataRecord.getValueFields().keySet()) {
+			columnSb.append(fieldName).append(",");
+			valueSb.append("?,");
+		}
+		
+		// Build SQL statement
+		sqlStatement.append("INSERT INTO " + dataRecord.getDataTypeName() + " ");
+		sqlStatement.append("(").append(columnSb.substring(0, columnSb.length()-1)).append(") ");
+		sqlStatement.append("VALUES ");
+		sqlStatement.append("(").append(valueSb.substring(0, valueSb.length()-1)).append(")");
+		
+		return sqlStatement.toString();
+	}
+	
+	/**
+	 * Generate the parameterized multi-row SQL insert statement for the 
+	 * {@code DataRecord}s with the same field layout.
+	 * 
+	 * <p>This function is to generate SQL insert statement with one 
+	 * placeholder for each field of each row and return the SQL statement 
+	 * like: 
+	 * <pre>
+	 * INSERT INTO table (column1, column2) 
+	 * VALUES (?, ?), (?, ?), (?, ?)
+	 * </pre>
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} provides the table and the field layout.
+	 *         
+	 * @param  rowCount
+	 *         The number of rows.
+	 *         
+	 * @return  The SQL insert statement.
+	 * 
+	 * @since   1.2
+	 */
+	protected static String generateSQLMultiRowInsertStatement(final DataRecord dataRecord, final int rowCount) {
+		Preconditions.checkArgument(rowCount > 0, "rowCount is not positive");
+		
+		final String        singleRow    = generateSQLPreparedInsertStatement(dataRecord);
+		final String        placeholders = singleRow.substring(singleRow.lastIndexOf('('));
+		final StringBuilder sqlStatement = new StringBuilder(singleRow.length() + (placeholders.length() + 1) * (rowCount - 1));
+		
+		sqlStatement.append(singleRow);
+		for (int i = 1; i < rowCount; i++) {
+			sqlStatement.append(",").append(placeholders);
+		}
+		return sqlStatement.toString();
+	}
+	
+	/**
+	 * Generate the PostgreSQL {@code COPY} statement for the 
+	 * {@code DataRecord}s with the same field layout.
+	 * 
+	 * <p>This function is to generate the statement which reads the rows 
+	 * from the standard input, like: 
+	 * <pre>
+	 * COPY table (column1, column2, column3) FROM STDIN
+	 * </pre>
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} provides the table and the field layout.
+	 *         
+	 * @return  The {@code COPY} statement.
+	 * 
+	 * @since   1.2
+	 */
+	protected static String generateSQLCopyStatement(final DataRecord dataRecord) {
+		return "COPY " + dataRecord.getDataTypeName() + " (" + String.join(",", dataRecord.getValueFields().keySet()) + ") FROM STDIN";
+	}
+	
+	/**
+	 * Generate the MySQL {@code LOAD DATA LOCAL INFILE} statement for the 
+	 * {@code DataRecord}s with the same field layout.
+	 * 
+	 * <p>This function is to generate the statement which reads the 
+	 * tab-separated rows from the local input stream, like: 
+	 * <pre>
+	 * LOAD DATA LOCAL INFILE 'stream' INTO TABLE table CHARACTER SET utf8mb4 
+	 * (column1, column2, column3)
+	 * </pre>
+	 * 
+	 * <p>The file name is only a placeholder, the rows are read from the 
+	 * input stream set to the statement.
+	 * 
+	 * @param  dataRecord
+	 *         The {@code DataRecord} provides the table and the field layout.
+	 *         
+	 * @return  The {@code LOAD DATA} statement.
+	 * 
+	 * @since   1.2
+	 */
+	protected static String generateSQLLoadDataStatement(final DataRecord dataRecord) {
+		return "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + dataRecord.getDataTypeName() 
+				+ " CHARACTER SET utf8mb4 (" + String.join(",", dataRecord.getValueFields().keySet()) + ")";
+	}
+	
+	/**
+	 * Generate SQL update statement for one {@code DataRecord}.
+	 * 
+	 * <p>This function is to generate SQL update statement and return the SQL
+	 * statement like: 
+	 * <pre>
+	 * UPDATE table SET column1='abc', column2=12 
+	 * WHERE RecordId = 123.
+	 * </pre>
+	 * 
+	 * <p>This function will automatically handle the mapping between each 
+	 * column name and it updated value. It totally avoids developer to write 
+	 * a long SQL statement or waste time on checking column mapping.
+	 * 
+	 * <p>Also, developers also don't need to leave a white space when they 
+	 * are trying to message SQL statement.
+	 * 
+	 * @param  diff
+	 *         The {@code DataRecord} to capture the fields needs to be updated.
+	 *  
+	 * @return  The SQL update statement.
+	 * 
+	 * @since   1.2
+	 */
+	protected static String generateSQLUpdateStatement(final DataRecord diff) {
+		final StringBuilder sqlStatement = new StringBuilder();
+		final StringBuilder assignSb     = new StringBuilder();
+		
+		for (Map.Entry<String, Object> entry : diff.getValueFields().entrySet()) {
+			if (diff.getTypeFields().get(entry.getKey()) == String.class) {
+				assignSb.append(entry.getKey()).append("=").append("'").append(SqlUtil.insertValueWithSingleQuote((String) entry.getValue())).append("'").append(",");  // double the single quote if the value is string
+			}
+			if (diff.getTypeFields().get(entry.getKey()) == Integer.class) {
+				assignSb.append(entry.getKey()).append("=").append((Integer)entry.getValue()).append(",");
+			}
+			if (diff.getTypeFields().get(entry.getKey()) == Long.class) {
+				assignSb.append(entry.getKey()).append("=").append((Long) entry.getValue()).append(",");
+			}
+			if (diff.getTypeFields().get(entry.getKey()) == Double.class) {
+				assignSb.append(entry.getKey()).append("=").append((Double) entry.getValue()).append(",");
+			}
+		}
+		
+		// Build SQL statement
+		sqlStatement.append("UPDATE " + diff.getDataTypeName() + " ");
+		sqlStatement.append("SET ").append(assignSb.substring(0, assignSb.length()-1)).append(" ");
+		sqlStatement.append("WHERE " + RECORD_IDENTIFIER + " = " + diff.getRecordId());
+		
+		return sqlStatement.toString();
+	}
+	
+	/**
+	 * Generate the parameterized SQL update statement for one 
+	 * {@code DataRecord}.
+	 * 
+	 * <p>This function is to generate SQL update statement with one 
+	 * placeholder for each field and one placeholder for the record 
+	 * identifier, and return the SQL statement like: 
+	 * <pre>
+	 * UPDATE table SET column1=?, column2=? 
+	 * WHERE RecordId = ?
+	 * </pre>
+	 * 
+	 * @param  diff
+	 *         The {@code DataRecord} to capture the fields needs to be updated.
+	 *  
+	 * @return  The SQL update statement.
+	 * 
+	 * @since   1.2
+	 */
+	protected static String generateSQLPreparedUpdateStatement(final DataRecord diff) {
+		final StringBuilder sqlStatement = new StringBuilder();
+		final StringBuilder assignSb     = new StringBuilder();
+		
+		for (String fieldName : diff.getValueFields().keySet()) {
+			assignSb.append(fieldName).append("=?,");
+		}
+		
+		// Build SQL statement
+		sqlStatement.append("UPDATE " + diff.getDataTypeName() + " ");
+		sqlStatement.append("SET ").append(assignSb.substring(0, assignSb.length()-1)).append(" ");
+		sqlStatement.append("WHERE " + RECORD_IDENTIFIER + " = ?");
+		
+		return sqlStatement.toString();
+	}
+	
+	/**
+	 * Generate SQL query statement for one {@code DataRecord}.
+	 * 
+	 * <p>This function is to generate SQL query statement and return the SQL
+	 * statement like: 
+	 * <pre>
+	 * SELECT * FROM table WHERE column = 'abc'.
+	 * </pre>
+	 * 
+	 * <p>This function will automatically handle the mapping between each 
+	 * column name and its values.
+	 * 
+	 * @param  dataType
+	 *         The name of the table.
+	 *         
+	 * @param  whereClause
+	 *         The where clause.
+	 *         
+	 * @return  The SQL query statement.
+	 * 
+	 * @since   1.2
+	 */
+	protected static String generateSQLQueryStatement(final String dataType, final String whereClause) {
+		Preconditions.checkArgument(!isNullOrEmpty(dataType), "dataType is null or empty");
+		
+		final StringBuilder sqlStatement = new StringBuilder();
+		if (isNullOrEmpty(whereClause)) {
+			sqlStatement.append(SELECT_STATEMENT + dataType);
+		} else {
+			sqlStatement.append(SELECT_STATEMENT + dataType + " WHERE ").append(whereClause);
+		}
+		return sqlStatement.toString();
+	}
+	
+	/**
+	 * Compare two {@code DataRecord}s.
+	 * 
+	 * <p>This method will compare two {@code DataRecord}s and return a new 
+	 * {@code DataRecord} to capture the value difference between them by 
+	 * populating the new {@code DataRecord} with the values in df2.
+	 * 
+	 * @param  dr1
+	 *         The first {@code DataRecord}.
+	 *         
+	 * @param  dr2
+	 *         The second {@code DataRecord}.
+	 *         
+	 * @return  The new {@code DataRecord} to reflect the differences by the 
+	 *          field name and the values in the dr2.
+	 *          
+	 * @since   1.2
+	 */
+	protected static DataRecord compareAndGetDiff(final DataRecord dr1, final DataRecord dr2) {
+		Preconditions.checkNotNull(dr1);
+		Preconditions.checkNotNull(dr2);
+		Preconditions.checkArgument(dr1.getDataTypeName().equalsIgnoreCase(dr2.getDataTypeName()));
+		
+		final DataRecord diff = new DataRecord(dr1.getDataTypeName());
+		
+		final Map<String, Object> valueMap2 = dr2.getValueFields();
+		for (Map.Entry<String, Object> entry : dr1.getValueFields().entrySet()) {
+			if(entry.getValue() != valueMap2.get(entry.getKey())) {
+				diff.putField(entry.getKey(), dr2.getTypeFields().get(entry.getKey()), valueMap2.get(entry.getKey()));         // the new value should be based on dr2
+			}
+		}
+		
+		return diff;
+	}
+	
+	/**
+	 * Copy the {@code DataRecord}s in the commit pool of this session.
+	 * 
+	 * @return  The new list of the {@code DataRecord}s.
+	 * 
+	 * @since   1.2
+	 */
+	List<DataRecord> getCommitPoolSnapshot() {
+		return commitPool.snapshot();
+	}
+	
+	/**
+	 * Get the size of the commit pool of this session.
+	 * 
+	 * @return  The size of the commit pool.
+	 * 
+	 * @since   1.2
+	 */
+	public int getSizeOfCommitPool() {
+		return commitPool.size();
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Executor of the blocking database calls submitted by
+ * {@code DataRecordManager}.
+ *
+ * <p>On Java 21 or later, each task can run on its own virtual thread, so
+ * thousands of waiting lookups don't need thousands of platform threads.
+ * The virtual-thread executor is looked up by reflection, so this class is
+ * still compiled for Java 8; on the older runtimes it falls back to a pool
+ * of daemon platform threads.
+ *
+ * <p>Either way, at most {@code maxConcurrency} tasks run at the same time,
+ * the other tasks wait for a permit. The limit should match the size of the
+ * connection pool: a task waiting for a permit is cheap, but a virtual
+ * thread waiting for a connection inside {@code ConnectionPool.borrow()}
+ * pins its carrier thread.
+ *
+ * <p>It is also the default {@code Executor} of the asynchronous methods of
+ * {@code DataRecordManager}, like {@code queryDataRecordsAsync()}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/28/2018
+ * @version 1.2
+ * @since   1.2
+ */
+final class IoExecutor implements Executor, AutoCloseable {
+	/** The time an idle platform thread is kept: 60 seconds. */
+	private static final long KEEP_ALIVE_MILLIS = 60L * 1000;
+
+	private final ExecutorService executor;
+	private final Semaphore       permits;
+	private final boolean         virtual;
+
+	/**
+	 * Construct an {@code IoExecutor}.
+	 *
+	 * @param  maxConcurrency
+	 *         The maximum number of the tasks running at the same time,
+	 *         must be positive.
+	 *
+	 * @param  useVirtualThreads
+	 *         {@code true} to run the tasks on virtual threads if the runtime
+	 *         supports them; {@code false} to use platform threads.
+	 *
+	 * @since   1.2
+	 */
+	IoExecutor(final int maxConcurrency, final boolean useVirtualThreads) {
+		Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency is not positive");
+
+		final ExecutorService virtualExecutor = useVirtualThreads ? newVirtualThreadExecutor() : null;
+		this.virtual  = virtualExecutor != null;
+		this.executor = virtual ? virtualExecutor : newPlatformThreadExecutor(maxConcurrency);
+		this.permits  = new Semaphore(maxConcurrency, true);
+	}
+
+	/**
+	 * Check whether the runtime supports virtual threads (Java 21 or later).
+	 *
+	 * @return  {@code true} if the virtual threads are supported;
+	 *          {@code false} otherwise.
+	 *
+	 * @since   1.2
+	 */
+	static boolean isVirtualThreadSupported() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Submit a task, which runs when a permit is available.
+	 *
+	 * @param  task
+	 *         The task to be executed.
+	 *
+	 * @return  The {@code Future} of the result.
+	 *
+	 * @throws  java.util.concurrent.RejectedExecutionException
+	 *          If this executor is closed.
+	 *
+	 * @since   1.2
+	 */
+	<T> Future<T> submit(final Callable<T> task) {
+		Preconditions.checkNotNull(task);
+		return executor.submit(() -> {
+			permits.acquire();
+			try {
+				return task.call();
+			} finally {
+				permits.release();
+			}
+		});
+	}
+
+	/**
+	 * Execute a task when a permit is available.
+	 *
+	 * @param  command
+	 *         The task to be executed.
+	 *
+	 * @throws  java.util.concurrent.RejectedExecutionException
+	 *          If this executor is closed.
+	 *
+	 * @since   1.2
+	 */
+	@Override
+	public void execute(final Runnable command) {
+		Preconditions.checkNotNull(command);
+		executor.execute(() -> {
+			permits.acquireUninterruptibly();        // a dropped command would never complete its future
+			try {
+				command.run();
+			} finally {
+				permits.release();
+			}
+		});
+	}
+
+	/**
+	 * Run a task which throws checked exceptions on an executor and
+	 * complete a {@code CompletableFuture} by its result.
+	 *
+	 * @param  task
+	 *         The task to be executed.
+	 *
+	 * @param  executor
+	 *         The executor to run the task.
+	 *
+	 * @return  The {@code CompletableFuture} of the result, which is
+	 *          completed exceptionally by the exception thrown by the task,
+	 *          or by the {@code RejectedExecutionException} if the executor
+	 *          rejects the task.
+	 *
+	 * @since   1.2
+	 */
+	static <T> CompletableFuture<T> callAsync(final Callable<T> task, final Executor executor) {
+		Preconditions.checkNotNull(task);
+		Preconditions.checkNotNull(executor);
+
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			executor.execute(() -> {
+				try {
+					future.complete(task.call());
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Check whether the tasks run on virtual threads.
+	 *
+	 * @return  {@code true} if the tasks run on virtual threads;
+	 *          {@code false} if they run on platform threads.
+	 *
+	 * @since   1.2
+	 */
+	boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Stop accepting new tasks. The submitted tasks still run to the end.
+	 *
+	 * @since   1.2
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;                              // before Java 21, or the preview is not enabled
+		}
+	}
+
+	private static ExecutorService newPlatformThreadExecutor(final int size) {
+		final AtomicInteger      count    = new AtomicInteger();
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			final Thread thread = new Thread(runnable, "datarecord-io-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
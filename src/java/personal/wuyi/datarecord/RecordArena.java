@@ -0,0 +1,290 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Off-heap storage for the values of the {@code DataRecord}s of one table.
+ *
+ * <p>The values are stored in a direct {@code ByteBuffer} with a fixed
+ * capacity, so a large number of {@code DataRecord}s can be kept in memory
+ * without growing the heap. A {@code DataRecord} created by an arena is a
+ * small handle: it is used in the same way as the other
+ * {@code DataRecord}s, but its values are read from and written to the
+ * arena.
+ *
+ * <p>The layout of the buffer:
+ * <ul>
+ * 	<li>The records are allocated from the start of the buffer. Each record
+ *      has a null bitmap followed by an 8-byte slot for each field, a
+ *      numeric value is stored in the slot directly and a string value is
+ *      stored as the offset and the length of its UTF-8 bytes.
+ * 	<li>The UTF-8 bytes of the strings are allocated from the end of the
+ *      buffer.
+ * </ul>
+ *
+ * <p>The arena is append-only: setting a string field writes the new bytes
+ * and the old bytes are not reused. When the records and the strings meet,
+ * the arena is full and no more records or strings can be written.
+ *
+ * <p>The fields of a {@code DataRecord} in an arena are fixed by the schema
+ * of the table, a field which is not a column of the table can not be set.
+ *
+ * @author  Wuyi Chen
+ * @date    12/19/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public final class RecordArena {
+	private final String       dataType;
+	private final RecordSchema schema;
+	private final ByteBuffer   buffer;
+	private final int          nullBitmapBytes;
+	private final int          recordBytes;
+	private int                recordCount;
+	private int                stringStart;
+
+	/**
+	 * Construct a {@code RecordArena}.
+	 *
+	 * @param  dataType
+	 *         The table name in the database matches to the
+	 *         {@code DataRecord}s.
+	 *
+	 * @param  schema
+	 *         The schema of the table.
+	 *
+	 * @param  capacity
+	 *         The size of the buffer in bytes.
+	 *
+	 * @since   1.2
+	 */
+	RecordArena(final String dataType, final RecordSchema schema, final int capacity) {
+		Preconditions.checkNotNull(dataType);
+		Preconditions.checkNotNull(schema);
+		Preconditions.checkArgument(capacity > 0, "capacity is not positive");
+		for (int i = 0; i < schema.size(); i++) {
+			Preconditions.checkArgument(schema.isPrimitive(i) || schema.getType(i) == String.class,
+					"%s is not supported by the record arena", schema.getType(i));
+		}
+
+		this.dataType        = dataType;
+		this.schema          = schema;
+		this.buffer          = ByteBuffer.allocateDirect(capacity);
+		this.nullBitmapBytes = ((schema.size() + 63) >>> 6) * 8;
+		this.recordBytes     = nullBitmapBytes + schema.size() * 8;
+		this.stringStart     = capacity;
+	}
+
+	public String getDataTypeName()     { return dataType;           }
+	public int    getCapacity()         { return buffer.capacity();  }
+	RecordSchema  getSchema()           { return schema;             }
+
+	/**
+	 * Get the number of the records in this arena.
+	 *
+	 * @return  The number of the records.
+	 *
+	 * @since   1.2
+	 */
+	public synchronized int size() {
+		return recordCount;
+	}
+
+	/**
+	 * Get the number of the bytes used by the records and the strings.
+	 *
+	 * @return  The number of the used bytes.
+	 *
+	 * @since   1.2
+	 */
+	public synchronized int getUsedBytes() {
+		return recordCount * recordBytes + (buffer.capacity() - stringStart);
+	}
+
+	/**
+	 * Create a {@code DataRecord} stored in this arena.
+	 *
+	 * <p>The values of all the fields are {@code null} initially.
+	 *
+	 * @param  isNewRecordForDatabase
+	 *         The flag to indicate the {@code DataRecord} is new to the
+	 *         database.
+	 *
+	 * @return  The {@code DataRecord}.
+	 *
+	 * @throws  IllegalStateException
+	 *          If there is no space for one more record.
+	 *
+	 * @since   1.2
+	 */
+	synchronized DataRecord allocate(final boolean isNewRecordForDatabase) {
+		Preconditions.checkState((long) (recordCount + 1) * recordBytes <= stringStart, "record arena is full");
+
+		return new DataRecord(this, recordCount++, isNewRecordForDatabase);
+	}
+
+	/**
+	 * Check the value of a field of a record is not {@code null}.
+	 *
+	 * @param  record
+	 *         The index of the record.
+	 *
+	 * @param  field
+	 *         The ordinal index of the field.
+	 *
+	 * @return  {@code true} if the value is not {@code null};
+	 *          {@code false} otherwise.
+	 *
+	 * @since   1.2
+	 */
+	boolean isNonNull(final int record, final int field) {
+		return (buffer.getLong(bitmapOffset(record, field)) & (1L << field)) != 0;
+	}
+
+	/**
+	 * Get the slot of a field of a record.
+	 *
+	 * @param  record
+	 *         The index of the record.
+	 *
+	 * @param  field
+	 *         The ordinal index of the field.
+	 *
+	 * @return  The 8 bytes of the slot.
+	 *
+	 * @since   1.2
+	 */
+	long getSlot(final int record, final int field) {
+		return buffer.getLong(slotOffset(record, field));
+	}
+
+	/**
+	 * Set the slot of a field of a record, and mark the value as not
+	 * {@code null}.
+	 *
+	 * @param  record
+	 *         The index of the record.
+	 *
+	 * @param  field
+	 *         The ordinal index of the field.
+	 *
+	 * @param  value
+	 *         The 8 bytes of the slot.
+	 *
+	 * @since   1.2
+	 */
+	void putSlot(final int record, final int field, final long value) {
+		buffer.putLong(slotOffset(record, field), value);
+		final int bitmapOffset = bitmapOffset(record, field);
+		buffer.putLong(bitmapOffset, buffer.getLong(bitmapOffset) | (1L << field));
+	}
+
+	/**
+	 * Set the value of a field of a record as {@code null}.
+	 *
+	 * @param  record
+	 *         The index of the record.
+	 *
+	 * @param  field
+	 *         The ordinal index of the field.
+	 *
+	 * @since   1.2
+	 */
+	void putNull(final int record, final int field) {
+		buffer.putLong(slotOffset(record, field), 0);
+		final int bitmapOffset = bitmapOffset(record, field);
+		buffer.putLong(bitmapOffset, buffer.getLong(bitmapOffset) & ~(1L << field));
+	}
+
+	/**
+	 * Get the string value of a field of a record.
+	 *
+	 * @param  record
+	 *         The index of the record.
+	 *
+	 * @param  field
+	 *         The ordinal index of the field.
+	 *
+	 * @return  The string value, can be {@code null}.
+	 *
+	 * @since   1.2
+	 */
+	String getString(final int record, final int field) {
+		if (!isNonNull(record, field)) {
+			return null;
+		}
+
+		final long       slot   = getSlot(record, field);
+		final int        offset = (int) (slot >>> 32);
+		final byte[]     bytes  = new byte[(int) slot];
+		final ByteBuffer view   = buffer.duplicate();     // a private position, the shared buffer is only accessed by index
+		view.position(offset);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Set the string value of a field of a record.
+	 *
+	 * @param  record
+	 *         The index of the record.
+	 *
+	 * @param  field
+	 *         The ordinal index of the field.
+	 *
+	 * @param  value
+	 *         The string value, can be {@code null}.
+	 *
+	 * @throws  IllegalStateException
+	 *          If there is no space for the string.
+	 *
+	 * @since   1.2
+	 */
+	void putString(final int record, final int field, final String value) {
+		if (value == null) {
+			putNull(record, field);
+			return;
+		}
+
+		final byte[]     bytes  = value.getBytes(StandardCharsets.UTF_8);
+		final int        offset = allocateString(bytes.length);
+		final ByteBuffer view   = buffer.duplicate();
+		view.position(offset);
+		view.put(bytes);
+		putSlot(record, field, ((long) offset << 32) | bytes.length);
+	}
+
+	private synchronized int allocateString(final int length) {
+		Preconditions.checkState((long) recordCount * recordBytes + length <= stringStart, "record arena is full");
+
+		stringStart -= length;
+		return stringStart;
+	}
+
+	private int bitmapOffset(final int record, final int field) {
+		return record * recordBytes + (field >>> 6) * 8;
+	}
+
+	private int slotOffset(final int record, final int field) {
+		return record * recordBytes + nullBitmapBytes + field * 8;
+	}
+}
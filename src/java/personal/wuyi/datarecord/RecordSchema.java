@@ -0,0 +1,221 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Immutable layout of the fields in a {@code DataRecord}: the ordered field
+ * names, the type of each field and the ordinal index of each field.
+ *
+ * <p>All the {@code DataRecord}s loaded from the same table share one schema,
+ * and each {@code DataRecord} only stores its values by the ordinal index,
+ * so the field names and types are not repeated per record.
+ *
+ * <p>A {@code DataRecord} built field by field moves from a schema to a
+ * wider one when a new field is set. The wider schema is cached as a
+ * transition of the narrower one, so the {@code DataRecord}s built with the
+ * same fields in the same order also share their schemas.
+ *
+ * <p>The schema also assigns a storage slot to each field: the
+ * {@code Integer}, {@code Long} and {@code Double} fields are stored in the
+ * primitive slots of a {@code DataRecord} and the other fields are stored in
+ * the reference slots. The slots of a kind are numbered in the order of the
+ * fields, so appending a field never moves the existing slots.
+ *
+ * @author  Wuyi Chen
+ * @date    12/17/2018
+ * @version 1.2
+ * @since   1.2
+ */
+final class RecordSchema {
+	/** The schema without any field. */
+	static final RecordSchema EMPTY = new RecordSchema(new String[0], new Class<?>[0]);
+
+	private final String[]                                 names;
+	private final Class<?>[]                               types;
+	private final Map<String, Integer>                     indexMap;
+	private final Map<String, Class<?>>                    typeMap;
+	private final List<String>                             nameList;
+	private final int                                      hashCode;
+	private final int[]                                    slots;
+	private final boolean[]                                primitives;
+	private final int                                      primitiveCount;
+	private final int                                      referenceCount;
+	private final Map<Class<?>, Map<String, RecordSchema>> transitionMap = new ConcurrentHashMap<>();
+
+	private RecordSchema(final String[] names, final Class<?>[] types) {
+		this.names = names;
+		this.types = types;
+
+		final Map<String, Integer>  indexes   = new HashMap<>();
+		final Map<String, Class<?>> typeByKey = new LinkedHashMap<>();
+		for (int i = 0; i < names.length; i++) {
+			indexes.put(names[i], i);
+			typeByKey.put(names[i], types[i]);
+		}
+		this.indexMap = indexes;
+		this.typeMap  = Collections.unmodifiableMap(typeByKey);
+		this.nameList = Collections.unmodifiableList(Arrays.asList(names));
+		this.hashCode = 31 * Arrays.hashCode(names) + Arrays.hashCode(types);
+
+		this.slots      = new int[names.length];
+		this.primitives = new boolean[names.length];
+		int primitiveSlot = 0;
+		int referenceSlot = 0;
+		for (int i = 0; i < names.length; i++) {
+			primitives[i] = isPrimitiveType(types[i]);
+			slots[i]      = primitives[i] ? primitiveSlot++ : referenceSlot++;
+		}
+		this.primitiveCount = primitiveSlot;
+		this.referenceCount = referenceSlot;
+	}
+
+	/**
+	 * Check a field type is stored in a primitive slot.
+	 *
+	 * @param  type
+	 *         The type of the field.
+	 *
+	 * @return  {@code true} if the type is {@code Integer}, {@code Long} or
+	 *          {@code Double};
+	 *          {@code false} otherwise.
+	 *
+	 * @since   1.2
+	 */
+	static boolean isPrimitiveType(final Class<?> type) {
+		return type == Integer.class || type == Long.class || type == Double.class;
+	}
+
+	/**
+	 * Build a schema from the column metadata of a table.
+	 *
+	 * @param  columnTypes
+	 *         The ordered map of the column names and the column types.
+	 *
+	 * @return  The schema with the same columns in the same order.
+	 *
+	 * @since   1.2
+	 */
+	static RecordSchema of(final Map<String, Class<?>> columnTypes) {
+		Preconditions.checkNotNull(columnTypes);
+
+		final String[]   names = new String[columnTypes.size()];
+		final Class<?>[] types = new Class<?>[columnTypes.size()];
+		int i = 0;
+		for (Map.Entry<String, Class<?>> entry : columnTypes.entrySet()) {
+			names[i] = entry.getKey();
+			types[i] = entry.getValue();
+			i++;
+		}
+		return new RecordSchema(names, types);
+	}
+
+	/**
+	 * Get the schema with one more field, or with a different type of an
+	 * existing field.
+	 *
+	 * <p>If the field already exists with the same type, this schema will be
+	 * returned. A new field is appended at the end, and the wider schema is
+	 * cached as a transition of this schema.
+	 *
+	 * @param  name
+	 *         The name of the field.
+	 *
+	 * @param  type
+	 *         The type of the field.
+	 *
+	 * @return  The schema containing the field with the type.
+	 *
+	 * @since   1.2
+	 */
+	RecordSchema withField(final String name, final Class<?> type) {
+		final int index = indexOf(name);
+		if (index >= 0) {
+			if (types[index] == type) {
+				return this;
+			}
+			final Class<?>[] newTypes = types.clone();
+			newTypes[index] = type;
+			return new RecordSchema(names, newTypes);
+		}
+
+		final Map<String, RecordSchema> typeTransitionMap = transitionMap.computeIfAbsent(type, key -> new ConcurrentHashMap<>());
+		final RecordSchema cached = typeTransitionMap.get(name);
+		if (cached != null) {
+			return cached;
+		}
+
+		final String[]   newNames = Arrays.copyOf(names, names.length + 1);
+		final Class<?>[] newTypes = Arrays.copyOf(types, types.length + 1);
+		newNames[names.length] = name;
+		newTypes[types.length] = type;
+		final RecordSchema wider  = new RecordSchema(newNames, newTypes);
+		final RecordSchema racing = typeTransitionMap.putIfAbsent(name, wider);
+		return racing == null ? wider : racing;
+	}
+
+	/**
+	 * Get the ordinal index of a field.
+	 *
+	 * @param  name
+	 *         The name of the field.
+	 *
+	 * @return  The index of the field, or -1 if the field doesn't exist.
+	 *
+	 * @since   1.2
+	 */
+	int indexOf(final String name) {
+		final Integer index = indexMap.get(name);
+		return index == null ? -1 : index;
+	}
+
+	int                   size()                       { return names.length;      }
+	String                getName(final int index)     { return names[index];      }
+	Class<?>              getType(final int index)     { return types[index];      }
+	List<String>          getNames()                   { return nameList;          }
+	Map<String, Class<?>> getTypeMap()                 { return typeMap;           }
+	boolean               isPrimitive(final int index) { return primitives[index]; }
+	int                   getSlot(final int index)     { return slots[index];      }
+	int                   getPrimitiveCount()          { return primitiveCount;    }
+	int                   getReferenceCount()          { return referenceCount;    }
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof RecordSchema)) {
+			return false;
+		}
+		final RecordSchema other = (RecordSchema) obj;
+		return hashCode == other.hashCode && Arrays.equals(names, other.names) && Arrays.equals(types, other.types);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+}
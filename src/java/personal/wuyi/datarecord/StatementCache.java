@@ -0,0 +1,354 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Least-recently-used cache for the prepared statements of one database
+ * connection.
+ *
+ * <p>A prepared statement is identified by the operation, the table and the
+ * ordered columns it binds, so the SQL text of a statement only needs to be
+ * generated and parsed by the database once, and the statement can be reused
+ * by all the records with the same field layout.
+ *
+ * <p>When the number of the cached statements exceeds the capacity, the
+ * least recently used statement will be closed and removed. The cache is
+ * bound to a single connection, so it should be invalidated before the
+ * connection is closed or rebuilt.
+ *
+ * @author  Wuyi Chen
+ * @date    12/07/2018
+ * @version 1.2
+ * @since   1.2
+ */
+class StatementCache {
+	/** The default maximum number of the cached statements. */
+	static final int DEFAULT_CAPACITY = 64;
+
+	/**
+	 * The operations of the cached statements.
+	 */
+	enum Operation {
+		INSERT,
+		UPDATE,
+		MULTI_ROW_INSERT
+	}
+
+	/**
+	 * The generator to build the SQL text of a statement when the statement
+	 * is not cached.
+	 */
+	interface SqlGenerator {
+		String generate();
+	}
+
+	/** The lock of the cache, not a monitor, because preparing a statement may block on the database. */
+	private final ReentrantLock               lock         = new ReentrantLock();
+	private final Map<Key, PreparedStatement> statementMap = new LinkedHashMap<>(16, 0.75f, true);
+	private int                               capacity     = DEFAULT_CAPACITY;
+
+	/** The columns returned as the generated keys, {@code null} for the keys chosen by the driver. */
+	private final String[]                    keyColumnNames;
+
+	/**
+	 * Construct a {@code StatementCache} whose insert statements return the
+	 * generated keys chosen by the driver.
+	 *
+	 * @since   1.2
+	 */
+	StatementCache() {
+		this(null);
+	}
+
+	/**
+	 * Construct a {@code StatementCache} whose insert statements return the
+	 * given columns as the generated keys.
+	 *
+	 * <p>Some drivers return a row address instead of the key by default,
+	 * like the {@code ROWID} of Oracle, so the key column has to be named.
+	 *
+	 * @param  keyColumnNames
+	 *         The columns returned as the generated keys, {@code null} for
+	 *         the keys chosen by the driver.
+	 *
+	 * @since   1.2
+	 */
+	StatementCache(final String[] keyColumnNames) {
+		this.keyColumnNames = (keyColumnNames == null) ? null : keyColumnNames.clone();
+	}
+
+	/**
+	 * Get the prepared statement for an operation on a table with a certain
+	 * column layout.
+	 *
+	 * <p>If the statement is not cached, it will be prepared on the connection
+	 * with the SQL text built by the generator, and the least recently used
+	 * statement will be closed if the cache is full. The insert statements
+	 * are prepared to return the generated keys.
+	 *
+	 * @param  connect
+	 *         The connection to prepare the statement.
+	 *
+	 * @param  operation
+	 *         The operation of the statement.
+	 *
+	 * @param  tableName
+	 *         The name of the table.
+	 *
+	 * @param  columns
+	 *         The ordered column names bound by the statement.
+	 *
+	 * @param  generator
+	 *         The generator to build the SQL text of the statement.
+	 *
+	 * @return  The prepared statement.
+	 *
+	 * @throws  SQLException
+	 *          If an error occurred when preparing the statement or closing
+	 *          the evicted statement.
+	 *
+	 * @since   1.2
+	 */
+	PreparedStatement get(final Connection connect, final Operation operation, final String tableName,
+			final Collection<String> columns, final SqlGenerator generator) throws SQLException {
+		return get(connect, operation, tableName, columns, 1, generator);
+	}
+
+	/**
+	 * Get the prepared statement for an operation on a table with a certain
+	 * column layout and a certain number of rows.
+	 *
+	 * <p>This method is for the statements binding the same columns of
+	 * multiple rows, like the multi-row insert statements. The statements
+	 * with the different number of rows are cached separately.
+	 *
+	 * @param  connect
+	 *         The connection to prepare the statement.
+	 *
+	 * @param  operation
+	 *         The operation of the statement.
+	 *
+	 * @param  tableName
+	 *         The name of the table.
+	 *
+	 * @param  columns
+	 *         The ordered column names bound by the statement.
+	 *
+	 * @param  rowCount
+	 *         The number of rows bound by the statement, must be positive.
+	 *
+	 * @param  generator
+	 *         The generator to build the SQL text of the statement.
+	 *
+	 * @return  The prepared statement.
+	 *
+	 * @throws  SQLException
+	 *          If an error occurred when preparing the statement or closing
+	 *          the evicted statement.
+	 *
+	 * @since   1.2
+	 */
+	PreparedStatement get(final Connection connect, final Operation operation, final String tableName,
+			final Collection<String> columns, final int rowCount, final SqlGenerator generator) throws SQLException {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(rowCount > 0, "rowCount is not positive");
+			Preconditions.checkNotNull(connect);
+			Preconditions.checkNotNull(operation);
+			Preconditions.checkNotNull(tableName);
+			Preconditions.checkNotNull(columns);
+			Preconditions.checkNotNull(generator);
+
+			final Key key = new Key(operation, tableName, new ArrayList<>(columns), rowCount);
+			PreparedStatement statement = statementMap.get(key);
+			if (statement == null) {
+				statement = (operation == Operation.UPDATE) ? connect.prepareStatement(generator.generate())
+						: prepareInsertStatement(connect, generator.generate());     // the inserts report the RecordIds back
+				statementMap.put(key, statement);
+				evict();
+			}
+			return statement;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Prepare an insert statement which returns the generated keys, without
+	 * caching it.
+	 *
+	 * @param  connect
+	 *         The connection to prepare the statement.
+	 *
+	 * @param  sql
+	 *         The SQL text of the insert statement.
+	 *
+	 * @return  The prepared statement.
+	 *
+	 * @throws  SQLException
+	 *          If an error occurred when preparing the statement.
+	 *
+	 * @since   1.2
+	 */
+	PreparedStatement prepareInsertStatement(final Connection connect, final String sql) throws SQLException {
+		return (keyColumnNames != null) ? connect.prepareStatement(sql, keyColumnNames)
+				: connect.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+	}
+
+	/**
+	 * Set the maximum number of the cached statements.
+	 *
+	 * @param  capacity
+	 *         The maximum number of the cached statements, must be positive.
+	 *
+	 * @throws  SQLException
+	 *          If an error occurred when closing the evicted statements.
+	 *
+	 * @since   1.2
+	 */
+	void setCapacity(final int capacity) throws SQLException {
+		lock.lock();
+		try {
+			Preconditions.checkArgument(capacity > 0, "capacity is not positive");
+			this.capacity = capacity;
+			evict();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the number of the cached statements.
+	 *
+	 * @return  The number of the cached statements.
+	 *
+	 * @since   1.2
+	 */
+	int size() {
+		lock.lock();
+		try {
+			return statementMap.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Close and remove all the cached statements.
+	 *
+	 * <p>All the statements will be closed even if closing some of them
+	 * failed, and the first error will be thrown at the end.
+	 *
+	 * @throws  SQLException
+	 *          If an error occurred when closing the statements.
+	 *
+	 * @since   1.2
+	 */
+	void invalidateAll() throws SQLException {
+		lock.lock();
+		try {
+			final List<PreparedStatement> statementList = new ArrayList<>(statementMap.values());
+			statementMap.clear();
+			closeAll(statementList);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Close and remove the least recently used statements until the number of
+	 * the cached statements is not larger than the capacity.
+	 *
+	 * @throws  SQLException
+	 *          If an error occurred when closing the evicted statements.
+	 *
+	 * @since   1.2
+	 */
+	private void evict() throws SQLException {
+		final List<PreparedStatement>       evictedList = new ArrayList<>();
+		final Iterator<PreparedStatement>   iterator    = statementMap.values().iterator();
+		while (statementMap.size() > capacity && iterator.hasNext()) {
+			evictedList.add(iterator.next());
+			iterator.remove();
+		}
+		closeAll(evictedList);
+	}
+
+	private static void closeAll(final List<PreparedStatement> statementList) throws SQLException {
+		SQLException firstException = null;
+		for (PreparedStatement statement : statementList) {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				if (firstException == null) {
+					firstException = e;
+				}
+			}
+		}
+		if (firstException != null) {
+			throw firstException;
+		}
+	}
+
+	/**
+	 * The identifier of a cached statement.
+	 */
+	private static final class Key {
+		private final Operation    operation;
+		private final String       tableName;
+		private final List<String> columns;
+		private final int          rowCount;
+
+		private Key(final Operation operation, final String tableName, final List<String> columns, final int rowCount) {
+			this.operation = operation;
+			this.tableName = tableName;
+			this.columns   = columns;
+			this.rowCount  = rowCount;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return operation == other.operation && rowCount == other.rowCount && tableName.equals(other.tableName) && columns.equals(other.columns);
+		}
+
+		@Override
+		public int hashCode() {
+			return ((operation.hashCode() * 31 + tableName.hashCode()) * 31 + columns.hashCode()) * 31 + rowCount;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Encoder for writing {@code DataRecord}s as tab-separated text rows for the
+ * bulk loading commands of the databases.
+ *
+ * <p>The format is the default text format of the PostgreSQL {@code COPY}
+ * command, which is also the default format of the MySQL
+ * {@code LOAD DATA INFILE} command:
+ * <ul>
+ * 	<li>The fields are separated by a tab and each row ends with a newline.
+ * 	<li>A {@code null} value is written as {@code \N}.
+ * 	<li>The backslash, tab, newline and carriage return in a string are
+ *      escaped by a backslash.
+ * </ul>
+ *
+ * @author  Wuyi Chen
+ * @date    12/10/2018
+ * @version 1.2
+ * @since   1.2
+ */
+class TextRowEncoder {
+	/** The text for a {@code null} value. */
+	static final String NULL_VALUE = "\\N";
+
+	private TextRowEncoder() {}
+
+	/**
+	 * Append the values of all the fields in a {@code DataRecord} as one text
+	 * row.
+	 *
+	 * @param  sb
+	 *         The string builder to append the row.
+	 *
+	 * @param  dataRecord
+	 *         The {@code DataRecord} provides the values.
+	 *
+	 * @since   1.2
+	 */
+	static void appendRow(final StringBuilder sb, final DataRecord dataRecord) {
+		Preconditions.checkNotNull(sb);
+		Preconditions.checkNotNull(dataRecord);
+
+		for (int i = 0; i < dataRecord.getFieldCount(); i++) {
+			if (i > 0) {
+				sb.append('\t');
+			}
+			appendValue(sb, dataRecord.getValueAt(i));
+		}
+		sb.append('\n');
+	}
+
+	/**
+	 * Append one value as a text field.
+	 *
+	 * @param  sb
+	 *         The string builder to append the field.
+	 *
+	 * @param  value
+	 *         The value, can be {@code null}.
+	 *
+	 * @since   1.2
+	 */
+	static void appendValue(final StringBuilder sb, final Object value) {
+		if (value == null) {
+			sb.append(NULL_VALUE);
+		} else if (value instanceof String) {
+			final String str = (String) value;
+			for (int i = 0; i < str.length(); i++) {
+				final char c = str.charAt(i);
+				switch (c) {
+					case '\\': sb.append("\\\\"); break;
+					case '\t': sb.append("\\t");  break;
+					case '\n': sb.append("\\n");  break;
+					case '\r': sb.append("\\r");  break;
+					default:   sb.append(c);      break;
+				}
+			}
+		} else {
+			sb.append(value);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Input stream which reads a list of {@code DataRecord}s as UTF-8 encoded
+ * tab-separated text rows.
+ *
+ * <p>The rows are encoded by {@code TextRowEncoder} lazily, only a few rows
+ * are kept in memory at any time, so a large list of records can be streamed
+ * to the database without building the whole text or writing it to disk.
+ *
+ * @author  Wuyi Chen
+ * @date    12/11/2018
+ * @version 1.2
+ * @since   1.2
+ */
+class TextRowInputStream extends InputStream {
+	private final Iterator<DataRecord> iterator;
+	private final StringBuilder        sb       = new StringBuilder();
+	private byte[]                     buffer   = new byte[0];
+	private int                        position = 0;
+
+	/**
+	 * Construct a {@code TextRowInputStream}.
+	 *
+	 * @param  dataRecordList
+	 *         The list of {@code DataRecord}s needs to be read.
+	 *
+	 * @since   1.2
+	 */
+	TextRowInputStream(final List<DataRecord> dataRecordList) {
+		Preconditions.checkNotNull(dataRecordList);
+		this.iterator = dataRecordList.iterator();
+	}
+
+	@Override
+	public int read() {
+		if (!fill()) {
+			return -1;
+		}
+		return buffer[position++] & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) {
+		Preconditions.checkNotNull(b);
+		Preconditions.checkPositionIndexes(off, off + len, b.length);
+
+		if (len == 0) {
+			return 0;
+		}
+		int count = 0;
+		while (count < len && fill()) {
+			final int size = Math.min(len - count, buffer.length - position);
+			System.arraycopy(buffer, position, b, off + count, size);
+			position += size;
+			count    += size;
+		}
+		return count == 0 ? -1 : count;
+	}
+
+	/**
+	 * Encode more rows into the buffer if all the bytes in the buffer have
+	 * been read.
+	 *
+	 * @return  {@code true} if there are bytes to be read;
+	 *          {@code false} if all the rows have been read.
+	 */
+	private boolean fill() {
+		while (position == buffer.length) {
+			if (!iterator.hasNext()) {
+				return false;
+			}
+			sb.setLength(0);
+			while (iterator.hasNext() && sb.length() < DataRecordManagerConstants.BULK_LOAD_BUFFER_SIZE) {
+				TextRowEncoder.appendRow(sb, iterator.next());
+			}
+			buffer   = sb.toString().getBytes(StandardCharsets.UTF_8);
+			position = 0;
+		}
+		return true;
+	}
+}
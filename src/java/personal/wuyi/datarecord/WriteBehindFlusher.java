@@ -0,0 +1,322 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Write-behind writer which commits the {@code DataRecord}s to the database
+ * on a background thread.
+ *
+ * <p>{@code addDataRecord()} puts a filled {@code DataRecord} into a bounded
+ * queue and returns immediately, so the calling thread doesn't wait for the
+ * database. A background thread drains the queue into its session and calls
+ * {@code storeAndCommit()} when it has collected {@code flushSize} records,
+ * or when the first collected record has waited for the flush delay.
+ *
+ * <p>When the queue is full, {@code addDataRecord()} blocks until the
+ * background thread has taken some records, so a burst of writes can not
+ * grow the memory without bound.
+ *
+ * <p>{@code flush()} waits until all the records added before it are
+ * committed, and {@code close()} commits the remaining records and stops the
+ * background thread. If a commit fails, the records of that commit are
+ * discarded and the error is thrown by the next {@code flush()} or
+ * {@code close()}; until then, {@code addDataRecord()} rejects new records.
+ *
+ * @author  Wuyi Chen
+ * @date    12/26/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public final class WriteBehindFlusher implements AutoCloseable {
+	/** The default number of records in one commit. */
+	static final int DEFAULT_FLUSH_SIZE = 5000;
+
+	/** The default time a record can wait before it is committed: 200 milliseconds. */
+	static final long DEFAULT_FLUSH_DELAY_MILLIS = 200;
+
+	/** The default number of records in the queue. */
+	static final int DEFAULT_QUEUE_CAPACITY = 50000;
+
+	/** The marker put into the queue to wake up the background thread. */
+	private static final DataRecord WAKE_UP = new DataRecord("WAKE_UP", false);
+
+	private final DataRecordSession         session;
+	private final int                       flushSize;
+	private final long                      flushDelayNanos;
+	private final BlockingQueue<DataRecord> queue;
+	private final Thread                    thread;
+	private final Object                    lock = new Object();
+	private long                            addedCount;
+	private long                            committedCount;
+	private SQLException                    error;
+	private volatile boolean                closed;
+
+	/**
+	 * Construct a {@code WriteBehindFlusher} with the default flush size,
+	 * flush delay and queue capacity.
+	 *
+	 * @param  session
+	 *         The session to commit the records, which is owned by this
+	 *         flusher and closed with it.
+	 *
+	 * @since   1.2
+	 */
+	public WriteBehindFlusher(final DataRecordSession session) {
+		this(session, DEFAULT_FLUSH_SIZE, DEFAULT_FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Construct a {@code WriteBehindFlusher}.
+	 *
+	 * @param  session
+	 *         The session to commit the records, which is owned by this
+	 *         flusher and closed with it.
+	 *
+	 * @param  flushSize
+	 *         The number of records in one commit, must be positive.
+	 *
+	 * @param  flushDelay
+	 *         The maximum time a record waits before it is committed, must be
+	 *         positive.
+	 *
+	 * @param  unit
+	 *         The time unit of the flush delay.
+	 *
+	 * @param  queueCapacity
+	 *         The maximum number of the records waiting in the queue, must be
+	 *         positive.
+	 *
+	 * @since   1.2
+	 */
+	public WriteBehindFlusher(final DataRecordSession session, final int flushSize, final long flushDelay, final TimeUnit unit, final int queueCapacity) {
+		Preconditions.checkArgument(flushSize > 0, "flushSize is not positive");
+		Preconditions.checkArgument(flushDelay > 0, "flushDelay is not positive");
+		Preconditions.checkArgument(queueCapacity > 0, "queueCapacity is not positive");
+
+		this.session         = Preconditions.checkNotNull(session);
+		this.flushSize       = flushSize;
+		this.flushDelayNanos = unit.toNanos(flushDelay);
+		this.queue           = new ArrayBlockingQueue<>(queueCapacity);
+		this.thread          = new Thread(this::run, "datarecord-flusher");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Add a {@code DataRecord} to be committed by the background thread.
+	 *
+	 * <p>The {@code DataRecord} should not be modified after it is added.
+	 * This method blocks when the queue is full.
+	 *
+	 * @param  dataRecord
+	 *         The filled {@code DataRecord}.
+	 *
+	 * @throws  DataRecordException
+	 *          If a previous commit failed and the error has not been
+	 *          reported by {@code flush()} or {@code close()}, or the thread
+	 *          is interrupted while waiting for the queue.
+	 *
+	 * @throws  IllegalStateException
+	 *          If this flusher is closed.
+	 *
+	 * @since   1.2
+	 */
+	public void addDataRecord(final DataRecord dataRecord) {
+		Preconditions.checkNotNull(dataRecord);
+
+		synchronized (lock) {
+			Preconditions.checkState(!closed, "the flusher is closed");
+			if (error != null) {
+				throw new DataRecordException(error);
+			}
+			addedCount++;
+		}
+
+		try {
+			queue.put(dataRecord);
+		} catch (InterruptedException e) {
+			synchronized (lock) {
+				addedCount--;
+			}
+			Thread.currentThread().interrupt();
+			throw new DataRecordException(new SQLException("interrupted while waiting for the queue", e));
+		}
+	}
+
+	/**
+	 * Wait until all the {@code DataRecord}s added before this call are
+	 * committed.
+	 *
+	 * @throws  SQLException
+	 *          If a commit failed since the last report, the records of the
+	 *          failed commit have been discarded.
+	 *
+	 * @since   1.2
+	 */
+	public void flush() throws SQLException {
+		wakeUp();
+		synchronized (lock) {
+			final long target = addedCount;
+			while (committedCount < target && thread.isAlive()) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("interrupted while waiting for the flush", e);
+				}
+			}
+			reportError();
+		}
+	}
+
+	/**
+	 * Commit the remaining {@code DataRecord}s, stop the background thread
+	 * and close the session.
+	 *
+	 * @throws  SQLException
+	 *          If a commit failed since the last report, or there is any
+	 *          error when closing the session.
+	 *
+	 * @since   1.2
+	 */
+	@Override
+	public void close() throws SQLException {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+
+		wakeUp();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("interrupted while waiting for the flusher to stop", e);
+		}
+
+		try {
+			synchronized (lock) {
+				reportError();
+			}
+		} finally {
+			session.close();
+		}
+	}
+
+	/**
+	 * Get the number of the {@code DataRecord}s waiting in the queue.
+	 *
+	 * @return  The number of the waiting records.
+	 *
+	 * @since   1.2
+	 */
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	private void reportError() throws SQLException {
+		if (error != null) {
+			final SQLException e = error;
+			error = null;
+			throw e;
+		}
+	}
+
+	/**
+	 * The loop of the background thread: collect a batch by the flush size
+	 * or the flush delay, then commit it. A wake-up marker makes the thread
+	 * commit the current batch immediately.
+	 */
+	private void run() {
+		final List<DataRecord> batch = new ArrayList<>(Math.min(flushSize, DEFAULT_FLUSH_SIZE));
+		while (true) {
+			try {
+				final DataRecord first = poll(flushDelayNanos);
+				if (first == null || first == WAKE_UP) {
+					synchronized (lock) {
+						if (closed && committedCount >= addedCount) {
+							return;                   // every added record has been committed
+						}
+					}
+					continue;
+				}
+
+				batch.add(first);
+				final long deadline = System.nanoTime() + flushDelayNanos;
+				while (batch.size() < flushSize) {
+					final DataRecord next = poll(deadline - System.nanoTime());
+					if (next == null || next == WAKE_UP) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				if (batch.isEmpty()) {
+					continue;                         // only close() stops the thread
+				}
+			}
+
+			commit(batch);
+			batch.clear();
+		}
+	}
+
+	private DataRecord poll(final long timeoutNanos) throws InterruptedException {
+		return closed ? queue.poll() : queue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private void wakeUp() {
+		queue.offer(WAKE_UP);                         // the thread is not waiting if the queue is full
+	}
+
+	private void commit(final List<DataRecord> batch) {
+		SQLException failure = null;
+		try {
+			for (DataRecord dataRecord : batch) {
+				session.addDataRecord(dataRecord);
+			}
+			session.storeAndCommit();
+		} catch (SQLException e) {
+			failure = e;
+		} catch (DataRecordException e) {
+			failure = e.getCause();
+		} catch (RuntimeException e) {
+			failure = new SQLException("failed to commit the records", e);
+		} finally {
+			session.clearCommitPool();                // the flusher owns the commit pool of the session
+		}
+
+		synchronized (lock) {
+			if (failure != null && error == null) {
+				error = failure;
+			}
+			committedCount += batch.size();
+			lock.notifyAll();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+/**
+ * The modes for writing the new {@code DataRecord}s in the commit pool into
+ * the database.
+ *
+ * @author  Wuyi Chen
+ * @date    12/05/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public enum WriteMode {
+	/**
+	 * Insert each new {@code DataRecord} by its own statement, one round trip
+	 * per record.
+	 */
+	STATEMENT,
+
+	/**
+	 * Group the new {@code DataRecord}s by the table and the field layout,
+	 * and insert each group by JDBC batches. The size of each batch can be
+	 * configured by {@code DataRecordManager.setBatchSize(int)}.
+	 */
+	BATCH,
+
+	/**
+	 * Group the new {@code DataRecord}s by the table and the field layout,
+	 * and insert each group by multi-row insert statements like
+	 * {@code INSERT INTO t (c1, c2) VALUES (?, ?), (?, ?), ...}. The number of
+	 * rows in one statement is limited by the batch size and the limits of
+	 * the database (the {@code max_allowed_packet} of MySQL and the maximum
+	 * number of bind parameters of PostgreSQL).
+	 *
+	 * <p>This mode is only supported by MySQL and PostgreSQL, other databases
+	 * will fall back to {@code BATCH}.
+	 */
+	MULTI_ROW,
+
+	/**
+	 * Group the new {@code DataRecord}s by the table and the field layout,
+	 * and stream each group into the bulk loading command of the database
+	 * without building SQL text for the values:
+	 * <ul>
+	 * 	<li>PostgreSQL: {@code COPY table (columns) FROM STDIN}.
+	 * 	<li>MySQL: {@code LOAD DATA LOCAL INFILE}, which needs
+	 *      {@code local_infile} to be enabled on the server.
+	 * </ul>
+	 *
+	 * <p>Other databases will fall back to {@code BATCH}.
+	 */
+	BULK_LOAD
+}
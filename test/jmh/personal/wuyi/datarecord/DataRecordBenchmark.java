@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the in-memory operations on a {@code DataRecord}: setting
+ * and reading the fields, and generating the SQL statements.
+ *
+ * @author  Wuyi Chen
+ * @date    12/29/2018
+ * @version 1.2
+ * @since   1.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DataRecordBenchmark {
+	private final Random random = new Random(42);
+	private DataRecord   snv;
+	private DataRecord   modified;
+	private DataRecord   diff;
+
+	@Setup
+	public void setUp() {
+		snv = GhsnvDatabase.fill(new DataRecord(GhsnvDatabase.TABLE_NAME, false), random, 1000);
+		snv.setRecordId(12345L);
+
+		modified = GhsnvDatabase.fill(new DataRecord(GhsnvDatabase.TABLE_NAME, false), random, 1000);
+		modified.setRecordId(12345L);
+
+		diff = DataRecordSession.compareAndGetDiff(snv, modified);
+		diff.setRecordId(12345L);
+	}
+
+	@Benchmark
+	public DataRecord setDataFields() {
+		final DataRecord dataRecord = new DataRecord(GhsnvDatabase.TABLE_NAME);
+		dataRecord.setDataField("SampleId",    "A3030301");
+		dataRecord.setDataField("RunId",       "160122_NB501062_0070_AHWNNNBGYY");
+		dataRecord.setDataField("Gene",        "EGFR");
+		dataRecord.setDataField("Mutation_AA", "T790M");
+		dataRecord.setDataField("Percentage",  9.3);
+		dataRecord.setDataField("Chrom",       7);
+		dataRecord.setDataField("Position",    1744567441L);
+		return dataRecord;
+	}
+
+	@Benchmark
+	public void getDataFields(final Blackhole blackhole) {
+		blackhole.consume(snv.getStringVal("SampleId"));
+		blackhole.consume(snv.getStringVal("RunId"));
+		blackhole.consume(snv.getStringVal("Gene"));
+		blackhole.consume(snv.getStringVal("Mutation_AA"));
+		blackhole.consume(snv.getDoubleVal("Percentage"));
+		blackhole.consume(snv.getIntegerVal("Chrom"));
+		blackhole.consume(snv.getLongVal("Position"));
+	}
+
+	@Benchmark
+	public void getPrimitiveFields(final Blackhole blackhole) {
+		blackhole.consume(snv.getDouble("Percentage"));
+		blackhole.consume(snv.getInt("Chrom"));
+		blackhole.consume(snv.getLong("Position"));
+	}
+
+	@Benchmark
+	public String generateSQLInsertStatement() {
+		return DataRecordSession.generateSQLInsertStatement(snv);
+	}
+
+	@Benchmark
+	public String generateSQLUpdateStatement() {
+		return DataRecordSession.generateSQLUpdateStatement(diff);
+	}
+
+	@Benchmark
+	public DataRecord compareAndGetDiff() {
+		return DataRecordSession.compareAndGetDiff(snv, modified);
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * In-memory H2 database with the {@code GHSNV} table of {@code ghsnv.sql},
+ * used by the benchmarks.
+ *
+ * <p>The schema file is read from the path in the system property
+ * {@code datarecord.schema}, {@code ghsnv.sql} in the working directory by
+ * default.
+ *
+ * @author  Wuyi Chen
+ * @date    12/29/2018
+ * @version 1.2
+ * @since   1.2
+ */
+final class GhsnvDatabase {
+	static final String TABLE_NAME = "GHSNV";
+
+	/** The average number of the rows of one {@code SampleId}. */
+	static final int ROWS_PER_SAMPLE = 10;
+
+	private static final String   URL_PATTERN = "jdbc:h2:mem:%s;MODE=%s;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1";
+	private static final String[] GENES       = { "EGFR", "KRAS", "BRAF", "TP53", "PIK3CA", "ALK", "NRAS", "ERBB2" };
+	private static final String[] MUTATIONS   = { "T790M", "L858R", "G12D", "V600E", "R273H", "E545K", "Q61K", "S310F" };
+
+	private GhsnvDatabase() {}
+
+	/**
+	 * Open a connection to an in-memory database in the MySQL compatibility
+	 * mode.
+	 *
+	 * @param  name
+	 *         The name of the database.
+	 *
+	 * @return  The new connection.
+	 *
+	 * @throws  SQLException
+	 *          If the database can not be opened.
+	 */
+	static Connection open(final String name) throws SQLException {
+		return open(name, "MySQL");
+	}
+
+	/**
+	 * Open a connection to an in-memory database. The database lives until
+	 * the JVM exits, so all the connections with the same name share it.
+	 * The identifiers keep the case of {@code ghsnv.sql}, like MySQL.
+	 *
+	 * @param  name
+	 *         The name of the database.
+	 *
+	 * @param  compatibilityMode
+	 *         The compatibility mode of H2, like {@code MySQL} or
+	 *         {@code PostgreSQL}.
+	 *
+	 * @return  The new connection.
+	 *
+	 * @throws  SQLException
+	 *          If the database can not be opened.
+	 */
+	static Connection open(final String name, final String compatibilityMode) throws SQLException {
+		return DriverManager.getConnection(String.format(URL_PATTERN, name, compatibilityMode));
+	}
+
+	/**
+	 * Drop and create the {@code GHSNV} table by {@code ghsnv.sql}.
+	 *
+	 * @param  connect
+	 *         The connection to the database.
+	 *
+	 * @throws  SQLException
+	 *          If the schema can not be read or created.
+	 */
+	static void createSchema(final Connection connect) throws SQLException {
+		final String ddl;
+		try {
+			ddl = new String(Files.readAllBytes(Paths.get(System.getProperty("datarecord.schema", "ghsnv.sql"))), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new SQLException("failed to read the schema file", e);
+		}
+
+		try (Statement statement = connect.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS " + TABLE_NAME);
+			statement.execute(ddl);
+		}
+	}
+
+	/**
+	 * Insert synthetic rows by JDBC batches, bypassing {@code DataRecord}.
+	 *
+	 * <p>The rows have {@code sampleCount(rowCount)} distinct
+	 * {@code SampleId}s, so a lookup by {@code sampleId()} with the same
+	 * count finds about {@code ROWS_PER_SAMPLE} rows.
+	 *
+	 * @param  connect
+	 *         The connection to the database.
+	 *
+	 * @param  rowCount
+	 *         The number of the rows.
+	 *
+	 * @param  seed
+	 *         The seed of the random values.
+	 *
+	 * @throws  SQLException
+	 *          If the rows can not be inserted.
+	 */
+	static void insertRows(final Connection connect, final int rowCount, final long seed) throws SQLException {
+		final Random random      = new Random(seed);
+		final int    sampleCount = sampleCount(rowCount);
+		try (PreparedStatement statement = connect.prepareStatement(
+				"INSERT INTO " + TABLE_NAME + " (SampleId, RunId, Gene, Mutation_AA, Percentage, Chrom, Position) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+			for (int i = 0; i < rowCount; i++) {
+				statement.setString(1, sampleId(random, sampleCount));
+				statement.setString(2, runId(random));
+				statement.setString(3, GENES[random.nextInt(GENES.length)]);
+				statement.setString(4, MUTATIONS[random.nextInt(MUTATIONS.length)]);
+				statement.setDouble(5, percentage(random));
+				statement.setInt(6, chrom(random));
+				statement.setLong(7, position(random));
+				statement.addBatch();
+				if ((i + 1) % 1000 == 0) {
+					statement.executeBatch();
+				}
+			}
+			statement.executeBatch();
+		}
+	}
+
+	/**
+	 * Fill a {@code DataRecord} of the {@code GHSNV} table with random values.
+	 *
+	 * @param  dataRecord
+	 *         The {@code DataRecord} to be filled.
+	 *
+	 * @param  random
+	 *         The source of the random values.
+	 *
+	 * @param  sampleCount
+	 *         The number of the distinct {@code SampleId}s.
+	 *
+	 * @return  The filled {@code DataRecord}.
+	 */
+	static DataRecord fill(final DataRecord dataRecord, final Random random, final int sampleCount) {
+		dataRecord.setDataField("SampleId",    sampleId(random, sampleCount));
+		dataRecord.setDataField("RunId",       runId(random));
+		dataRecord.setDataField("Gene",        GENES[random.nextInt(GENES.length)]);
+		dataRecord.setDataField("Mutation_AA", MUTATIONS[random.nextInt(MUTATIONS.length)]);
+		dataRecord.setDataField("Percentage",  percentage(random));
+		dataRecord.setDataField("Chrom",       chrom(random));
+		dataRecord.setDataField("Position",    position(random));
+		return dataRecord;
+	}
+
+	/**
+	 * Get the number of the distinct {@code SampleId}s in a table of a number
+	 * of rows.
+	 *
+	 * @param  rowCount
+	 *         The number of the rows.
+	 *
+	 * @return  The number of the {@code SampleId}s, at least 1.
+	 */
+	static int sampleCount(final int rowCount) {
+		return Math.max(1, rowCount / ROWS_PER_SAMPLE);
+	}
+
+	static String         sampleId(final Random random, final int sampleCount) { return "A" + (3000000 + random.nextInt(sampleCount));              }
+	private static String runId(final Random random)                           { return "160122_NB501062_" + random.nextInt(10000) + "_AHWNNNBGYY"; }
+	private static double percentage(final Random random)                      { return Math.round(random.nextDouble() * 1000) / 10.0;          }
+	private static int    chrom(final Random random)                           { return 1 + random.nextInt(22);                                 }
+	private static long   position(final Random random)                        { return 1000000L + (random.nextLong() & 0x7FFFFFFFL);           }
+}
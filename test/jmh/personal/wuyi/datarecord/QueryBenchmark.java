@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import personal.wuyi.client.database.DbType;
+
+/**
+ * Benchmarks of materializing the rows of a query into {@code DataRecord}s,
+ * against an in-memory H2 database.
+ *
+ * @author  Wuyi Chen
+ * @date    12/29/2018
+ * @version 1.2
+ * @since   1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QueryBenchmark {
+	@Param({ "1000", "100000" })
+	private int rowCount;
+
+	private DataRecordSession session;
+
+	@Setup
+	public void setUp() throws SQLException {
+		session = new DataRecordSession(DbType.MYSQL, GhsnvDatabase.open("query" + rowCount));
+		GhsnvDatabase.createSchema(session.getConnection());
+		GhsnvDatabase.insertRows(session.getConnection(), rowCount, 42);
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		session.close();
+	}
+
+	@Benchmark
+	public List<DataRecord> queryDataRecordsBase() throws SQLException {
+		return session.queryDataRecordsBase(GhsnvDatabase.TABLE_NAME, null);
+	}
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import personal.wuyi.client.database.DbType;
+
+/**
+ * End-to-end throughput benchmark of {@code DataRecordManager} against an
+ * embedded H2 database with the {@code ghsnv.sql} schema.
+ *
+ * <p>The harness runs these workloads and prints the throughput and the
+ * latency percentiles of each one:
+ * <ul>
+ * 	<li>insert: insert {@code rows} synthetic records in commits of
+ *      {@code batch} records, once for each of {@code writeModes} on an
+ *      empty table. The latency is the time of one {@code storeAndCommit()}.
+ * 	<li>query: {@code queries} lookups by a random {@code SampleId}, each
+ *      {@code SampleId} has about {@code ROWS_PER_SAMPLE} rows.
+ * 	<li>update: {@code updates} rounds of a lookup, a modification of the
+ *      found records and a commit.
+ * 	<li>mixed: {@code ops} operations on {@code threads} threads with their
+ *      own sessions, 70% lookups, 20% inserts of 10 records and 10% updates.
+ * </ul>
+ * The query, update and mixed workloads run on a table reloaded with
+ * {@code rows} records by plain JDBC batches and indexed by
+ * {@code SampleId}, so they don't depend on the result of the inserts.
+ *
+ * <p>The options are passed as {@code --name=value}, see
+ * {@code DEFAULT_OPTIONS}. H2 runs in the PostgreSQL compatibility mode by
+ * default ({@code --mode=PostgreSQL}), because the multi-row inserts for
+ * MySQL need the {@code max_allowed_packet} of a real MySQL server. The bulk
+ * loading commands ({@code COPY} and {@code LOAD DATA}) are not supported by
+ * H2, so {@code BULK_LOAD} is not in the default {@code writeModes}, and is
+ * reported as failed if it is given.
+ *
+ * @author  Wuyi Chen
+ * @date    12/29/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public final class ThroughputHarness {
+	private static final String DATABASE_NAME = "throughput";
+
+	private static final Map<String, String> DEFAULT_OPTIONS = new HashMap<String, String>() {
+		private static final long serialVersionUID = 1L;
+
+		{
+			put("rows",       "100000");                  // 10k to 10M
+			put("batch",      "1000");
+			put("queries",    "1000");
+			put("updates",    "1000");
+			put("ops",        "10000");
+			put("threads",    "4");
+			put("writeModes", "STATEMENT,BATCH,MULTI_ROW");
+			put("writeMode",  "BATCH");                   // for the update and mixed workloads
+			put("mode",       "PostgreSQL");
+			put("seed",       "42");
+		}
+	};
+
+	private final int       rows;
+	private final int       sampleCount;
+	private final int       batch;
+	private final int       queries;
+	private final int       updates;
+	private final int       ops;
+	private final int       threads;
+	private final WriteMode writeMode;
+	private final String    mode;
+	private final long      seed;
+
+	private ThroughputHarness(final Map<String, String> options) {
+		this.rows        = Integer.parseInt(options.get("rows"));
+		this.sampleCount = GhsnvDatabase.sampleCount(rows);
+		this.batch       = Integer.parseInt(options.get("batch"));
+		this.queries     = Integer.parseInt(options.get("queries"));
+		this.updates     = Integer.parseInt(options.get("updates"));
+		this.ops         = Integer.parseInt(options.get("ops"));
+		this.threads     = Integer.parseInt(options.get("threads"));
+		this.writeMode   = WriteMode.valueOf(options.get("writeMode"));
+		this.mode        = options.get("mode");
+		this.seed        = Long.parseLong(options.get("seed"));
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final Map<String, String> options = new HashMap<>(DEFAULT_OPTIONS);
+		for (String arg : args) {
+			final int index = arg.indexOf('=');
+			if (!arg.startsWith("--") || index < 0 || !options.containsKey(arg.substring(2, index))) {
+				throw new IllegalArgumentException("unknown option: " + arg + ", the options are " + DEFAULT_OPTIONS);
+			}
+			options.put(arg.substring(2, index), arg.substring(index + 1));
+		}
+
+		final ThroughputHarness harness = new ThroughputHarness(options);
+		System.out.println("options: " + options);
+		printHeader();
+
+		DataRecordManager.setConnectionPoolSize(1, harness.threads + 1);
+		DataRecordManager.buildConnection(harness.mode.equalsIgnoreCase("MySQL") ? DbType.MYSQL : DbType.POSTGRESQL,
+				() -> GhsnvDatabase.open(DATABASE_NAME, harness.mode));
+		try {
+			for (String name : options.get("writeModes").split(",")) {
+				harness.runInsert(WriteMode.valueOf(name.trim()));
+			}
+			harness.reload();
+			harness.runQuery();
+			harness.runUpdate();
+			harness.runMixed();
+		} finally {
+			DataRecordManager.closeConnection();
+		}
+	}
+
+	private void runInsert(final WriteMode insertMode) throws SQLException {
+		resetTable();
+
+		final Random    random    = new Random(seed);
+		final Latencies latencies = new Latencies();
+		final long      start     = System.nanoTime();
+		try {
+			for (int done = 0; done < rows; done += batch) {
+				final int count = Math.min(batch, rows - done);
+				for (int i = 0; i < count; i++) {
+					GhsnvDatabase.fill(DataRecordManager.addDataRecord(GhsnvDatabase.TABLE_NAME), random, sampleCount);
+				}
+
+				final long commitStart = System.nanoTime();
+				DataRecordManager.storeAndCommit(insertMode);
+				latencies.add(System.nanoTime() - commitStart);
+			}
+			print("insert", insertMode.name(), latencies, rows, System.nanoTime() - start);
+		} catch (SQLException | RuntimeException e) {
+			System.out.printf("%-8s %-10s FAILED: %s%n", "insert", insertMode, e);
+			DataRecordManager.getDefaultSession().clearCommitPool();
+		}
+	}
+
+	private void runQuery() throws SQLException {
+		final Random    random    = new Random(seed + 1);
+		final Latencies latencies = new Latencies();
+		long            rowCount  = 0;
+		final long      start     = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			final long queryStart = System.nanoTime();
+			rowCount += DataRecordManager.queryDataRecords(GhsnvDatabase.TABLE_NAME, bySampleId(random)).size();
+			latencies.add(System.nanoTime() - queryStart);
+			DataRecordManager.getDefaultSession().clearCommitPool();   // the queried records are only read
+		}
+		print("query", "-", latencies, rowCount, System.nanoTime() - start);
+	}
+
+	private void runUpdate() throws SQLException {
+		final Random    random    = new Random(seed + 2);
+		final Latencies latencies = new Latencies();
+		long            rowCount  = 0;
+		final long      start     = System.nanoTime();
+		for (int i = 0; i < updates; i++) {
+			final long updateStart = System.nanoTime();
+			rowCount += update(DataRecordManager.getDefaultSession(), random);
+			latencies.add(System.nanoTime() - updateStart);
+		}
+		print("update", writeMode.name(), latencies, rowCount, System.nanoTime() - start);
+	}
+
+	private void runMixed() throws Exception {
+		final ExecutorService           executor   = Executors.newFixedThreadPool(threads);
+		final List<Future<Latencies[]>> futureList = new ArrayList<>();
+		final long                      start      = System.nanoTime();
+		try {
+			for (int t = 0; t < threads; t++) {
+				final int  opCount    = ops / threads + (t < ops % threads ? 1 : 0);
+				final long threadSeed = seed + 3 + t;
+				futureList.add(executor.submit(() -> runMixedThread(opCount, new Random(threadSeed))));
+			}
+
+			final Latencies[] merged = { new Latencies(), new Latencies(), new Latencies(), new Latencies() };
+			for (Future<Latencies[]> future : futureList) {
+				final Latencies[] latencies = future.get();
+				for (int i = 0; i < merged.length; i++) {
+					merged[i].addAll(latencies[i]);
+				}
+			}
+
+			final long elapsed = System.nanoTime() - start;
+			print("mixed",    writeMode.name(), merged[0], merged[0].rowCount, elapsed);
+			print("  lookup", "-",              merged[1], merged[1].rowCount, elapsed);
+			print("  insert", writeMode.name(), merged[2], merged[2].rowCount, elapsed);
+			print("  update", writeMode.name(), merged[3], merged[3].rowCount, elapsed);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Run the mixed operations on a new session.
+	 *
+	 * @return  The latencies of all the operations, the lookups, the inserts
+	 *          and the updates.
+	 */
+	private Latencies[] runMixedThread(final int opCount, final Random random) throws SQLException {
+		final Latencies[] latencies = { new Latencies(), new Latencies(), new Latencies(), new Latencies() };
+		try (DataRecordSession session = DataRecordManager.openSession()) {
+			for (int i = 0; i < opCount; i++) {
+				final int  choice  = random.nextInt(100);
+				final long opStart = System.nanoTime();
+				final int  kind;
+				final int  rowCount;
+				if (choice < 70) {
+					kind     = 1;
+					rowCount = session.queryDataRecords(GhsnvDatabase.TABLE_NAME, bySampleId(random)).size();
+					session.clearCommitPool();
+				} else if (choice < 90) {
+					kind     = 2;
+					rowCount = 10;
+					for (int j = 0; j < rowCount; j++) {
+						GhsnvDatabase.fill(session.addDataRecord(GhsnvDatabase.TABLE_NAME), random, sampleCount);
+					}
+					session.storeAndCommit(writeMode);
+				} else {
+					kind     = 3;
+					rowCount = update(session, random);
+				}
+
+				final long latency = System.nanoTime() - opStart;
+				latencies[0].add(latency);
+				latencies[0].rowCount += rowCount;
+				latencies[kind].add(latency);
+				latencies[kind].rowCount += rowCount;
+			}
+		}
+		return latencies;
+	}
+
+	private int update(final DataRecordSession session, final Random random) throws SQLException {
+		final List<DataRecord> dataRecordList = session.queryDataRecords(GhsnvDatabase.TABLE_NAME, bySampleId(random));
+		for (DataRecord dataRecord : dataRecordList) {
+			dataRecord.setDataField("Percentage", Math.round(random.nextDouble() * 1000) / 10.0);
+		}
+		session.storeAndCommit(writeMode);
+		session.clearCommitPool();
+		return dataRecordList.size();
+	}
+
+	private String bySampleId(final Random random) {
+		return "SampleId = '" + GhsnvDatabase.sampleId(random, sampleCount) + "'";
+	}
+
+	private void resetTable() throws SQLException {
+		try (Connection connect = GhsnvDatabase.open(DATABASE_NAME, mode)) {
+			GhsnvDatabase.createSchema(connect);
+		}
+		DataRecordManager.invalidateColumnMetadata(GhsnvDatabase.TABLE_NAME);
+	}
+
+	private void reload() throws SQLException {
+		resetTable();
+		try (Connection connect = GhsnvDatabase.open(DATABASE_NAME, mode);
+		     Statement  statement = connect.createStatement()) {
+			GhsnvDatabase.insertRows(connect, rows, seed);
+			statement.execute("CREATE INDEX GHSNV_SampleId ON " + GhsnvDatabase.TABLE_NAME + " (SampleId)");
+		}
+	}
+
+	private static void printHeader() {
+		System.out.printf("%-8s %-10s %9s %10s %8s %11s %11s %9s %9s %9s %9s %9s%n",
+				"workload", "writeMode", "ops", "rows", "seconds", "ops/s", "rows/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+	}
+
+	private static void print(final String workload, final String writeMode, final Latencies latencies, final long rowCount, final long elapsedNanos) {
+		final double seconds = elapsedNanos / 1e9;
+		System.out.printf("%-8s %-10s %9d %10d %8.2f %11.1f %11.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+				workload, writeMode, latencies.size, rowCount, seconds, latencies.size / seconds, rowCount / seconds,
+				latencies.percentile(0.5) / 1e6, latencies.percentile(0.9) / 1e6, latencies.percentile(0.99) / 1e6,
+				latencies.percentile(0.999) / 1e6, latencies.percentile(1.0) / 1e6);
+	}
+
+	/**
+	 * The recorded latencies of the operations in nanoseconds.
+	 */
+	private static final class Latencies {
+		private long[] values = new long[1024];
+		private int    size;
+		private long   rowCount;
+
+		void add(final long nanos) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = nanos;
+		}
+
+		void addAll(final Latencies other) {
+			for (int i = 0; i < other.size; i++) {
+				add(other.values[i]);
+			}
+			rowCount += other.rowCount;
+		}
+
+		long percentile(final double quantile) {
+			if (size == 0) {
+				return 0;
+			}
+			final long[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			return sorted[Math.max(0, Math.min(size - 1, (int) Math.ceil(quantile * size) - 1))];
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code ColumnMetadataCache}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/03/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class ColumnMetadataCacheJunitTest {
+	private ColumnMetadataCache         cache;
+	private ColumnMetadataCache.Loader  loader;
+	private int                         loadCount;
+
+	@Before
+	public void initialize() {
+		cache     = new ColumnMetadataCache();
+		loadCount = 0;
+		loader    = tableName -> {
+			loadCount++;
+			final Map<String, Class<?>> columnTypes = new LinkedHashMap<>();
+			columnTypes.put("RecordId", Long.class);
+			columnTypes.put("SampleId", String.class);
+			return columnTypes;
+		};
+	}
+
+	@Test
+	public void getCachedMetadataTest() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			Map<String, Class<?>> columnTypes = cache.get("GHSNV", loader);
+			Assert.assertEquals(Long.class,   columnTypes.get("RecordId"));
+			Assert.assertEquals(String.class, columnTypes.get("SampleId"));
+		}
+		Assert.assertEquals(1, loadCount);
+	}
+
+	@Test
+	public void invalidateTest() throws Exception {
+		cache.get("GHSNV", loader);
+		cache.invalidate("GHSNV");
+		cache.get("GHSNV", loader);
+		cache.invalidateAll();
+		cache.get("GHSNV", loader);
+		Assert.assertEquals(3, loadCount);
+	}
+
+	@Test
+	public void disableCacheTest() throws Exception {
+		cache.setTtl(0, TimeUnit.MILLISECONDS);
+		cache.get("GHSNV", loader);
+		cache.get("GHSNV", loader);
+		Assert.assertEquals(2, loadCount);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void unmodifiableMetadataTest() throws Exception {
+		cache.get("GHSNV", loader).put("Gene", String.class);
+	}
+}
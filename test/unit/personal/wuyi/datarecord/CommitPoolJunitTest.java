@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@code CommitPool}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/27/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class CommitPoolJunitTest {
+	@Test
+	public void stripeCountTest() {
+		Assert.assertEquals(1,  new CommitPool(1).getStripeCount());
+		Assert.assertEquals(4,  new CommitPool(3).getStripeCount());
+		Assert.assertEquals(16, new CommitPool(16).getStripeCount());
+	}
+
+	@Test
+	public void concurrentAddTest() throws Exception {
+		final CommitPool   pool       = new CommitPool(8);
+		final List<Thread> threadList = new ArrayList<>();
+		for (int t = 0; t < 16; t++) {
+			final String dataType = "T" + t;
+			threadList.add(new Thread(() -> {
+				for (int i = 0; i < 1000; i++) {
+					final DataRecord dataRecord = new DataRecord(dataType);
+					dataRecord.setDataField("Seq", i);
+					pool.add(dataRecord);
+				}
+			}));
+		}
+		for (Thread thread : threadList) {
+			thread.start();
+		}
+		for (Thread thread : threadList) {
+			thread.join();
+		}
+
+		final List<DataRecord> snapshot = pool.snapshot();
+		Assert.assertEquals(16000, snapshot.size());
+		Assert.assertEquals(16000, pool.size());
+
+		final int[] lastSeq = new int[16];
+		Arrays.fill(lastSeq, -1);
+		for (DataRecord dataRecord : snapshot) {
+			final int thread = Integer.parseInt(dataRecord.getDataTypeName().substring(1));
+			final int seq    = dataRecord.getIntegerVal("Seq");
+			Assert.assertEquals(lastSeq[thread] + 1, seq);          // the order of one thread is kept
+			lastSeq[thread] = seq;
+		}
+	}
+
+	@Test
+	public void removeAndClearTest() {
+		final CommitPool pool = new CommitPool(4);
+		for (int i = 0; i < 10; i++) {
+			final DataRecord dataRecord = new DataRecord("GHSNV", i % 2 == 0);
+			pool.add(dataRecord);
+		}
+		pool.addAll(Arrays.asList(new DataRecord("GHSNV"), new DataRecord("GHSNV")));
+		Assert.assertEquals(12, pool.size());
+
+		pool.removeIf(dataRecord -> !dataRecord.isModified());
+		Assert.assertEquals(7, pool.size());
+
+		pool.clear();
+		Assert.assertEquals(0, pool.size());
+		Assert.assertTrue(pool.snapshot().isEmpty());
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import personal.wuyi.client.database.DbType;
+
+/**
+ * Test class for {@code ConnectionPool}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/21/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class ConnectionPoolJunitTest {
+	private List<boolean[]>        stateList;
+	private ConnectionPool.Factory factory;
+
+	@Before
+	public void initialize() {
+		stateList = new ArrayList<>();
+		factory   = () -> {
+			final boolean[] state = { false, true };    // closed, valid
+			stateList.add(state);
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> {
+						switch (method.getName()) {
+							case "close":
+								state[0] = true;
+								return null;
+							case "isClosed":
+								return state[0];
+							case "isValid":
+								return !state[0] && state[1];
+							case "getAutoCommit":
+								return true;
+							default:
+								return null;
+						}
+					});
+		};
+	}
+
+	private ConnectionPool createPool(final int minSize, final int maxSize) throws SQLException {
+		return new ConnectionPool(DbType.MYSQL, factory, new ColumnMetadataCache(), minSize, maxSize, false);
+	}
+
+	@Test
+	public void minSizeTest() throws Exception {
+		try (ConnectionPool pool = createPool(2, 4)) {
+			Assert.assertEquals(2, stateList.size());
+			Assert.assertEquals(2, pool.getIdleCount());
+			Assert.assertEquals(2, pool.getTotalCount());
+		}
+		Assert.assertTrue(stateList.get(0)[0]);
+		Assert.assertTrue(stateList.get(1)[0]);
+	}
+
+	@Test
+	public void reuseTest() throws Exception {
+		try (ConnectionPool pool = createPool(0, 2)) {
+			final Connection connect1 = pool.borrow();
+			Assert.assertEquals(1, pool.getBorrowedCount());
+			pool.release(connect1);
+
+			final Connection connect2 = pool.borrow();
+			Assert.assertSame(connect1, connect2);
+			Assert.assertEquals(1, stateList.size());
+			pool.release(connect2);
+		}
+	}
+
+	@Test(expected = SQLException.class)
+	public void borrowTimeoutTest() throws Exception {
+		try (ConnectionPool pool = createPool(0, 2)) {
+			pool.setBorrowTimeout(10, TimeUnit.MILLISECONDS);
+			pool.borrow();
+			pool.borrow();
+			pool.borrow();
+		}
+	}
+
+	@Test
+	public void waitForReleaseTest() throws Exception {
+		try (ConnectionPool pool = createPool(0, 1)) {
+			final Connection connect = pool.borrow();
+			final Thread     thread  = new Thread(() -> {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				pool.release(connect);
+			});
+			thread.start();
+
+			Assert.assertSame(connect, pool.borrow());
+			thread.join();
+		}
+	}
+
+	@Test
+	public void validateOnBorrowTest() throws Exception {
+		try (ConnectionPool pool = createPool(1, 1)) {
+			stateList.get(0)[1] = false;
+
+			final Connection connect = pool.borrow();
+			Assert.assertEquals(2, stateList.size());
+			Assert.assertTrue(stateList.get(0)[0]);
+			Assert.assertTrue(connect.isValid(1));
+			pool.release(connect);
+		}
+	}
+
+	@Test
+	public void maxLifetimeTest() throws Exception {
+		try (ConnectionPool pool = createPool(0, 1)) {
+			final Connection connect = pool.borrow();
+			pool.setMaxLifetime(1, TimeUnit.NANOSECONDS);
+			pool.release(connect);
+
+			Assert.assertTrue(connect.isClosed());
+			Assert.assertEquals(0, pool.getTotalCount());
+		}
+	}
+
+	@Test
+	public void evictIdleTest() throws Exception {
+		try (ConnectionPool pool = createPool(1, 3)) {
+			final Connection connect1 = pool.borrow();
+			final Connection connect2 = pool.borrow();
+			final Connection connect3 = pool.borrow();
+			pool.release(connect1);
+			pool.release(connect2);
+			pool.release(connect3);
+			Assert.assertEquals(3, pool.getIdleCount());
+
+			pool.setIdleTimeout(0, TimeUnit.MILLISECONDS);
+			pool.evictIdleConnections();
+			Assert.assertEquals(1, pool.getIdleCount());
+			Assert.assertFalse(connect3.isClosed());
+		}
+	}
+
+	@Test
+	public void sessionTest() throws Exception {
+		try (ConnectionPool pool = createPool(0, 1)) {
+			final DataRecordSession session = pool.openSession();
+			Assert.assertEquals(1, pool.getBorrowedCount());
+
+			session.close();
+			Assert.assertTrue(session.isClosed());
+			Assert.assertFalse(session.getConnection().isClosed());
+			Assert.assertEquals(0, pool.getBorrowedCount());
+			Assert.assertEquals(1, pool.getIdleCount());
+		}
+	}
+}
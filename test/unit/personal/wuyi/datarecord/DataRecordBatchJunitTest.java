@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code DataRecordBatch}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/18/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class DataRecordBatchJunitTest {
+	private static final List<String> COLUMNS = Arrays.asList("RecordId", "SampleId", "Gene", "Percentage", "Chrom", "Position");
+
+	private RecordSchema schema;
+
+	@Before
+	public void initialize() {
+		final Map<String, Class<?>> columnTypes = new LinkedHashMap<>();
+		columnTypes.put("SampleId",   String.class);
+		columnTypes.put("Gene",       String.class);
+		columnTypes.put("Percentage", Double.class);
+		columnTypes.put("Chrom",      Integer.class);
+		columnTypes.put("Position",   Long.class);
+		schema = RecordSchema.of(columnTypes);
+	}
+
+	private ResultSet createResultSet(final Object[][] rows) {
+		final int[]    rowIndex  = { -1 };
+		final Object[] lastValue = { null };
+		return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "next":
+							return ++rowIndex[0] < rows.length;
+						case "findColumn":
+							return COLUMNS.indexOf(args[0]) + 1;
+						case "wasNull":
+							return lastValue[0] == null;
+						case "getString":
+						case "getInt":
+						case "getLong":
+						case "getDouble":
+							lastValue[0] = rows[rowIndex[0]][(Integer) args[0] - 1];
+							if (lastValue[0] != null || method.getName().equals("getString")) {
+								return lastValue[0];
+							}
+							return method.getReturnType() == double.class ? (Object) 0.0 : method.getReturnType() == long.class ? (Object) 0L : (Object) 0;
+						default:
+							return null;
+					}
+				});
+	}
+
+	@Test
+	public void readTest() throws Exception {
+		DataRecordBatch batch = DataRecordBatch.read(createResultSet(new Object[][] {
+				{ 1L, "A09090101", "EGFR",  9.3,  7,    55242464L },
+				{ 2L, "A09090101", "KRAS",  null, 12,   25398284L },
+				{ 3L, "A09090102", "EGFR",  14.5, null, 55249071L },
+				{ 4L, "A09090102", null,    3.2,  7,    null      }
+		}), "GHSNV", schema);
+
+		Assert.assertEquals(4, batch.size());
+		Assert.assertArrayEquals(new long[] { 1L, 2L, 3L, 4L }, batch.getRecordIds());
+
+		int geneColumn = batch.getColumnIndex("Gene");
+		Assert.assertArrayEquals(new String[] { "EGFR", "KRAS" }, batch.getDictionary(geneColumn));
+		Assert.assertArrayEquals(new int[] { 0, 1, 0, DataRecordBatch.NULL_CODE }, batch.getCodeColumn(geneColumn));
+		Assert.assertEquals("KRAS", batch.getString(1, geneColumn));
+		Assert.assertNull(batch.getString(3, geneColumn));
+
+		int chromColumn = batch.getColumnIndex("Chrom");
+		Assert.assertArrayEquals(new long[] { 7L, 12L, 0L, 7L }, batch.getLongColumn(chromColumn));
+		Assert.assertTrue(batch.isNull(2, chromColumn));
+		Assert.assertFalse(batch.isNull(1, chromColumn));
+
+		int percentageColumn = batch.getColumnIndex("Percentage");
+		Assert.assertEquals(4, batch.getDoubleColumn(percentageColumn).length);
+		Assert.assertEquals(1, batch.getNullCount(percentageColumn));
+	}
+
+	@Test
+	public void getDataRecordTest() throws Exception {
+		DataRecordBatch batch = DataRecordBatch.read(createResultSet(new Object[][] {
+				{ 8L, "A09090101", "EGFR", null, 7, 55242464L }
+		}), "GHSNV", schema);
+		DataRecord snv = batch.getDataRecord(0);
+
+		Assert.assertEquals("GHSNV",     snv.getDataTypeName());
+		Assert.assertEquals(8L,          snv.getRecordId());
+		Assert.assertEquals("EGFR",      snv.getStringVal("Gene"));
+		Assert.assertEquals(55242464L,   snv.getLong("Position"));
+		Assert.assertEquals((Integer) 7, snv.getIntegerVal("Chrom"));
+		Assert.assertTrue(snv.isNull("Percentage"));
+		Assert.assertFalse(snv.isModified());
+		Assert.assertSame(schema, snv.getSchema());
+	}
+
+	@Test
+	public void readManyRowsTest() throws Exception {
+		Object[][] rows = new Object[3000][];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new Object[] { (long) i, "A" + (i % 3), "EGFR", 1.0, i, (long) i };
+		}
+		DataRecordBatch batch = DataRecordBatch.read(createResultSet(rows), "GHSNV", schema);
+
+		Assert.assertEquals(3000, batch.size());
+		Assert.assertEquals(3000, batch.getLongColumn(batch.getColumnIndex("Position")).length);
+		Assert.assertEquals(3,    batch.getDictionary(batch.getColumnIndex("SampleId")).length);
+		Assert.assertEquals(2999, batch.getLongColumn(batch.getColumnIndex("Chrom"))[2999]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void getColumnTypeMismatchTest() throws Exception {
+		DataRecordBatch batch = DataRecordBatch.read(createResultSet(new Object[0][]), "GHSNV", schema);
+		batch.getDoubleColumn(batch.getColumnIndex("Gene"));
+	}
+}
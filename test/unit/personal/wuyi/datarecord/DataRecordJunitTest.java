@@ -16,6 +16,10 @@
 
 package personal.wuyi.datarecord;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -117,4 +121,98 @@ public class DataRecordJunitTest {
 		DataRecord snv = setDataRecord();
 		snv.getDoubleVal("SampleId");
 	}
+	
+	@Test
+	public void isModifiedTest() {
+		Assert.assertTrue(new DataRecord("GHSNV").isModified());
+		
+		DataRecord snv = new DataRecord("GHSNV", false);
+		Assert.assertFalse(snv.isModified());
+		snv.setDataField("Gene", "BRCA2");
+		Assert.assertTrue(snv.isModified());
+	}
+	
+	@Test
+	public void dirtyFieldsTest() {
+		DataRecord snv = setDataRecord();
+		Assert.assertEquals(7, snv.getDirtyFields().size());
+		
+		snv.clearDirtyFields();
+		Assert.assertTrue(snv.getDirtyFields().isEmpty());
+		
+		snv.setDataField("Gene",       "BRCA2");
+		snv.setDataField("Percentage", 19.3);
+		Assert.assertTrue(snv.isDirtyField("Gene"));
+		Assert.assertTrue(snv.isDirtyField("Percentage"));
+		Assert.assertFalse(snv.isDirtyField("SampleId"));
+		Assert.assertEquals(2, snv.getDirtyFields().size());
+	}
+	
+	@Test
+	public void primitiveAccessorTest() {
+		DataRecord snv = setDataRecord();
+		
+		Assert.assertEquals(178917560L, snv.getLong("Position"));
+		Assert.assertEquals(14L,        snv.getLong("Chrom"));
+		Assert.assertEquals(14,         snv.getInt("Chrom"));
+		Assert.assertEquals(14.5,       snv.getDouble("Percentage"), 0.0);
+		
+		int positionIndex = snv.getFieldIndex("Position");
+		Assert.assertEquals(178917560L, snv.getLongAt(positionIndex));
+		Assert.assertFalse(snv.isNullAt(positionIndex));
+	}
+	
+	@Test
+	public void primitiveNullTest() {
+		DataRecord snv = setDataRecord();
+		snv.setDataField("Position", (Long) null);
+		snv.setDataField("Gene",     (String) null);
+		
+		Assert.assertTrue(snv.isNull("Position"));
+		Assert.assertTrue(snv.isNull("Gene"));
+		Assert.assertFalse(snv.isNull("Chrom"));
+		Assert.assertEquals(0L, snv.getLong("Position"));
+		Assert.assertNull(snv.getLongVal("Position"));
+		Assert.assertNull(snv.getValueFields().get("Position"));
+		
+		snv.setDataField("Position", 178917561L);
+		Assert.assertEquals(178917561L, snv.getLong("Position"));
+	}
+	
+	@Test(expected = IllegalArgumentException.class) 
+	public void primitiveAccessorTypeTest() {
+		DataRecord snv = setDataRecord();
+		snv.getDouble("Position");
+	}
+	
+	@Test
+	public void changeFieldTypeTest() {
+		DataRecord snv = setDataRecord();
+		snv.setDataField("Chrom", "X");
+		
+		Assert.assertEquals("X",         snv.getStringVal("Chrom"));
+		Assert.assertEquals(178917560L,  snv.getLong("Position"));
+		Assert.assertEquals(14.5,        snv.getDouble("Percentage"), 0.0);
+		Assert.assertEquals("PIK3CA",    snv.getStringVal("Gene"));
+	}
+	
+	@Test
+	public void serializeTest() throws Exception {
+		DataRecord snv = setDataRecord();
+		snv.setDataField("Mutation_AA", (String) null);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(snv);
+		}
+		DataRecord copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (DataRecord) in.readObject();
+		}
+		
+		Assert.assertEquals(snv.getValueFields(), copy.getValueFields());
+		Assert.assertEquals(snv.getTypeFields(),  copy.getTypeFields());
+		Assert.assertEquals(snv.getDirtyFields(), copy.getDirtyFields());
+		Assert.assertEquals(178917560L,           copy.getLong("Position"));
+	}
 }
@@ -21,6 +21,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -105,6 +106,74 @@ public class DataRecordManagerJunitTest {
 		Assert.assertEquals(originalSizeInDb + 1, newSizeInDb);
 	}
 	
+	@Test 
+	public void storeAndCommitInBatchTest() throws Exception {
+		String whereClause = "SampleId = 'A3030302'";
+		int originalSizeInDb = DataRecordManager.queryDataRecords("GHSNV", whereClause).size();
+		
+		DataRecordManager.setBatchSize(2);
+		for (int i = 0; i < 5; i++) {
+			DataRecord snv = DataRecordManager.addDataRecord("GHSNV");
+			snv.setDataField("SampleId",    "A3030302");
+			snv.setDataField("RunId",       "160122_NB501062_00'70_AHWNNNBGYY");
+			snv.setDataField("Gene",        "EGFR");
+			snv.setDataField("Mutation_AA", "T790M");
+			snv.setDataField("Percentage",  9.3);
+			snv.setDataField("Chrom",       7);
+			snv.setDataField("Position",    1744567441L + i);
+		}
+		DataRecordManager.storeAndCommit(WriteMode.BATCH);
+		DataRecordManager.setBatchSize(DataRecordManagerConstants.DEFAULT_BATCH_SIZE);
+		
+		int newSizeInDb = DataRecordManager.queryDataRecords("GHSNV", whereClause).size();
+		Assert.assertEquals(originalSizeInDb + 5, newSizeInDb);
+	}
+	
+	@Test 
+	public void storeAndCommitInMultiRowTest() throws Exception {
+		String whereClause = "SampleId = 'A3030303'";
+		int originalSizeInDb = DataRecordManager.queryDataRecords("GHSNV", whereClause).size();
+		
+		DataRecordManager.setBatchSize(2);
+		for (int i = 0; i < 5; i++) {
+			DataRecord snv = DataRecordManager.addDataRecord("GHSNV");
+			snv.setDataField("SampleId",    "A3030303");
+			snv.setDataField("RunId",       "160122_NB501062_00'70_AHWNNNBGYY");
+			snv.setDataField("Gene",        "EGFR");
+			snv.setDataField("Mutation_AA", "T790M");
+			snv.setDataField("Percentage",  9.3);
+			snv.setDataField("Chrom",       7);
+			snv.setDataField("Position",    1744567441L + i);
+		}
+		DataRecordManager.storeAndCommit(WriteMode.MULTI_ROW);
+		DataRecordManager.setBatchSize(DataRecordManagerConstants.DEFAULT_BATCH_SIZE);
+		
+		int newSizeInDb = DataRecordManager.queryDataRecords("GHSNV", whereClause).size();
+		Assert.assertEquals(originalSizeInDb + 5, newSizeInDb);
+	}
+	
+	@Test 
+	public void storeAndCommitByBulkLoadTest() throws Exception {
+		String whereClause = "SampleId = 'A3030304'";
+		int originalSizeInDb = DataRecordManager.queryDataRecords("GHSNV", whereClause).size();
+		
+		for (int i = 0; i < 5; i++) {
+			DataRecord snv = DataRecordManager.addDataRecord("GHSNV");
+			snv.setDataField("SampleId",    "A3030304");
+			snv.setDataField("RunId",       "160122_NB501062_00'70_AHWN\tNNBGYY");
+			snv.setDataField("Gene",        "EGFR");
+			snv.setDataField("Mutation_AA", "T790M");
+			snv.setDataField("Percentage",  9.3);
+			snv.setDataField("Chrom",       7);
+			snv.setDataField("Position",    1744567441L + i);
+		}
+		DataRecordManager.storeAndCommit(WriteMode.BULK_LOAD);
+		
+		List<DataRecord> snvList = DataRecordManager.queryDataRecords("GHSNV", whereClause);
+		Assert.assertEquals(originalSizeInDb + 5, snvList.size());
+		Assert.assertEquals("160122_NB501062_00'70_AHWN\tNNBGYY", snvList.get(snvList.size() - 1).getStringVal("RunId"));
+	}
+	
 	@Test
 	public void storeAndCommitOnUpdatingExistingRecordTest() throws Exception {
 		String whereClause = "SampleId = 'A2049602_1' and Gene = 'BRCA2'";
@@ -115,6 +184,35 @@ public class DataRecordManagerJunitTest {
 		DataRecordManager.storeAndCommit();
 	}
 	
+	@Test
+	public void getDirtyFieldsDiffTest() throws Exception {
+		String whereClause = "SampleId = 'A09090101'";
+		DataRecord snv = DataRecordManager.queryDataRecords("GHSNV", whereClause).get(0);
+		Assert.assertTrue(DataRecordSession.getDirtyFieldsDiff(snv).getValueFields().isEmpty());
+		
+		snv.setDataField("Mutation_AA", "T790M");
+		DataRecord diff = DataRecordSession.getDirtyFieldsDiff(snv);
+		Assert.assertEquals(1, diff.getValueFields().size());
+		assertThat(diff, IsDataRecordContaining.hasEntry("Mutation_AA", "T790M"));
+	}
+	
+	@Test
+	public void storeAndCommitSkipsUnmodifiedRecordsTest() throws Exception {
+		String whereClause = "SampleId = 'A2049602_1'";
+		List<DataRecord> snvList = DataRecordManager.queryDataRecords("GHSNV", whereClause);
+		Assert.assertTrue(snvList.size() > 0);
+		snvList.get(0).setDataField("Mutation_AA", "P323A");
+		
+		CommitResult result = DataRecordManager.storeAndCommit();
+		Assert.assertEquals(0,                  result.getInsertedCount());
+		Assert.assertEquals(1,                  result.getUpdatedCount());
+		Assert.assertEquals(snvList.size() - 1, result.getSkippedCount());
+		
+		result = DataRecordManager.storeAndCommit();
+		Assert.assertEquals(0,                  result.getWrittenCount());
+		Assert.assertEquals(snvList.size() - 1, result.getSkippedCount());     // the updated record has been removed from the commit pool
+	}
+	
 	@Test
 	public void queryDataRecordsTest() throws Exception {
 		String whereClause = "SampleId = 'A09090101'";
@@ -130,6 +228,60 @@ public class DataRecordManagerJunitTest {
 		Assert.assertEquals(new Long(1744567456),              snvList.get(0).getLongVal("Position"));
 	}
 
+	@Test
+	public void openCursorTest() throws Exception {
+		String whereClause = "SampleId = 'A09090101'";
+		int originalSizeOfCommitPool = DataRecordManager.getSizeOfCommitPool();
+		
+		try (DataRecordCursor cursor = DataRecordManager.openCursor("GHSNV", whereClause)) {
+			Assert.assertTrue(cursor.hasNext());
+			DataRecord snv = cursor.next();
+			Assert.assertEquals("A09090101", snv.getStringVal("SampleId"));
+			Assert.assertEquals("EGFR",      snv.getStringVal("Gene"));
+			Assert.assertFalse(cursor.hasNext());
+		}
+		Assert.assertEquals(originalSizeOfCommitPool, DataRecordManager.getSizeOfCommitPool());
+	}
+	
+	@Test
+	public void forEachDataRecordTest() throws Exception {
+		String whereClause = "SampleId = 'A09090101'";
+		List<DataRecord> snvList = new ArrayList<>();
+		
+		DataRecordManager.forEachDataRecord("GHSNV", whereClause, snvList::add);
+		Assert.assertEquals(DataRecordManager.queryDataRecords("GHSNV", whereClause).size(), snvList.size());
+	}
+	
+	@Test
+	public void queryDataRecordBatchTest() throws Exception {
+		String whereClause = "SampleId = 'A09090101'";
+		List<DataRecord> snvList = DataRecordManager.queryDataRecords("GHSNV", whereClause);
+		int originalSizeOfCommitPool = DataRecordManager.getSizeOfCommitPool();
+		
+		DataRecordBatch batch = DataRecordManager.queryDataRecordBatch("GHSNV", whereClause);
+		Assert.assertEquals(snvList.size(), batch.size());
+		
+		int geneColumn = batch.getColumnIndex("Gene");
+		Assert.assertEquals("EGFR", batch.getString(0, geneColumn));
+		Assert.assertEquals(snvList.get(0).getLong("Position"), batch.getLongColumn(batch.getColumnIndex("Position"))[0]);
+		Assert.assertEquals(snvList.get(0).getValueFields(), batch.getDataRecord(0).getValueFields());
+		Assert.assertEquals(originalSizeOfCommitPool, DataRecordManager.getSizeOfCommitPool());
+	}
+	
+	@Test
+	public void queryDataRecordsInArenaTest() throws Exception {
+		String whereClause = "SampleId = 'A09090101'";
+		List<DataRecord> snvList = DataRecordManager.queryDataRecords("GHSNV", whereClause);
+		
+		RecordArena arena = DataRecordManager.createRecordArena("GHSNV", 1024 * 1024);
+		List<DataRecord> arenaSnvList = DataRecordManager.queryDataRecords(arena, whereClause);
+		Assert.assertEquals(snvList.size(), arena.size());
+		Assert.assertEquals(snvList.get(0).getValueFields(), arenaSnvList.get(0).getValueFields());
+		
+		arenaSnvList.get(0).setDataField("Gene", "EGFR");
+		Assert.assertEquals(0, DataRecordManager.storeAndCommit().getInsertedCount());
+	}
+	
 	@Test
 	public void compareAndGetDiffTest() {
 		DataRecord snv1 = DataRecordManager.addDataRecord("GHSNV");
@@ -159,6 +311,20 @@ public class DataRecordManagerJunitTest {
 		assertThat(diff, IsDataRecordContaining.hasEntry("Position",    1744567441L));
 	}
 	
+	@Test
+	public void generateSQLPreparedStatementTest() {
+		DataRecord snv = DataRecordManager.addDataRecord("GHSNV");
+		snv.setDataField("SampleId",    "A2049602_1");
+		snv.setDataField("Gene",        "BRCA2");
+		snv.setDataField("Percentage",  19.3);
+		
+		Assert.assertEquals("INSERT INTO GHSNV (SampleId,Gene,Percentage) VALUES (?,?,?)", DataRecordSession.generateSQLPreparedInsertStatement(snv));
+		Assert.assertEquals("UPDATE GHSNV SET SampleId=?,Gene=?,Percentage=? WHERE RecordId = ?", DataRecordSession.generateSQLPreparedUpdateStatement(snv));
+		Assert.assertEquals("INSERT INTO GHSNV (SampleId,Gene,Percentage) VALUES (?,?,?),(?,?,?),(?,?,?)", DataRecordSession.generateSQLMultiRowInsertStatement(snv, 3));
+		Assert.assertEquals("COPY GHSNV (SampleId,Gene,Percentage) FROM STDIN", DataRecordSession.generateSQLCopyStatement(snv));
+		Assert.assertEquals("LOAD DATA LOCAL INFILE 'stream' INTO TABLE GHSNV CHARACTER SET utf8mb4 (SampleId,Gene,Percentage)", DataRecordSession.generateSQLLoadDataStatement(snv));
+	}
+	
 	@Test
 	public void printDataRecordTest() {
 		DataRecord snv = DataRecordManager.addDataRecord("GHSNV");
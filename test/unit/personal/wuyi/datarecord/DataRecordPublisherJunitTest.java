@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import personal.wuyi.client.database.DbType;
+
+/**
+ * Test class for {@code DataRecordPublisher}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/28/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class DataRecordPublisherJunitTest {
+	/**
+	 * Session whose cursor reads a number of rows from a fake result set.
+	 */
+	private static class FakeSession extends DataRecordSession {
+		private final int           rowCount;
+		private final List<Integer> fetchSizes = new ArrayList<>();
+		private int                 readCount;
+		private boolean             failing;
+		private boolean             closed;
+
+		FakeSession(final int rowCount) {
+			super(DbType.POSTGRESQL, proxy(Connection.class, (proxy, method, args) -> null));
+			this.rowCount = rowCount;
+		}
+
+		@Override
+		public synchronized DataRecordCursor openCursor(final String dataType, final String whereClause, final boolean addToCommitPool) throws SQLException {
+			if (failing) {
+				throw new SQLException("failure");
+			}
+
+			final Statement statement = proxy(Statement.class, (proxy, method, args) -> method.getName().equals("getFetchSize") ? 1000 : null);
+			final ResultSet rs        = proxy(ResultSet.class, (proxy, method, args) -> {
+				switch (method.getName()) {
+					case "next":        return ++readCount <= rowCount;
+					case "getLong":     return (long) readCount;
+					case "setFetchSize": fetchSizes.add((Integer) args[0]); return null;
+					default:            return null;
+				}
+			});
+			return new DataRecordCursor(statement, rs, dataType, RecordSchema.EMPTY, null, null);
+		}
+
+		@Override
+		public synchronized void close() {
+			closed = true;
+		}
+	}
+
+	/**
+	 * Subscriber which records the signals.
+	 */
+	private static class RecordingSubscriber implements DataRecordPublisher.Subscriber {
+		private final List<Long>               recordIdList = new ArrayList<>();
+		private DataRecordPublisher.Subscription subscription;
+		private Throwable                      error;
+		private boolean                        completed;
+
+		@Override public void onSubscribe(final DataRecordPublisher.Subscription subscription) { this.subscription = subscription;           }
+		@Override public void onNext(final DataRecord dataRecord)                             { recordIdList.add(dataRecord.getRecordId()); }
+		@Override public void onError(final Throwable throwable)                              { error = throwable;                          }
+		@Override public void onComplete()                                                    { completed = true;                           }
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(final Class<T> type, final java.lang.reflect.InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(DataRecordPublisherJunitTest.class.getClassLoader(), new Class<?>[] { type }, handler);
+	}
+
+	@Test
+	public void demandTest() {
+		final FakeSession         session    = new FakeSession(5);
+		final RecordingSubscriber subscriber = new RecordingSubscriber();
+		new DataRecordPublisher(() -> session, "GHSNV", null, Runnable::run).subscribe(subscriber);
+
+		Assert.assertEquals(0, session.readCount);                    // nothing is read before the first request
+
+		subscriber.subscription.request(2);
+		Assert.assertEquals(2, subscriber.recordIdList.size());
+		Assert.assertEquals(2, session.readCount);
+		Assert.assertEquals(Integer.valueOf(2), session.fetchSizes.get(0));
+		Assert.assertFalse(subscriber.completed);
+		Assert.assertFalse(session.closed);
+
+		subscriber.subscription.request(10);
+		Assert.assertEquals(5, subscriber.recordIdList.size());
+		Assert.assertEquals(Long.valueOf(5), subscriber.recordIdList.get(4));
+		Assert.assertTrue(subscriber.completed);
+		Assert.assertNull(subscriber.error);
+		Assert.assertTrue(session.closed);
+	}
+
+	@Test
+	public void cancelTest() {
+		final FakeSession         session    = new FakeSession(5);
+		final RecordingSubscriber subscriber = new RecordingSubscriber();
+		new DataRecordPublisher(() -> session, "GHSNV", null, Runnable::run).subscribe(subscriber);
+
+		subscriber.subscription.request(1);
+		subscriber.subscription.cancel();
+		subscriber.subscription.request(1);
+
+		Assert.assertEquals(1, subscriber.recordIdList.size());
+		Assert.assertFalse(subscriber.completed);
+		Assert.assertNull(subscriber.error);
+		Assert.assertTrue(session.closed);
+	}
+
+	@Test
+	public void errorTest() {
+		final FakeSession session = new FakeSession(5);
+		session.failing = true;
+		final RecordingSubscriber subscriber = new RecordingSubscriber();
+		new DataRecordPublisher(() -> session, "GHSNV", null, Runnable::run).subscribe(subscriber);
+
+		subscriber.subscription.request(1);
+		Assert.assertTrue(subscriber.error instanceof SQLException);
+		Assert.assertTrue(session.closed);
+
+		final RecordingSubscriber invalid = new RecordingSubscriber();
+		new DataRecordPublisher(() -> new FakeSession(5), "GHSNV", null, Runnable::run).subscribe(invalid);
+		invalid.subscription.request(0);
+		Assert.assertTrue(invalid.error instanceof IllegalArgumentException);
+	}
+}
@@ -0,0 +1,656 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import personal.wuyi.client.database.DbType;
+
+/**
+ * Test class for {@code DataRecordSession}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/20/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class DataRecordSessionJunitTest {
+	private Connection createConnection() {
+		final boolean[] closed = { false };
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "close":
+							closed[0] = true;
+							return null;
+						case "isClosed":
+							return closed[0];
+						default:
+							return null;
+					}
+				});
+	}
+
+	private Connection createConnection(final List<String> callList) {
+		final boolean[] autoCommit = { true };
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "getAutoCommit":
+							return autoCommit[0];
+						case "setAutoCommit":
+							autoCommit[0] = (Boolean) args[0];
+							callList.add("setAutoCommit(" + args[0] + ")");
+							return null;
+						case "commit":
+						case "rollback":
+							callList.add(method.getName());
+							return null;
+						case "isClosed":
+							return false;
+						default:
+							return null;
+					}
+				});
+	}
+
+	private Connection createInsertConnection(final List<String> sqlList, final boolean reportingKeys) {
+		return createInsertConnection(sqlList, reportingKeys, "GENERATED_KEY");
+	}
+
+	private Connection createInsertConnection(final List<String> sqlList, final boolean reportingKeys, final String keyLabel) {
+		final long[] nextKey = { 0 };
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "prepareStatement":
+							sqlList.add((String) args[0]);
+							return createInsertStatement(nextKey, reportingKeys, keyLabel);
+						case "getAutoCommit":
+						case "isValid":
+							return true;
+						case "isClosed":
+							return false;
+						default:
+							return null;
+					}
+				});
+	}
+
+	private PreparedStatement createInsertStatement(final long[] nextKey, final boolean reportingKeys, final String keyLabel) {
+		return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "executeUpdate":
+							return 1;
+						case "executeBatch":
+							return new int[] { 1 };
+						case "getGeneratedKeys":
+							if (!reportingKeys) {
+								return null;
+							}
+							final boolean[]         read     = { false };
+							final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSetMetaData.class },
+									(mdProxy, mdMethod, mdArgs) -> mdMethod.getName().equals("getColumnCount") ? (Object) 1 : keyLabel);
+							return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+									(rsProxy, rsMethod, rsArgs) -> {
+										switch (rsMethod.getName()) {
+											case "next":        return !read[0] && (read[0] = true);
+											case "getLong":     return ++nextKey[0];
+											case "getMetaData": return metaData;
+											default:            return null;
+										}
+									});
+						default:
+							return null;
+					}
+				});
+	}
+
+	/**
+	 * Session which doesn't verify the records against a real table.
+	 */
+	private static class UnverifiedSession extends DataRecordSession {
+		UnverifiedSession(final Connection connect) {
+			this(DbType.POSTGRESQL, connect);
+		}
+
+		UnverifiedSession(final DbType type, final Connection connect) {
+			super(type, connect);
+		}
+
+		UnverifiedSession(final Connection connect, final ConnectionPool pool) {
+			super(DbType.POSTGRESQL, connect, new ColumnMetadataCache(), pool);
+		}
+
+		@Override
+		protected void verifyDataField(final DataRecord dataRecord) {
+			// the records are not verified against a real table
+		}
+	}
+
+	/**
+	 * Session which simulates the inserts and fails when writing a given 
+	 * record.
+	 */
+	private static class FailingSession extends DataRecordSession {
+		private final DataRecord failingRecord;
+
+		FailingSession(final Connection connect, final DataRecord failingRecord) {
+			super(DbType.MYSQL, connect);
+			this.failingRecord = failingRecord;
+		}
+
+		@Override
+		protected void verifyDataField(final DataRecord dataRecord) {
+			// the records are not verified against a real table
+		}
+
+		@Override
+		protected void writeDataRecords(final List<DataRecord> modifiedDataRecordList, final WriteMode writeMode) throws SQLException {
+			for (DataRecord dataRecord : modifiedDataRecordList) {
+				dataRecord.setRecordId(100);
+				dataRecord.setNewRecordForDatabase(false);
+				if (dataRecord == failingRecord) {
+					throw new SQLException("failed");
+				}
+			}
+		}
+	}
+
+	private List<DataRecord> createDataRecords(final int count) {
+		final List<DataRecord> dataRecordList = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			final DataRecord dataRecord = new DataRecord("GHSNV");
+			dataRecord.setDataField("SampleId", "S" + i);
+			dataRecordList.add(dataRecord);
+		}
+		return dataRecordList;
+	}
+
+	@Test
+	public void transactionTest() throws Exception {
+		final List<String>      callList       = new ArrayList<>();
+		final List<DataRecord>  dataRecordList = createDataRecords(5);
+		try (DataRecordSession session = new FailingSession(createConnection(callList), null)) {
+			session.commitDataRecords(dataRecordList, WriteMode.STATEMENT);
+		}
+
+		Assert.assertEquals(Arrays.asList("setAutoCommit(false)", "commit", "setAutoCommit(true)"), callList);
+		for (DataRecord dataRecord : dataRecordList) {
+			Assert.assertFalse(dataRecord.isModified());
+			Assert.assertTrue(dataRecord.getDirtyFields().isEmpty());
+		}
+	}
+
+	@Test
+	public void rollbackChunkTest() throws Exception {
+		final List<String>     callList       = new ArrayList<>();
+		final List<DataRecord> dataRecordList = createDataRecords(5);
+		try (DataRecordSession session = new FailingSession(createConnection(callList), dataRecordList.get(4))) {
+			session.setTransactionChunkSize(2);
+			session.commitDataRecords(dataRecordList, WriteMode.STATEMENT);
+			Assert.fail();
+		} catch (SQLException e) {
+			Assert.assertEquals("failed", e.getMessage());
+		}
+
+		Assert.assertEquals(Arrays.asList("setAutoCommit(false)", "commit", "commit", "rollback", "setAutoCommit(true)"), callList);
+		for (DataRecord dataRecord : dataRecordList.subList(0, 4)) {
+			Assert.assertFalse(dataRecord.isModified());
+			Assert.assertFalse(dataRecord.isNewRecordForDatabase());
+		}
+		final DataRecord rolledBack = dataRecordList.get(4);
+		Assert.assertTrue(rolledBack.isModified());
+		Assert.assertTrue(rolledBack.isNewRecordForDatabase());
+		Assert.assertEquals(0, rolledBack.getRecordId());
+		Assert.assertTrue(rolledBack.getDirtyFields().contains("SampleId"));
+	}
+
+	@Test
+	public void callerTransactionTest() throws Exception {
+		final List<String>     callList       = new ArrayList<>();
+		final List<DataRecord> dataRecordList = createDataRecords(3);
+		try (DataRecordSession session = new FailingSession(createConnection(callList), null)) {
+			session.getConnection().setAutoCommit(false);
+			callList.clear();
+			session.commitDataRecords(dataRecordList, WriteMode.STATEMENT);
+		}
+
+		Assert.assertTrue(callList.isEmpty());
+		Assert.assertFalse(dataRecordList.get(0).isModified());
+	}
+
+	@Test
+	public void removeCommittedRecordsTest() throws Exception {
+		try (DataRecordSession session = new FailingSession(createConnection(new ArrayList<>()), null)) {
+			final DataRecord dataRecord = session.addDataRecord("GHSNV");
+			dataRecord.setDataField("SampleId", "S1");
+			final DataRecord unmodified = new DataRecord("GHSNV", false);
+			session.addDataRecord(unmodified);
+
+			final CommitResult result = session.storeAndCommit();
+			Assert.assertEquals(1, result.getInsertedCount());
+			Assert.assertEquals(1, result.getSkippedCount());
+			Assert.assertEquals(1, session.getSizeOfCommitPool());
+
+			dataRecord.setDataField("SampleId", "S2");
+			session.addDataRecord(dataRecord);
+			Assert.assertEquals(1, session.storeAndCommit().getUpdatedCount());
+			Assert.assertEquals(1, session.getSizeOfCommitPool());
+		}
+	}
+
+	@Test
+	public void boundedCommitPoolTest() throws Exception {
+		try (DataRecordSession session = new FailingSession(createConnection(new ArrayList<>()), null)) {
+			session.setCommitPoolLimit(2, 0);
+			for (int i = 0; i < 5; i++) {
+				session.addDataRecord("GHSNV").setDataField("SampleId", "S" + i);
+			}
+			Assert.assertEquals(1, session.getSizeOfCommitPool());
+		}
+	}
+
+	@Test
+	public void boundedCommitPoolBytesTest() throws Exception {
+		try (DataRecordSession session = new FailingSession(createConnection(new ArrayList<>()), null)) {
+			final String value = "0123456789";
+			session.setCommitPoolLimit(0, 3 * DataRecordSession.estimateRowBytes(createDataRecord(value)));
+			for (int i = 0; i < 3; i++) {
+				session.addDataRecord("GHSNV").setDataField("SampleId", value);
+			}
+			Assert.assertEquals(3, session.getSizeOfCommitPool());
+
+			session.addDataRecord("GHSNV");
+			Assert.assertEquals(1, session.getSizeOfCommitPool());
+		}
+	}
+
+	@Test(expected = DataRecordException.class)
+	public void failedFlushTest() throws Exception {
+		final DataRecord failing = createDataRecord("S0");
+		try (DataRecordSession session = new FailingSession(createConnection(new ArrayList<>()), failing)) {
+			session.setCommitPoolLimit(1, 0);
+			session.addDataRecord(failing);
+			session.addDataRecord("GHSNV");
+		}
+	}
+
+	private DataRecord createDataRecord(final String sampleId) {
+		final DataRecord dataRecord = new DataRecord("GHSNV");
+		dataRecord.setDataField("SampleId", sampleId);
+		return dataRecord;
+	}
+
+	@Test
+	public void independentCommitPoolTest() throws Exception {
+		try (DataRecordSession session1 = new DataRecordSession(DbType.MYSQL, createConnection());
+			 DataRecordSession session2 = new DataRecordSession(DbType.MYSQL, createConnection())) {
+			session1.addDataRecord("GHSNV");
+			session1.addDataRecord("GHSNV");
+			session2.addDataRecord("GHSNV");
+
+			Assert.assertEquals(2, session1.getSizeOfCommitPool());
+			Assert.assertEquals(1, session2.getSizeOfCommitPool());
+
+			session1.clearCommitPool();
+			Assert.assertEquals(0, session1.getSizeOfCommitPool());
+			Assert.assertEquals(1, session2.getSizeOfCommitPool());
+		}
+	}
+
+	@Test
+	public void closeTest() throws Exception {
+		final Connection        connect = createConnection();
+		final DataRecordSession session = new DataRecordSession(DbType.MYSQL, connect);
+		session.addDataRecord("GHSNV");
+		Assert.assertFalse(session.isClosed());
+
+		session.close();
+		Assert.assertTrue(session.isClosed());
+		Assert.assertTrue(connect.isClosed());
+		Assert.assertEquals(0, session.getSizeOfCommitPool());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void defaultSessionNotBuiltTest() throws Exception {
+		DataRecordManager.closeConnection();
+		DataRecordManager.addDataRecord("GHSNV");
+	}
+
+	@Test
+	public void rebuildConnectionTest() throws Exception {
+		final ConnectionPool.Factory mysqlFactory = () -> createInsertConnection(new ArrayList<>(), true);
+		final ConnectionPool.Factory otherFactory = () -> createInsertConnection(new ArrayList<>(), true);
+		try {
+			DataRecordManager.buildConnection(DbType.MYSQL, mysqlFactory);
+			final ConnectionPool pool = DataRecordManager.getConnectionPool();
+
+			DataRecordManager.buildConnection(DbType.MYSQL, mysqlFactory);
+			Assert.assertSame(pool, DataRecordManager.getConnectionPool());
+
+			DataRecordManager.buildConnection(DbType.POSTGRESQL, mysqlFactory);
+			Assert.assertTrue(pool.isClosed());
+			Assert.assertEquals(DbType.POSTGRESQL, DataRecordManager.getConnectionPool().getDbType());
+
+			final ConnectionPool postgresqlPool = DataRecordManager.getConnectionPool();
+			DataRecordManager.buildConnection(DbType.POSTGRESQL, otherFactory);
+			Assert.assertTrue(postgresqlPool.isClosed());
+		} finally {
+			DataRecordManager.closeConnection();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void commitParallelismWithoutPoolTest() throws Exception {
+		try (DataRecordSession session = new DataRecordSession(DbType.MYSQL, createConnection())) {
+			session.setCommitParallelism(4);
+		}
+	}
+
+	@Test
+	public void partitionTest() throws Exception {
+		final List<DataRecord> dataRecordList = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			final DataRecord dataRecord = new DataRecord(i % 2 == 0 ? "GHSNV" : "GHCNV", false);
+			dataRecord.setRecordId(i % 5);
+			dataRecordList.add(dataRecord);
+		}
+		for (int i = 0; i < 8; i++) {
+			dataRecordList.add(new DataRecord("GHSNV", true));
+		}
+
+		final List<List<DataRecord>> partitionList = DataRecordSession.partition(dataRecordList, 4);
+		Assert.assertEquals(4, partitionList.size());
+
+		int total = 0;
+		for (List<DataRecord> partition : partitionList) {
+			total += partition.size();
+			for (DataRecord dataRecord : partition) {
+				if (!dataRecord.isNewRecordForDatabase()) {
+					for (List<DataRecord> other : partitionList) {
+						if (other != partition) {
+							for (DataRecord otherRecord : other) {
+								Assert.assertFalse(!otherRecord.isNewRecordForDatabase()
+										&& otherRecord.getDataTypeName().equals(dataRecord.getDataTypeName())
+										&& otherRecord.getRecordId() == dataRecord.getRecordId());
+							}
+						}
+					}
+				}
+			}
+		}
+		Assert.assertEquals(dataRecordList.size(), total);
+
+		for (List<DataRecord> partition : partitionList) {
+			int newCount = 0;
+			for (DataRecord dataRecord : partition) {
+				if (dataRecord.isNewRecordForDatabase()) {
+					newCount++;
+				}
+			}
+			Assert.assertEquals(2, newCount);
+		}
+	}
+
+	@Test
+	public void partitionEmptyTest() throws Exception {
+		final List<DataRecord> dataRecordList = new ArrayList<>();
+		final DataRecord       dataRecord     = new DataRecord("GHSNV", false);
+		dataRecord.setRecordId(7);
+		dataRecordList.add(dataRecord);
+
+		Assert.assertEquals(1, DataRecordSession.partition(dataRecordList, 8).size());
+		Assert.assertEquals(1, DataRecordSession.partition(new ArrayList<>(), 8).size());
+	}
+
+	@Test
+	public void maxAllowedPacketFallbackTest() throws Exception {
+		for (Long reported : new Long[] { null, 0L, 4096L }) {
+			final ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+					(proxy, method, args) -> {
+						switch (method.getName()) {
+							case "next":    return reported != null;
+							case "getLong": return reported;
+							default:        return null;
+						}
+					});
+			final Statement  statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Statement.class },
+					(proxy, method, args) -> method.getName().equals("executeQuery") ? rs : null);
+			final Connection connect   = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> method.getName().equals("createStatement") ? statement : null);
+
+			final long expected = (reported != null && reported > DataRecordManagerConstants.MYSQL_PACKET_OVERHEAD) ? reported : DataRecordManagerConstants.DEFAULT_MAX_ALLOWED_PACKET;
+			Assert.assertEquals(expected, new DataRecordSession(DbType.MYSQL, connect).getMaxAllowedPacket());
+		}
+	}
+
+	@Test
+	public void insertModifyCommitTest() throws Exception {
+		for (WriteMode writeMode : new WriteMode[] { WriteMode.STATEMENT, WriteMode.BATCH, WriteMode.MULTI_ROW }) {
+			final List<String> sqlList = new ArrayList<>();
+			try (DataRecordSession session = new UnverifiedSession(createInsertConnection(sqlList, true))) {
+				final DataRecord dataRecord = session.addDataRecord("GHSNV");
+				dataRecord.setDataField("SampleId", "S1");
+				session.storeAndCommit(writeMode);
+
+				Assert.assertFalse(dataRecord.isNewRecordForDatabase());
+				Assert.assertEquals(1, dataRecord.getRecordId());
+
+				dataRecord.setDataField("Gene", "EGFR");
+				session.addDataRecord(dataRecord);
+				final CommitResult result = session.storeAndCommit(writeMode);
+
+				Assert.assertEquals(0, result.getInsertedCount());
+				Assert.assertEquals(1, result.getUpdatedCount());
+			}
+
+			Assert.assertEquals(writeMode.toString(), 2, sqlList.size());
+			Assert.assertTrue(sqlList.get(0).startsWith("INSERT"));
+			Assert.assertTrue(sqlList.get(1).startsWith("UPDATE"));
+		}
+	}
+
+	@Test
+	public void insertWithoutRecordIdTest() throws Exception {
+		try (DataRecordSession session = new UnverifiedSession(createInsertConnection(new ArrayList<>(), false))) {
+			final DataRecord dataRecord = session.addDataRecord("GHSNV");
+			dataRecord.setDataField("SampleId", "S1");
+			session.storeAndCommit(WriteMode.STATEMENT);
+
+			Assert.assertTrue(dataRecord.isNewRecordForDatabase());
+			Assert.assertTrue(dataRecord.isInsertedWithoutRecordId());
+
+			dataRecord.setDataField("Gene", "EGFR");
+			session.addDataRecord(dataRecord);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// the record can't be written again
+		}
+	}
+
+	@Test
+	public void reAddCommittedRecordTest() throws Exception {
+		final List<String> sqlList = new ArrayList<>();
+		try (DataRecordSession session = new UnverifiedSession(createInsertConnection(sqlList, true))) {
+			final DataRecord dataRecord = session.addDataRecord("GHSNV");
+			dataRecord.setDataField("SampleId", "S1");
+			Assert.assertEquals(1, session.storeAndCommit().getInsertedCount());
+			Assert.assertEquals(0, session.getSizeOfCommitPool());
+
+			dataRecord.setDataField("SampleId", "S2");
+			session.addDataRecord(dataRecord);
+			Assert.assertEquals(1, session.getSizeOfCommitPool());
+
+			final CommitResult result = session.storeAndCommit();
+			Assert.assertEquals(0, result.getInsertedCount());
+			Assert.assertEquals(1, result.getUpdatedCount());
+			Assert.assertEquals(0, session.getSizeOfCommitPool());
+		}
+
+		Assert.assertEquals(2, sqlList.size());
+		Assert.assertTrue(sqlList.get(0).startsWith("INSERT"));
+		Assert.assertTrue(sqlList.get(1).startsWith("UPDATE"));
+	}
+
+	@Test
+	public void parallelCommitBusyPoolTest() throws Exception {
+		final List<String>   sqlList = Collections.synchronizedList(new ArrayList<>());
+		final ConnectionPool pool    = new ConnectionPool(DbType.POSTGRESQL, () -> createInsertConnection(sqlList, true), new ColumnMetadataCache(), 0, 2, false);
+		try (DataRecordSession session = new UnverifiedSession(pool.borrow(), pool)) {
+			try {
+				session.setCommitParallelism(3);
+				Assert.fail();
+			} catch (IllegalArgumentException e) {
+				// more connections than the pool has
+			}
+			session.setCommitParallelism(2);
+
+			final DataRecordSession busy = pool.openSession();
+			for (int i = 0; i < 4; i++) {
+				session.addDataRecord("GHSNV").setDataField("SampleId", "S" + i);
+			}
+			Assert.assertEquals(4, session.storeAndCommit().getInsertedCount());     // doesn't wait for the busy connection
+			Assert.assertEquals(1, sqlList.size());                                   // one cached statement per connection
+			busy.close();
+
+			for (int i = 0; i < 4; i++) {
+				session.addDataRecord("GHSNV").setDataField("SampleId", "S" + i);
+			}
+			Assert.assertEquals(4, session.storeAndCommit().getInsertedCount());
+			Assert.assertEquals(2, sqlList.size());                                   // the second connection is used
+			Assert.assertEquals(1, pool.getBorrowedCount());
+		} finally {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void postgresqlColumnTypeTest() throws Exception {
+		final String[][] columns = {
+				{ "recordid",   "bigserial" },
+				{ "sampleid",   "varchar"   },
+				{ "chrom",      "int4"      },
+				{ "count",      "serial"    },
+				{ "position",   "int8"      },
+				{ "percentage", "float8"    } };
+		final ResultSetMetaData metadata  = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSetMetaData.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "getColumnCount":    return columns.length;
+						case "getColumnName":     return columns[(Integer) args[0] - 1][0];
+						case "getColumnTypeName": return columns[(Integer) args[0] - 1][1];
+						default:                  return null;
+					}
+				});
+		final ResultSet         rs        = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+				(proxy, method, args) -> method.getName().equals("getMetaData") ? metadata : null);
+		final Statement         statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Statement.class },
+				(proxy, method, args) -> method.getName().equals("executeQuery") ? rs : null);
+		final Connection        connect   = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> method.getName().equals("createStatement") ? statement : null);
+
+		final Map<String, Class<?>> columnTypes = new DataRecordSession(DbType.POSTGRESQL, connect).loadColumnMetadata("ghsnv");
+		Assert.assertEquals(Long.class,    columnTypes.get("recordid"));
+		Assert.assertEquals(String.class,  columnTypes.get("sampleid"));
+		Assert.assertEquals(Integer.class, columnTypes.get("chrom"));
+		Assert.assertEquals(Integer.class, columnTypes.get("count"));
+		Assert.assertEquals(Long.class,    columnTypes.get("position"));
+		Assert.assertEquals(Double.class,  columnTypes.get("percentage"));
+	}
+
+	@Test
+	public void noMonitorDuringJdbcCallTest() throws Exception {
+		final Connection          delegate   = createInsertConnection(new ArrayList<>(), true);
+		final DataRecordSession[] holder     = new DataRecordSession[1];
+		final List<String>        pinnedList = new ArrayList<>();
+		final Connection          connect    = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					if (holder[0] != null && Thread.holdsLock(holder[0])) {
+						pinnedList.add(method.getName());
+					}
+					return method.invoke(delegate, args);
+				});
+
+		try (DataRecordSession session = new UnverifiedSession(connect)) {
+			holder[0] = session;
+			session.addDataRecord("GHSNV").setDataField("SampleId", "S1");
+			session.storeAndCommit(WriteMode.STATEMENT);
+		}
+		Assert.assertEquals(new ArrayList<String>(), pinnedList);
+	}
+
+	@Test
+	public void oracleGeneratedKeyTest() throws Exception {
+		final List<String> sqlList    = new ArrayList<>();
+		final List<Object> keyArgList = new ArrayList<>();
+		final Connection   delegate   = createInsertConnection(sqlList, true, "ROWID");
+		final Connection   connect    = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					if (method.getName().equals("prepareStatement")) {
+						keyArgList.add(args[1]);
+					}
+					return method.invoke(delegate, args);
+				});
+
+		try (DataRecordSession session = new UnverifiedSession(DbType.ORACLE, connect)) {
+			final DataRecord dataRecord = session.addDataRecord("GHSNV");
+			dataRecord.setDataField("SampleId", "S1");
+			session.storeAndCommit(WriteMode.STATEMENT);
+
+			Assert.assertTrue(dataRecord.isNewRecordForDatabase());     // the ROWID is not taken as the RecordId
+			Assert.assertTrue(dataRecord.isInsertedWithoutRecordId());
+		}
+
+		Assert.assertEquals(1, keyArgList.size());
+		Assert.assertArrayEquals(new String[] { "RecordId" }, (String[]) keyArgList.get(0));
+	}
+
+	@Test
+	public void unknownGeneratedKeyTest() throws Exception {
+		try (DataRecordSession session = new UnverifiedSession(createInsertConnection(new ArrayList<>(), true, "ROWID"))) {
+			final DataRecord dataRecord = session.addDataRecord("GHSNV");
+			dataRecord.setDataField("SampleId", "S1");
+			session.storeAndCommit(WriteMode.STATEMENT);
+
+			Assert.assertTrue(dataRecord.isNewRecordForDatabase());
+		}
+
+		try (DataRecordSession session = new UnverifiedSession(createInsertConnection(new ArrayList<>(), true, "recordid"))) {
+			final DataRecord dataRecord = session.addDataRecord("GHSNV");
+			dataRecord.setDataField("SampleId", "S1");
+			session.storeAndCommit(WriteMode.STATEMENT);
+
+			Assert.assertEquals(1, dataRecord.getRecordId());
+		}
+	}
+}
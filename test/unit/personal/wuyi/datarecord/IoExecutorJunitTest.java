@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@code IoExecutor}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/28/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class IoExecutorJunitTest {
+	@Test
+	public void limitConcurrencyTest() throws Exception {
+		for (boolean useVirtualThreads : new boolean[] { false, true }) {
+			try (IoExecutor executor = new IoExecutor(2, useVirtualThreads)) {
+				final AtomicInteger  running    = new AtomicInteger();
+				final AtomicInteger  maxRunning = new AtomicInteger();
+				final CountDownLatch release    = new CountDownLatch(1);
+				final List<Future<Integer>> futureList = new ArrayList<>();
+				for (int i = 0; i < 10; i++) {
+					final int value = i;
+					futureList.add(executor.submit(() -> {
+						maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+						release.await(5, TimeUnit.SECONDS);
+						running.decrementAndGet();
+						return value;
+					}));
+				}
+
+				Thread.sleep(100);
+				release.countDown();
+				for (int i = 0; i < 10; i++) {
+					Assert.assertEquals(i, futureList.get(i).get(5, TimeUnit.SECONDS).intValue());
+				}
+				Assert.assertEquals(2, maxRunning.get());
+			}
+		}
+	}
+
+	@Test
+	public void virtualThreadFallbackTest() {
+		try (IoExecutor executor = new IoExecutor(1, true)) {
+			Assert.assertEquals(IoExecutor.isVirtualThreadSupported(), executor.isVirtual());
+		}
+		try (IoExecutor executor = new IoExecutor(1, false)) {
+			Assert.assertFalse(executor.isVirtual());
+		}
+	}
+
+	@Test
+	public void failedTaskTest() throws Exception {
+		try (IoExecutor executor = new IoExecutor(1, false)) {
+			final Future<Object> future = executor.submit(() -> { throw new SQLException("failure"); });
+			try {
+				future.get(5, TimeUnit.SECONDS);
+				Assert.fail();
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof SQLException);
+			}
+
+			Assert.assertEquals("ok", executor.submit(() -> "ok").get(5, TimeUnit.SECONDS));   // the permit is released
+		}
+	}
+
+	@Test
+	public void callAsyncTest() throws Exception {
+		try (IoExecutor executor = new IoExecutor(2, false)) {
+			final CompletableFuture<String> future = IoExecutor.callAsync(() -> "ok", executor);
+			Assert.assertEquals("ok", future.get(5, TimeUnit.SECONDS));
+
+			final CompletableFuture<String> failed = IoExecutor.callAsync(() -> { throw new SQLException("failure"); }, executor);
+			try {
+				failed.get(5, TimeUnit.SECONDS);
+				Assert.fail();
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof SQLException);
+			}
+		}
+	}
+
+	@Test
+	public void callAsyncRejectedTest() throws Exception {
+		final IoExecutor executor = new IoExecutor(1, false);
+		executor.close();
+
+		final CompletableFuture<String> future = IoExecutor.callAsync(() -> "ok", executor);
+		Assert.assertTrue(future.isCompletedExceptionally());
+	}
+}
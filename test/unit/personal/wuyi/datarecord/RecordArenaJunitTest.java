@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code RecordArena}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/19/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class RecordArenaJunitTest {
+	private RecordSchema schema;
+
+	@Before
+	public void initialize() {
+		final Map<String, Class<?>> columnTypes = new LinkedHashMap<>();
+		columnTypes.put("SampleId",   String.class);
+		columnTypes.put("Gene",       String.class);
+		columnTypes.put("Percentage", Double.class);
+		columnTypes.put("Chrom",      Integer.class);
+		columnTypes.put("Position",   Long.class);
+		schema = RecordSchema.of(columnTypes);
+	}
+
+	@Test
+	public void setValueAndGetValueTest() throws Exception {
+		RecordArena arena = new RecordArena("GHSNV", schema, 4096);
+		DataRecord  snv   = arena.allocate(true);
+		snv.setDataField("SampleId",   "A2049602_1");
+		snv.setDataField("Gene",       "PIK3CA \u00e9");
+		snv.setDataField("Percentage", 14.5);
+		snv.setDataField("Chrom",      14);
+		snv.setDataField("Position",   178917560L);
+
+		Assert.assertEquals("GHSNV",         snv.getDataTypeName());
+		Assert.assertEquals("A2049602_1",    snv.getStringVal("SampleId"));
+		Assert.assertEquals("PIK3CA \u00e9",  snv.getStringVal("Gene"));
+		Assert.assertEquals((Double) 14.5,   snv.getDoubleVal("Percentage"));
+		Assert.assertEquals(14,              snv.getInt("Chrom"));
+		Assert.assertEquals(178917560L,      snv.getLong("Position"));
+		Assert.assertEquals(5,               snv.getDirtyFields().size());
+		Assert.assertEquals(1,               arena.size());
+	}
+
+	@Test
+	public void nullValueTest() throws Exception {
+		RecordArena arena = new RecordArena("GHSNV", schema, 4096);
+		DataRecord  snv   = arena.allocate(false);
+		Assert.assertTrue(snv.isNull("Gene"));
+		Assert.assertTrue(snv.isNull("Position"));
+		Assert.assertFalse(snv.isModified());
+
+		snv.setDataField("Gene",     "EGFR");
+		snv.setDataField("Position", 55242464L);
+		snv.setDataField("Gene",     (String) null);
+		Assert.assertTrue(snv.isNull("Gene"));
+		Assert.assertNull(snv.getStringVal("Gene"));
+		Assert.assertFalse(snv.isNull("Position"));
+	}
+
+	@Test
+	public void separateRecordsTest() throws Exception {
+		RecordArena arena = new RecordArena("GHSNV", schema, 4096);
+		DataRecord  snv1  = arena.allocate(true);
+		DataRecord  snv2  = arena.allocate(true);
+		snv1.setDataField("Gene", "EGFR");
+		snv2.setDataField("Gene", "KRAS");
+		snv1.setDataField("Chrom", 7);
+
+		Assert.assertEquals("EGFR", snv1.getStringVal("Gene"));
+		Assert.assertEquals("KRAS", snv2.getStringVal("Gene"));
+		Assert.assertTrue(snv2.isNull("Chrom"));
+		Assert.assertEquals(snv1.getValueFields().keySet(), snv2.getValueFields().keySet());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setNotExistingFieldTest() throws Exception {
+		new RecordArena("GHSNV", schema, 4096).allocate(true).setDataField("Exon", 19);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setFieldWithDifferentTypeTest() throws Exception {
+		new RecordArena("GHSNV", schema, 4096).allocate(true).setDataField("Chrom", "X");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void fullArenaTest() throws Exception {
+		RecordArena arena = new RecordArena("GHSNV", schema, 90);
+		DataRecord  snv   = arena.allocate(true);
+		Assert.assertEquals(48, arena.getUsedBytes());
+		snv.setDataField("Gene", "EGFR");
+		Assert.assertEquals(52, arena.getUsedBytes());
+		arena.allocate(true);
+	}
+}
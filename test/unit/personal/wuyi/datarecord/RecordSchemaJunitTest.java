@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@code RecordSchema}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/17/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class RecordSchemaJunitTest {
+	@Test
+	public void ofTest() throws Exception {
+		final Map<String, Class<?>> columnTypes = new LinkedHashMap<>();
+		columnTypes.put("SampleId", Long.class);
+		columnTypes.put("Gene",     String.class);
+		final RecordSchema schema = RecordSchema.of(columnTypes);
+
+		Assert.assertEquals(2, schema.size());
+		Assert.assertEquals(Arrays.asList("SampleId", "Gene"), schema.getNames());
+		Assert.assertEquals(1, schema.indexOf("Gene"));
+		Assert.assertEquals(-1, schema.indexOf("Chr"));
+		Assert.assertEquals(String.class, schema.getType(1));
+		Assert.assertEquals(columnTypes, schema.getTypeMap());
+	}
+
+	@Test
+	public void shareTransitionTest() throws Exception {
+		final RecordSchema schema1 = RecordSchema.EMPTY.withField("SampleId", Long.class).withField("Gene", String.class);
+		final RecordSchema schema2 = RecordSchema.EMPTY.withField("SampleId", Long.class).withField("Gene", String.class);
+
+		Assert.assertSame(schema1, schema2);
+		Assert.assertSame(schema1, schema1.withField("Gene", String.class));
+	}
+
+	@Test
+	public void changeFieldTypeTest() throws Exception {
+		final RecordSchema schema1 = RecordSchema.EMPTY.withField("Pos", Integer.class);
+		final RecordSchema schema2 = schema1.withField("Pos", Long.class);
+
+		Assert.assertNotSame(schema1, schema2);
+		Assert.assertEquals(0, schema2.indexOf("Pos"));
+		Assert.assertEquals(Long.class, schema2.getType(0));
+		Assert.assertEquals(Integer.class, schema1.getType(0));
+	}
+
+	@Test
+	public void equalsTest() throws Exception {
+		final Map<String, Class<?>> columnTypes = new LinkedHashMap<>();
+		columnTypes.put("SampleId", Long.class);
+
+		Assert.assertEquals(RecordSchema.of(columnTypes), RecordSchema.EMPTY.withField("SampleId", Long.class));
+		Assert.assertFalse(RecordSchema.of(columnTypes).equals(RecordSchema.EMPTY.withField("SampleId", Integer.class)));
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code StatementCache}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/07/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class StatementCacheJunitTest {
+	private StatementCache cache;
+	private Connection     connect;
+	private List<String>   preparedSqlList;
+	private List<String>   closedSqlList;
+
+	@Before
+	public void initialize() {
+		cache           = new StatementCache();
+		preparedSqlList = new ArrayList<>();
+		closedSqlList   = new ArrayList<>();
+		connect         = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					if ("prepareStatement".equals(method.getName())) {
+						preparedSqlList.add((String) args[0]);
+						return createStatement((String) args[0]);
+					}
+					return null;
+				});
+	}
+
+	private PreparedStatement createStatement(final String sql) {
+		return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+				(proxy, method, args) -> {
+					if ("close".equals(method.getName())) {
+						closedSqlList.add(sql);
+					}
+					return null;
+				});
+	}
+
+	@Test
+	public void reuseStatementTest() throws Exception {
+		PreparedStatement statement1 = cache.get(connect, StatementCache.Operation.INSERT, "GHSNV", Arrays.asList("SampleId", "Gene"), () -> "INSERT 1");
+		PreparedStatement statement2 = cache.get(connect, StatementCache.Operation.INSERT, "GHSNV", Arrays.asList("SampleId", "Gene"), () -> "INSERT 2");
+
+		Assert.assertSame(statement1, statement2);
+		Assert.assertEquals(Arrays.asList("INSERT 1"), preparedSqlList);
+	}
+
+	@Test
+	public void differentLayoutTest() throws Exception {
+		cache.get(connect, StatementCache.Operation.INSERT, "GHSNV", Arrays.asList("SampleId", "Gene"), () -> "INSERT 1");
+		cache.get(connect, StatementCache.Operation.INSERT, "GHSNV", Arrays.asList("Gene", "SampleId"), () -> "INSERT 2");
+		cache.get(connect, StatementCache.Operation.UPDATE, "GHSNV", Arrays.asList("SampleId", "Gene"), () -> "UPDATE 1");
+		cache.get(connect, StatementCache.Operation.INSERT, "GHCNV", Arrays.asList("SampleId", "Gene"), () -> "INSERT 3");
+
+		Assert.assertEquals(4, cache.size());
+		Assert.assertEquals(Arrays.asList("INSERT 1", "INSERT 2", "UPDATE 1", "INSERT 3"), preparedSqlList);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsedTest() throws Exception {
+		cache.setCapacity(2);
+		cache.get(connect, StatementCache.Operation.INSERT, "T1", Arrays.asList("A"), () -> "INSERT T1");
+		cache.get(connect, StatementCache.Operation.INSERT, "T2", Arrays.asList("A"), () -> "INSERT T2");
+		cache.get(connect, StatementCache.Operation.INSERT, "T1", Arrays.asList("A"), () -> "INSERT T1");
+		cache.get(connect, StatementCache.Operation.INSERT, "T3", Arrays.asList("A"), () -> "INSERT T3");
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(Arrays.asList("INSERT T2"), closedSqlList);
+	}
+
+	@Test
+	public void differentRowCountTest() throws Exception {
+		PreparedStatement statement1 = cache.get(connect, StatementCache.Operation.MULTI_ROW_INSERT, "GHSNV", Arrays.asList("SampleId"), 2, () -> "INSERT 2 ROWS");
+		PreparedStatement statement2 = cache.get(connect, StatementCache.Operation.MULTI_ROW_INSERT, "GHSNV", Arrays.asList("SampleId"), 3, () -> "INSERT 3 ROWS");
+		PreparedStatement statement3 = cache.get(connect, StatementCache.Operation.MULTI_ROW_INSERT, "GHSNV", Arrays.asList("SampleId"), 2, () -> "INSERT 2 ROWS AGAIN");
+
+		Assert.assertNotSame(statement1, statement2);
+		Assert.assertSame(statement1, statement3);
+		Assert.assertEquals(Arrays.asList("INSERT 2 ROWS", "INSERT 3 ROWS"), preparedSqlList);
+	}
+
+	@Test
+	public void shrinkCapacityTest() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			final String sql = "INSERT T" + i;
+			cache.get(connect, StatementCache.Operation.INSERT, "T" + i, Arrays.asList("A"), () -> sql);
+		}
+		cache.setCapacity(2);
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(Arrays.asList("INSERT T0", "INSERT T1", "INSERT T2"), closedSqlList);
+	}
+
+	@Test
+	public void invalidateAllTest() throws Exception {
+		cache.get(connect, StatementCache.Operation.INSERT, "T1", Arrays.asList("A"), () -> "INSERT T1");
+		cache.get(connect, StatementCache.Operation.UPDATE, "T1", Arrays.asList("A"), () -> "UPDATE T1");
+		cache.invalidateAll();
+
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(2, closedSqlList.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setNonPositiveCapacityTest() throws Exception {
+		cache.setCapacity(0);
+	}
+}
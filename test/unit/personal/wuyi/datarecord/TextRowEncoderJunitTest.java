@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@code TextRowEncoder}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/10/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class TextRowEncoderJunitTest {
+	@Test
+	public void appendRowTest() {
+		DataRecord snv = new DataRecord("GHSNV");
+		snv.setDataField("SampleId",   "A2049602_1");
+		snv.setDataField("Percentage", 19.3);
+		snv.setDataField("Chrom",      10);
+		snv.setDataField("Position",   1744567441L);
+
+		StringBuilder sb = new StringBuilder();
+		TextRowEncoder.appendRow(sb, snv);
+		TextRowEncoder.appendRow(sb, snv);
+
+		Assert.assertEquals("A2049602_1\t19.3\t10\t1744567441\nA2049602_1\t19.3\t10\t1744567441\n", sb.toString());
+	}
+
+	@Test
+	public void appendNullValueTest() {
+		DataRecord snv = new DataRecord("GHSNV");
+		snv.setDataField("SampleId", (String) null);
+		snv.setDataField("Chrom",    (Integer) null);
+
+		StringBuilder sb = new StringBuilder();
+		TextRowEncoder.appendRow(sb, snv);
+
+		Assert.assertEquals("\\N\t\\N\n", sb.toString());
+	}
+
+	@Test
+	public void escapeStringTest() {
+		StringBuilder sb = new StringBuilder();
+		TextRowEncoder.appendValue(sb, "a\\b\tc\nd\re'f");
+
+		Assert.assertEquals("a\\\\b\\tc\\nd\\re'f", sb.toString());
+	}
+}
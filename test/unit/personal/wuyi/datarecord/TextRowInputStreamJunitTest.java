@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@code TextRowInputStream}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/11/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class TextRowInputStreamJunitTest {
+	@Test
+	public void readAllRowsTest() throws Exception {
+		List<DataRecord> snvList  = new ArrayList<>();
+		StringBuilder    expected = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			DataRecord snv = new DataRecord("GHSNV");
+			snv.setDataField("Gene",     "BRCA\u00e92");
+			snv.setDataField("Position", 1744567441L + i);
+			snvList.add(snv);
+			expected.append("BRCA\u00e92\t").append(1744567441L + i).append("\n");
+		}
+
+		Assert.assertEquals(expected.toString(), readAll(new TextRowInputStream(snvList)));
+	}
+
+	@Test
+	public void readByteByByteTest() throws Exception {
+		DataRecord snv = new DataRecord("GHSNV");
+		snv.setDataField("Gene",  "EGFR");
+		snv.setDataField("Chrom", 7);
+
+		InputStream in = new TextRowInputStream(Collections.singletonList(snv));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) != -1) {
+			out.write(b);
+		}
+		Assert.assertEquals("EGFR\t7\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void readEmptyListTest() throws Exception {
+		Assert.assertEquals(-1, new TextRowInputStream(Collections.<DataRecord>emptyList()).read(new byte[16], 0, 16));
+	}
+
+	private static String readAll(final InputStream in) throws Exception {
+		ByteArrayOutputStream out    = new ByteArrayOutputStream();
+		byte[]                buffer = new byte[1000];
+		int                   count;
+		while ((count = in.read(buffer, 0, buffer.length)) != -1) {
+			out.write(buffer, 0, count);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Wuyi Chen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package personal.wuyi.datarecord;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import personal.wuyi.client.database.DbType;
+
+/**
+ * Test class for {@code WriteBehindFlusher}.
+ *
+ * @author  Wuyi Chen
+ * @date    12/26/2018
+ * @version 1.2
+ * @since   1.2
+ */
+public class WriteBehindFlusherJunitTest {
+	/**
+	 * Session which records the committed records instead of writing them 
+	 * to a database.
+	 */
+	private static class RecordingSession extends DataRecordSession {
+		private final List<DataRecord> pendingList   = new ArrayList<>();
+		private final List<DataRecord> committedList = Collections.synchronizedList(new ArrayList<>());
+		private final List<Integer>    commitSizes   = Collections.synchronizedList(new ArrayList<>());
+		private volatile boolean       failing;
+
+		RecordingSession() {
+			super(DbType.MYSQL, (Connection) Proxy.newProxyInstance(RecordingSession.class.getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> method.getName().equals("isClosed") ? Boolean.FALSE : null));
+		}
+
+		@Override
+		public synchronized void addDataRecord(final DataRecord dataRecord) {
+			pendingList.add(dataRecord);
+		}
+
+		@Override
+		public synchronized CommitResult storeAndCommit() throws SQLException {
+			if (failing) {
+				throw new SQLException("failed");
+			}
+			committedList.addAll(pendingList);
+			commitSizes.add(pendingList.size());
+			return new CommitResult(pendingList.size(), 0, 0);
+		}
+
+		@Override
+		public synchronized void clearCommitPool() {
+			pendingList.clear();
+		}
+	}
+
+	@Test
+	public void flushTest() throws Exception {
+		final RecordingSession session = new RecordingSession();
+		try (WriteBehindFlusher flusher = new WriteBehindFlusher(session, 4, 20, TimeUnit.MILLISECONDS, 100)) {
+			for (int i = 0; i < 10; i++) {
+				flusher.addDataRecord(new DataRecord("GHSNV"));
+			}
+			flusher.flush();
+
+			Assert.assertEquals(10, session.committedList.size());
+			for (int size : session.commitSizes) {
+				Assert.assertTrue(size <= 4);
+			}
+		}
+		Assert.assertTrue(session.isClosed());
+	}
+
+	@Test
+	public void closeTest() throws Exception {
+		final RecordingSession   session = new RecordingSession();
+		final WriteBehindFlusher flusher = new WriteBehindFlusher(session, 1000, 10, TimeUnit.SECONDS, 100);
+		for (int i = 0; i < 5; i++) {
+			flusher.addDataRecord(new DataRecord("GHSNV"));
+		}
+		flusher.close();
+
+		Assert.assertEquals(5, session.committedList.size());
+		Assert.assertEquals(0, flusher.getQueueSize());
+		Assert.assertTrue(session.isClosed());
+	}
+
+	@Test
+	public void errorTest() throws Exception {
+		final RecordingSession session = new RecordingSession();
+		session.failing = true;
+		try (WriteBehindFlusher flusher = new WriteBehindFlusher(session, 1, 10, TimeUnit.MILLISECONDS, 100)) {
+			flusher.addDataRecord(new DataRecord("GHSNV"));
+			try {
+				flusher.flush();
+				Assert.fail();
+			} catch (SQLException e) {
+				Assert.assertEquals("failed", e.getMessage());
+			}
+
+			session.failing = false;
+			flusher.addDataRecord(new DataRecord("GHSNV"));
+			flusher.flush();
+			Assert.assertEquals(1, session.committedList.size());
+		}
+	}
+}